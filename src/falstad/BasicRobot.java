@@ -38,6 +38,9 @@ public class BasicRobot implements Robot {
 
 	@Override
 	public void rotate(Turn turn) {
+		RobotOperationEvent event = new RobotOperationEvent();
+		event.begin();
+		final CardinalDirection before = currentDirection;
 		switch(turn) {
 		
 			case RIGHT:
@@ -76,53 +79,63 @@ public class BasicRobot implements Robot {
 				}
 				break;
 		}
+		// a completed turn goes to the replay recorder, the maze does not learn about it otherwise
+		final ReplayRecorder recorder = (null != this.maze) ? this.maze.recorder : null;
+		if (null != recorder && currentDirection != before)
+			recorder.direction(currentDirection.ordinal());
+		commit(event, "rotate", turn, hasStopped ? 0 : 1);
 	}
 
 	@Override
 	public void move(int distance, boolean manual) {
+		RobotOperationEvent event = new RobotOperationEvent();
+		event.begin();
+		if (manual == true) {
+			distance = 1;
+		}
+		final int requested = distance;
+		this.currentPosition = this.maze.getCurrentPosition();
+		// sense once for the whole move, the number of free cells ahead tells how far we can go
+		int free = (distance > 0 && batteryLevel >= 1) ? senseDistance(Direction.FORWARD) : 0;
 		
 		while (distance > 0) { // This checks to make sure that the robot still is supposed to move
-			this.currentPosition = this.maze.getCurrentPosition();
-			
-			if (batteryLevel >= 5) {
-				if (manual == true) {
-					distance = 1;
-				}
-				if (distanceToObstacle(Direction.FORWARD) > 0) {
-					
-					// create a switch to see which direction you are facing so you can change
-					// your current position
-					switch(currentDirection) {
-					
-						case West: // west is in the negative X direction so you decrement the x coordinate
-							this.currentPosition[0]--;
-							break;
-						
-						case East: // east is in the positive X direction so you increment the x coordinate
-							this.currentPosition[0]++;
-							break;
-						
-						case North: // north is in the negative Y direction so you decrement the y coordinate
-							this.currentPosition[1]--;
-							break;
-						
-						case South: // south is in the positive Y direction so you increment the y coordinate
-							this.currentPosition[1]++;
-							break;
-					}
-					// The maze sets its current position to match whatever the change makes 
-					this.maze.setCurrentPosition(this.currentPosition[0], this.currentPosition[1]);
-					this.batteryLevel -= 5; // battery ccost for a move is 5
-					pathLength ++; // pathLength is incremented for each move
-					distance--; // counter for while loop
-				}
-				else {
-					hasStopped = true;
-				}
-			}
-			else {
+			if (batteryLevel < 5) {
+				// out of energy
 				hasStopped = true;
+				break;
 			}
+			if (free == 0) {
+				// facing a wall, a robot that runs into it stops, a user just stays in front of it
+				if (!manual)
+					hasStopped = true;
+				break;
+			}
+			this.currentPosition[0] += currentDirection.dx();
+			this.currentPosition[1] += currentDirection.dy();
+			// The maze sets its current position to match whatever the change makes 
+			this.maze.setCurrentPosition(this.currentPosition[0], this.currentPosition[1]);
+			batteryLevel -= 5; // battery cost for a move is 5
+			pathLength ++; // pathLength is incremented for each move
+			distance--; // counter for while loop
+			free--;
+		}
+		commit(event, "move", requested, requested - distance);
+	}
+	/**
+	 * Completes a flight recorder event for a robot operation
+	 * @param event that was started at the beginning of the operation
+	 * @param operation name
+	 * @param argument of the operation
+	 * @param result of the operation
+	 */
+	private void commit(RobotOperationEvent event, String operation, Object argument, int result) {
+		event.end();
+		if (event.shouldCommit()) {
+			event.operation = operation;
+			event.argument = String.valueOf(argument);
+			event.result = result;
+			event.batteryLevel = batteryLevel;
+			event.commit();
 		}
 	}
 
@@ -195,7 +208,8 @@ public class BasicRobot implements Robot {
 
 	@Override
 	public CardinalDirection getCurrentDirection() {
-		return this.maze.getCurrentDirection();
+		// the robot keeps track of its own direction, rotate does not change the direction of the maze
+		return currentDirection;
 	}
 
 	@Override
@@ -229,72 +243,90 @@ public class BasicRobot implements Robot {
 
 	@Override
 	public int distanceToObstacle(Direction direction) throws UnsupportedOperationException {
+		RobotOperationEvent event = new RobotOperationEvent();
+		event.begin();
+		int result = senseDistance(direction);
+		commit(event, "distanceToObstacle", direction, result);
+		return result;
+	}
+	@Override
+	public void distanceToObstacles(Direction[] directions, int[] distances) throws UnsupportedOperationException {
+		RobotOperationEvent event = new RobotOperationEvent();
+		event.begin();
+		// check all sensors first such that a missing sensor does not leave us with a partial result
+		for (Direction direction : directions) {
+			if (!hasDistanceSensor(direction)) {
+				throw new UnsupportedOperationException();
+			}
+		}
+		final int[] pos = this.maze.getCurrentPosition();
+		for (int i = 0; i < directions.length; i++) {
+			// sensor cost = 1 for each direction as for distanceToObstacle
+			setBatteryLevel(batteryLevel - 1);
+			distances[i] = scan(pos[0], pos[1], toCardinalDirection(directions[i]));
+			record(directions[i], distances[i]);
+		}
+		commit(event, "distanceToObstacles", directions.length, directions.length);
+	}
+	/**
+	 * Performs the distance measurement for distanceToObstacle
+	 */
+	private int senseDistance(Direction direction) throws UnsupportedOperationException {
 		if (hasDistanceSensor(direction)) {
 			// sensor cost = 1
 			setBatteryLevel(batteryLevel - 1);
-			//get direction for checking walls in that direction
-			CardinalDirection cd;
-			if (direction == Direction.LEFT) {
-				cd = currentDirection.rotateCounterClockwise();
-			}
-			
-			else if (direction == Direction.RIGHT) {
-				cd = currentDirection.rotateClockwise();
-			}
-			
-			else if (direction == Direction.BACKWARD) {
-				cd = currentDirection.oppositeDirection();
-			}
-			
-			else {
-				cd = currentDirection;
-			}
-			
-			// set a counter to see how many steps you can go before running into an obstacle
-			int count = 0;
-			int currX = this.maze.getCurrentPosition()[0]; // current x coordinate
-			int currY = this.maze.getCurrentPosition()[1]; // current y coordinate
-
-			while (true) {
-				if (currX < 0 || currX >= roboCells.width || currY < 0 || currY >= roboCells.height) { // checks if out of bounds of maze
-					return Integer.MAX_VALUE;
-				}
-
-				else {
-					switch (cd) { // each one of the cases checks to see if there is a wall in the given direction and then increments the counter of the while loop while decrementing/incrementing the corresponding coordinate value
-					case North:
-						if (roboCells.hasWall(currX, currY, CardinalDirection.North)) {
-							return count;
-						}
-						currY--;
-						break;
-					case South:
-						if (roboCells.hasWall(currX, currY, CardinalDirection.South)) {
-							return count;
-						}
-						currY++;
-						break;
-					case East:
-						if (roboCells.hasWall(currX, currY, CardinalDirection.East)) {
-							return count;
-						}
-						currX++;
-						break;
-					case West:
-						if (roboCells.hasWall(currX, currY, CardinalDirection.West)) {
-							return count;
-						}
-						currX--;
-						break;
-					}
-					count++;
-				}
-			}
+			final int[] pos = this.maze.getCurrentPosition();
+			final int result = scan(pos[0], pos[1], toCardinalDirection(direction));
+			record(direction, result);
+			return result;
 		}
 		else {
 			throw new UnsupportedOperationException();
 		}
 	}
+	/**
+	 * Passes a sensor reading on to the controller's replay recorder if there is one
+	 */
+	private void record(Direction direction, int distance) {
+		final ReplayRecorder recorder = this.maze.recorder;
+		if (null != recorder)
+			recorder.sensor(toCardinalDirection(direction).ordinal(), distance);
+	}
+	/**
+	 * Translates a direction relative to the robot into an absolute direction
+	 */
+	private CardinalDirection toCardinalDirection(Direction direction) {
+		switch (direction) {
+		case LEFT:
+			return currentDirection.rotateCounterClockwise();
+		case RIGHT:
+			return currentDirection.rotateClockwise();
+		case BACKWARD:
+			return currentDirection.oppositeDirection();
+		default:
+			return currentDirection;
+		}
+	}
+	/**
+	 * Counts the steps from (x,y) in the given direction before running into a wall
+	 * @return number of steps, Integer.MAX_VALUE if the line of sight leaves the maze through the exit
+	 */
+	private int scan(int x, int y, CardinalDirection cd) {
+		final int dx = cd.dx();
+		final int dy = cd.dy();
+		int count = 0;
+		while (true) {
+			if (x < 0 || x >= roboCells.width || y < 0 || y >= roboCells.height) { // checks if out of bounds of maze
+				return Integer.MAX_VALUE;
+			}
+			if (roboCells.hasWall(x, y, cd)) {
+				return count;
+			}
+			x += dx;
+			y += dy;
+			count++;
+		}
+	}
 
 	@Override
 	public boolean hasDistanceSensor(Direction direction) {
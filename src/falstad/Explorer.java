@@ -0,0 +1,316 @@
+package falstad;
+
+import java.util.BitSet;
+
+import falstad.Robot.Direction;
+import falstad.Robot.Turn;
+import generation.CardinalDirection;
+import generation.Distance;
+
+/**
+ * A robot driver that explores an unknown maze. It does not use the distance to the exit,
+ * it builds a map of the maze from what its distance sensors tell and plans its way on that map.
+ *
+ * The map keeps two bits for each side of a cell: whether the side is known and whether it is a wall.
+ * A single sensor reading reveals a whole line of sight, i.e. an open side for each cell along the line
+ * and a wall at its end. Sensors are only used for sides of the current cell that are still unknown.
+ *
+ * The driver moves to the nearest frontier cell, a cell with an unknown side, on a shortest path
+ * over sides that are known to be open. Knowledge only grows, so a planned path stays valid
+ * and the driver only plans again when it reaches its target. As soon as a sensor looks
+ * through the exit, the driver goes straight for it.
+ *
+ * Collaborators: BasicRobot for sensors and moves.
+ */
+public class Explorer implements RobotDriver {
+
+	private static final Direction[] RELATIVE = { Direction.FORWARD, Direction.RIGHT, Direction.BACKWARD, Direction.LEFT }; // by clockwise offset
+
+	protected BasicRobot robot;
+	protected int width;
+	protected int height;
+	protected int pathLength;
+	protected float initialEnergy;
+	protected int sensorReads;
+
+	// map memory, index is (x*height+y)*4 + ordinal of direction
+	private BitSet known;
+	private BitSet walls;
+	// breadth first search, cells are marked with the number of the search to avoid clearing
+	private int[] mark;
+	private int[] parent;
+	private int[] queue;
+	private int search;
+	// path from the current position to the target, cell indices from the target backwards
+	private int[] path;
+	private int pathSize;
+	// planner statistics
+	private long planningTime;
+	private int plans;
+
+	@Override
+	public void setRobot(Robot r) {
+		robot = (BasicRobot) r;
+	}
+
+	@Override
+	public void setDimensions(int width, int height) {
+		this.width = width;
+		this.height = height;
+	}
+
+	@Override
+	public void setDistance(Distance distance) {
+		// the explorer finds its own way
+	}
+
+	@Override
+	public boolean drive2Exit() throws Exception {
+		init();
+		while (!robot.isAtGoal()) {
+			int[] pos = robot.getCurrentPosition();
+			int x = pos[0];
+			int y = pos[1];
+			int exit = sense(x, y);
+			if (exit >= 0) {
+				// the exit is in sight, the line of sight is known to be open
+				int steps = stepsToBorder(x, y, exit);
+				if (!go(exit, steps))
+					return false;
+				break;
+			}
+			long start = System.nanoTime();
+			boolean found = plan(x*height+y);
+			planningTime += System.nanoTime() - start;
+			plans++;
+			if (!found)
+				return false; // everything reachable is known, but there is no exit
+			if (!followPath(x, y))
+				return false;
+		}
+		robot.maze.state = Constants.StateGUI.STATE_FINISH;
+		robot.maze.notifyViewerRedraw();
+		return true;
+	}
+
+	private void init() {
+		final int cells = width*height;
+		known = new BitSet(cells*4);
+		walls = new BitSet(cells*4);
+		mark = new int[cells];
+		parent = new int[cells];
+		queue = new int[cells];
+		path = new int[cells];
+		search = 0;
+		pathLength = 0;
+		sensorReads = 0;
+		planningTime = 0;
+		plans = 0;
+		initialEnergy = robot.getBatteryLevel();
+	}
+
+	/**
+	 * Uses the sensors for all unknown sides of the given cell in a single call and records the result in the map.
+	 * @return ordinal of the direction in which the exit is visible, -1 if it is not
+	 */
+	private int sense(int x, int y) {
+		final int cell = x*height+y;
+		final int facing = robot.getCurrentDirection().ordinal();
+		int n = 0;
+		int[] dirs = new int[4];
+		for (int dir = 0; dir != 4; dir++) {
+			if (!known.get(cell*4+dir))
+				dirs[n++] = dir;
+		}
+		if (0 == n)
+			return -1;
+		Direction[] directions = new Direction[n];
+		for (int i = 0; i != n; i++)
+			directions[i] = RELATIVE[(dirs[i] - facing) & 3];
+		int[] distances = new int[n];
+		robot.distanceToObstacles(directions, distances);
+		sensorReads += n;
+		int exit = -1;
+		for (int i = 0; i != n; i++) {
+			if (record(x, y, dirs[i], distances[i]))
+				exit = dirs[i];
+		}
+		return exit;
+	}
+
+	/**
+	 * Records a line of sight in the map
+	 * @param dir ordinal of the direction of the line of sight
+	 * @param distance number of open sides before the wall, Integer.MAX_VALUE if the line leaves the maze
+	 * @return true if the line leaves the maze through the exit
+	 */
+	private boolean record(int x, int y, int dir, int distance) {
+		final int dx = CardinalDirection.dx(dir);
+		final int dy = CardinalDirection.dy(dir);
+		while (x >= 0 && x < width && y >= 0 && y < height) {
+			if (0 == distance) {
+				setSide(x, y, dir, true);
+				return false;
+			}
+			setSide(x, y, dir, false);
+			x += dx;
+			y += dy;
+			distance--;
+		}
+		return true;
+	}
+
+	/**
+	 * Sets a side of a cell and the matching side of its neighbor as known
+	 */
+	private void setSide(int x, int y, int dir, boolean wall) {
+		final int index = (x*height+y)*4+dir;
+		known.set(index);
+		walls.set(index, wall);
+		final int nx = x + CardinalDirection.dx(dir);
+		final int ny = y + CardinalDirection.dy(dir);
+		if (nx >= 0 && nx < width && ny >= 0 && ny < height) {
+			final int opposite = (nx*height+ny)*4 + ((dir+2) & 3);
+			known.set(opposite);
+			walls.set(opposite, wall);
+		}
+	}
+
+	/**
+	 * Searches breadth first over open sides for the nearest cell that has an unknown side
+	 * and stores the path to that cell.
+	 * @return true if there is such a cell, false otherwise
+	 */
+	private boolean plan(int start) {
+		search++;
+		int head = 0;
+		int tail = 0;
+		queue[tail++] = start;
+		mark[start] = search;
+		while (head != tail) {
+			final int cell = queue[head++];
+			if (known.nextClearBit(cell*4) < cell*4+4) {
+				// frontier cell, collect the path backwards
+				pathSize = 0;
+				for (int c = cell; c != start; c = parent[c])
+					path[pathSize++] = c;
+				return true;
+			}
+			final int x = cell / height;
+			final int y = cell - x*height;
+			for (int dir = 0; dir != 4; dir++) {
+				if (walls.get(cell*4+dir))
+					continue;
+				final int nx = x + CardinalDirection.dx(dir);
+				final int ny = y + CardinalDirection.dy(dir);
+				if (nx < 0 || nx >= width || ny < 0 || ny >= height)
+					continue;
+				final int next = nx*height+ny;
+				if (mark[next] != search) {
+					mark[next] = search;
+					parent[next] = cell;
+					queue[tail++] = next;
+				}
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Drives along the planned path, straight segments are a single move
+	 * @return true if the robot reached the end of the path, false if it stopped
+	 */
+	private boolean followPath(int x, int y) {
+		int i = pathSize-1;
+		while (i >= 0) {
+			final int dir = directionTo(x, y, path[i]);
+			int steps = 0;
+			do {
+				x += CardinalDirection.dx(dir);
+				y += CardinalDirection.dy(dir);
+				steps++;
+				i--;
+			} while (i >= 0 && directionTo(x, y, path[i]) == dir);
+			if (!go(dir, steps))
+				return false;
+		}
+		return true;
+	}
+
+	/**
+	 * @return ordinal of the direction from (x,y) to the neighboring cell
+	 */
+	private int directionTo(int x, int y, int cell) {
+		final int nx = cell / height;
+		final int ny = cell - nx*height;
+		for (int dir = 0; dir != 4; dir++) {
+			if (x + CardinalDirection.dx(dir) == nx && y + CardinalDirection.dy(dir) == ny)
+				return dir;
+		}
+		throw new IllegalStateException("cells are not adjacent");
+	}
+
+	/**
+	 * Gives the number of steps from (x,y) to the last cell inside the maze in the given direction
+	 */
+	private int stepsToBorder(int x, int y, int dir) {
+		int steps = 0;
+		x += CardinalDirection.dx(dir);
+		y += CardinalDirection.dy(dir);
+		while (x >= 0 && x < width && y >= 0 && y < height) {
+			steps++;
+			x += CardinalDirection.dx(dir);
+			y += CardinalDirection.dy(dir);
+		}
+		return steps;
+	}
+
+	/**
+	 * Turns towards the given direction and moves the given number of steps
+	 * @return true if the robot is still operational, false otherwise
+	 */
+	private boolean go(int dir, int steps) {
+		Turn turn = Wizard.turnTowards(robot.getCurrentDirection(), CardinalDirection.fromOrdinal(dir));
+		if (null != turn)
+			robot.rotate(turn);
+		if (steps > 0)
+			robot.move(steps, false);
+		if (robot.hasStopped())
+			return false;
+		pathLength += steps;
+		robot.maze.notifyViewerRedraw();
+		return true;
+	}
+
+	/**
+	 * Gives the average time the planner took for each step of the journey
+	 * @return time in nanoseconds, 0 if the robot did not move
+	 */
+	public long getPlanningTimePerStep() {
+		return (0 == pathLength) ? 0 : planningTime / pathLength;
+	}
+
+	/**
+	 * Gives the number of times the driver planned a path on its map
+	 */
+	public int getPlanCount() {
+		return plans;
+	}
+
+	/**
+	 * Gives the number of directions the robot measured distances for
+	 */
+	public int getSensorReads() {
+		return sensorReads;
+	}
+
+	@Override
+	public float getEnergyConsumption() {
+		return initialEnergy - robot.getBatteryLevel();
+	}
+
+	@Override
+	public int getPathLength() {
+		return pathLength;
+	}
+}
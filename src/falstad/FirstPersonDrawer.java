@@ -19,7 +19,9 @@ import java.awt.Graphics;
 import java.awt.Graphics2D;
 import java.awt.Point;
 import java.awt.RenderingHints;
+import java.awt.geom.GeneralPath;
 import java.util.ArrayList;
+import java.util.HashMap;
 
 
 /**
@@ -63,6 +65,11 @@ public class FirstPersonDrawer extends DefaultViewer {
 	// set of ranges
 	private RangeSet rset ; // set in redraw_play
 	
+	// polygons are not drawn one at a time but collected in one path per color
+	// and filled at the end of redraw, paths are reused across frames
+	private HashMap<Color, GeneralPath> batches = new HashMap<Color, GeneralPath>() ;
+	private ArrayList<Color> batchColors = new ArrayList<Color>() ; // colors with a non-empty path in the current frame
+	
 	// debug stuff
 	private boolean deepdebug = false;
 	private boolean all_visible = false;
@@ -71,6 +78,7 @@ public class FirstPersonDrawer extends DefaultViewer {
 	private int drawrect_ct ;
 	private int drawrect_late_ct ;
 	private int drawrect_segment_ct ;
+	private int fill_ct ; // number of fill operations, i.e. color changes, in the last frame
 	private int nesting = 0;
 	
 	/**
@@ -119,6 +127,8 @@ public class FirstPersonDrawer extends DefaultViewer {
 		//dbg("viewer.redraw called");
 		if (state != StateGUI.STATE_PLAY)
 			return ;
+		FrameRenderEvent event = new FrameRenderEvent() ;
+		event.begin() ;
 		// new adjustment
 		// old: this.gc = gc ; // gc was simple Graphics object
 		// now
@@ -151,12 +161,58 @@ public class FirstPersonDrawer extends DefaultViewer {
 		rset.set(0, view_width-1); // reset set of ranges to set with single new element (0,width-1)
 		// debug: reset counters
 		traverse_node_ct = traverse_ssector_ct =
-			drawrect_ct = drawrect_late_ct = drawrect_segment_ct = 0;
+			drawrect_ct = drawrect_late_ct = drawrect_segment_ct = fill_ct = 0;
 		//
 		drawAllVisibleSectors(bsp_root);
+		// all polygons are known now, draw them
+		flushBatches();
+		if (deepdebug) {
+			dbg("redraw: " + drawrect_segment_ct + " polygons drawn with " + fill_ct + " fill operations");
+		}
+		event.end() ;
+		if (event.shouldCommit()) {
+			event.renderer = "Java2D" ;
+			event.traverseNodes = traverse_node_ct ;
+			event.traverseLeaves = traverse_ssector_ct ;
+			event.drawrect = drawrect_ct ;
+			event.drawrectLate = drawrect_late_ct ;
+			event.polygons = drawrect_segment_ct ;
+			event.fills = fill_ct ;
+			event.commit() ;
+		}
 	}
 	
 	////////////////////////////// internal, private methods ///////////////////////////////
+	/**
+	 * Provides the path that collects all polygons of the given color in the current frame
+	 * @param col is the color of the polygon
+	 * @return path to append the polygon to
+	 */
+	private GeneralPath getBatch(Color col) {
+		GeneralPath path = batches.get(col) ;
+		if (null == path) {
+			path = new GeneralPath() ;
+			batches.put(col, path) ;
+		}
+		if (null == path.getCurrentPoint()) // path is empty, first polygon of this color in this frame
+			batchColors.add(col) ;
+		return path ;
+	}
+	/**
+	 * Fills all paths that were collected in the current frame with one fill operation per color.
+	 * Polygons never overlap since the range set clips each one against all polygons in front of it,
+	 * so the order in which colors are drawn does not matter.
+	 */
+	private void flushBatches() {
+		for (Color col : batchColors) {
+			GeneralPath path = batches.get(col) ;
+			gc.setColor(col) ;
+			gc.fill(path) ;
+			path.reset() ; // keep the path for the next frame
+			fill_ct++ ; // debug, counter
+		}
+		batchColors.clear() ;
+	}
 	/**
 	 * Recursive method to explore tree of BSP nodes and draw all segments in leaf nodes 
 	 * where the bounding box is visible
@@ -341,7 +397,7 @@ public class FirstPersonDrawer extends DefaultViewer {
 			return;
 		int x1i = x1;
 		int xd = x2-x1;
-		gc.setColor(seg.getColor());
+		GeneralPath path = null; // batch for the color of this segment, obtained with the first polygon
 		boolean drawn = false;
 		drawrect_late_ct++; // debug, counter
 		// loop variable is x1i, upper limit x2 is fixed
@@ -355,23 +411,14 @@ public class FirstPersonDrawer extends DefaultViewer {
 			x1i = p.x;
 			int x2i = p.y;
 			// let's work on the intersection (x1i,x2i)
-			int[] xps = { x1i, x1i, x2i+1, x2i+1 };
-			int[] yps = { y11+(x1i-x1)*(y21-y11)/xd,
-					y12+(x1i-x1)*(y22-y12)/xd+1,
-					y22+(x2i-x2)*(y22-y12)/xd+1,
-					y21+(x2i-x2)*(y21-y11)/xd };
-			// debug
-			//System.out.println("polygon-x: " + xps[0] + ", " + xps[1] + ", " + xps[2] + ", " + xps[3]) ;
-			//System.out.println("polygon-y: " + yps[0] + ", " + yps[1] + ", " + yps[2] + ", " + yps[3]) ;
-			gc.fillPolygon(xps, yps, 4);
-			// for debugging purposes, code will draw a red line around polygon
-			// this makes individual segments visible
-			/*
-			gc.setColor(new Color(240,20,20));
-			gc.drawPolygon(xps, yps, 4);
-			gc.setColor(seg.getColor());
-			*/
-			// end debugging
+			// the polygon is added to the batch of its color, it gets drawn at the end of redraw
+			if (null == path)
+				path = getBatch(seg.getColor());
+			path.moveTo(x1i, y11+(x1i-x1)*(y21-y11)/xd);
+			path.lineTo(x1i, y12+(x1i-x1)*(y22-y12)/xd+1);
+			path.lineTo(x2i+1, y22+(x2i-x2)*(y22-y12)/xd+1);
+			path.lineTo(x2i+1, y21+(x2i-x2)*(y21-y11)/xd);
+			path.closePath();
 			drawn = true;
 			rset.remove(x1i, x2i);
 			x1i = x2i+1;
@@ -379,14 +426,16 @@ public class FirstPersonDrawer extends DefaultViewer {
 		}
 		if (drawn && !seg.isSeen()) {
 			seg.setSeen(true); // updates the segment
-			udpateSeenCellsForSegment(seg); // updates seencells
+			udpateSeenCellsForSegment(seencells, seg, map_unit); // updates seencells
 		}
 	}
 	/**
 	 * Set the seencells bit for all cells of a segment
+	 * @param seencells cells whose walls are currently visible, updated
 	 * @param seg segment (only read access)
+	 * @param map_unit
 	 */
-	private void udpateSeenCellsForSegment(Seg seg) {
+	static void udpateSeenCellsForSegment(Cells seencells, Seg seg, int map_unit) {
 
 		// we need to obtain the starting position (sx,sy) of the segment
 		// and the direction (sdsx,sdsy) in which the segment proceeds
@@ -498,9 +547,9 @@ public class FirstPersonDrawer extends DefaultViewer {
 	}
 
 	/**
-	 * Trivial class to hold 4 integer values. Used in FirstPersonDrawer.
+	 * Trivial class to hold 4 integer values. Used in FirstPersonDrawer and SoftwareFirstPersonDrawer.
 	 */
-	class RangePair {
+	static class RangePair {
 	    public int x1, z1, x2, z2;
 	    RangePair(int xx1, int zz1, int xx2, int zz2) {
 		x1 = xx1;
@@ -0,0 +1,39 @@
+package falstad;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Flight recorder event for drawing a single frame of the first person view.
+ * Carries the debug counters of the drawer such that expensive frames 
+ * can be related to the amount of work spent on the BSP tree traversal.
+ */
+@Name("maze.FrameRender")
+@Label("Maze Frame Render")
+@Category({ "Maze", "Rendering" })
+@Description("Drawing of a first person view of the maze")
+public class FrameRenderEvent extends Event {
+	@Label("Renderer")
+	String renderer ;
+
+	@Label("Traversed Nodes")
+	int traverseNodes ;
+
+	@Label("Traversed Leaves")
+	int traverseLeaves ;
+
+	@Label("Segments Considered")
+	int drawrect ;
+
+	@Label("Segments Facing Viewer")
+	int drawrectLate ;
+
+	@Label("Polygons Drawn")
+	int polygons ;
+
+	@Label("Fill Operations")
+	int fills ;
+}
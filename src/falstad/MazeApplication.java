@@ -5,6 +5,8 @@ package falstad;
 
 import java.awt.event.KeyListener;
 import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
 
 import javax.swing.JFrame;
 
@@ -67,7 +69,16 @@ public class MazeApplication extends JFrame {
 			return;
 		}
 		
-		// Case 3: a file
+		// Case 3: RecursiveDivision
+		if ("RecursiveDivision".equalsIgnoreCase(parameter))
+		{
+			System.out.println("MazeApplication: generating random maze with recursive division");
+			controller = new MazeController(Order.Builder.RecursiveDivision);
+			init();
+			return;
+		}
+		
+		// Case 4: a file
 		File f = new File(parameter) ;
 		if (f.exists() && f.canRead())
 		{
@@ -88,26 +99,15 @@ public class MazeApplication extends JFrame {
 	 */
 	public MazeApplication(String builder, String driver) 
 	{
-		if ("Prim".equalsIgnoreCase(builder)) {
-			System.out.println("MazeApplication: generating random maze with Prim's algorithm");
-			if ("Wallfollower".equalsIgnoreCase(driver)) {
-				System.out.println("RUNNING WALLFLOWER ROBOT");
-				this.robotDriver = new WallFollower();
-				controller = new MazeController(Order.Builder.Prim, this.robotDriver);
-			}
-			init();
-			return;
+		robotDriver = createDriver(driver);
+		Order.Builder algorithm = null;
+		for (Order.Builder b : Order.Builder.values()) {
+			if (b.name().equalsIgnoreCase(builder))
+				algorithm = b;
 		}
-		
-		if ("Kruskal".equalsIgnoreCase(builder)) {
-			System.out.println("MazeApplication: generating random maze with Kruskal's algorithm");
-			controller = new MazeController(Order.Builder.Kruskal);
-			if ("Wallfollower".equalsIgnoreCase(driver)) {
-				System.out.println("RUNNING WALLFLOWER ROBOT");
-				robotDriver = new WallFollower();
-				controller = new MazeController(Order.Builder.Kruskal, this.robotDriver);
-
-			}
+		if (null != algorithm) {
+			System.out.println("MazeApplication: generating random maze with builder " + algorithm);
+			controller = (null == robotDriver) ? new MazeController(algorithm) : new MazeController(algorithm, robotDriver);
 			init();
 			return;
 		}
@@ -116,21 +116,69 @@ public class MazeApplication extends JFrame {
 		if (f.exists() && f.canRead())
 		{
 			System.out.println("MazeApplication: loading maze from file: " + builder);
-			controller = new MazeController(builder) ;
-			if ("Wallfollower".equalsIgnoreCase(driver)) {
-				System.out.println("RUNNING WALLFLOWER ROBOT");
-				robotDriver = new WallFollower();
-				controller = new MazeController(builder, this.robotDriver) ;
-			}
+			controller = (null == robotDriver) ? new MazeController(builder) : new MazeController(builder, robotDriver) ;
 			init();
 			return ;
 		}
+		
+		// Default case: 
+		System.out.println("MazeApplication: unknown parameter value: " + builder + " ignored, operating in default mode.");
+		controller = (null == robotDriver) ? new MazeController() : new MazeController(robotDriver) ;
+		init() ;
+	}
+	
+	/**
+	 * Instantiates the robot driver for the given name
+	 * @param driver is Wallfollower, Wizard or Explorer, not case sensitive
+	 * @return driver, null if the name is unknown
+	 */
+	private static RobotDriver createDriver(String driver) {
+		if ("Wallfollower".equalsIgnoreCase(driver)) {
+			System.out.println("RUNNING WALLFLOWER ROBOT");
+			return new WallFollower();
+		}
+		if ("Wizard".equalsIgnoreCase(driver)) {
+			System.out.println("RUNNING WIZARD ROBOT");
+			return new Wizard();
+		}
+		if ("Explorer".equalsIgnoreCase(driver)) {
+			System.out.println("RUNNING EXPLORER ROBOT");
+			return new Explorer();
+		}
+		System.out.println("MazeApplication: unknown driver: " + driver + " ignored, operating without robot.");
+		return null;
 	}
 
 	/**
 	 * Initializes some internals and puts the game on display.
 	 */
 	private void init() {
+		// -Dmaze.softwareRendering=true selects the multi-core software renderer for the first person view
+		if (Boolean.getBoolean("maze.softwareRendering")) {
+			System.out.println("MazeApplication: using software rendering for the first person view");
+			controller.setSoftwareRendering(true) ;
+		}
+		// -Dmaze.record=file records the run for a replay with the ReplayPlayer
+		String record = System.getProperty("maze.record") ;
+		if (null != record) {
+			try {
+				final ReplayRecorder recorder = new ReplayRecorder(new FileOutputStream(record)) ;
+				controller.setRecorder(recorder) ;
+				Runtime.getRuntime().addShutdownHook(new Thread(new Runnable() {
+					@Override
+					public void run() {
+						try {
+							recorder.close() ;
+						} catch (IOException e) {
+							System.out.println("MazeApplication: failed to write recording: " + e) ;
+						}
+					}
+				})) ;
+				System.out.println("MazeApplication: recording run to " + record) ;
+			} catch (IOException e) {
+				System.out.println("MazeApplication: can not record to " + record + ": " + e) ;
+			}
+		}
 		add(controller.getPanel()) ;
 		
 		kl = new SimpleKeyListener(this, controller) ;
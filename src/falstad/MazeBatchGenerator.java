@@ -0,0 +1,294 @@
+package falstad;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import generation.Factory;
+import generation.MazeBuilder;
+import generation.MazeCache;
+import generation.MazeConfiguration;
+import generation.MazeFactory;
+import generation.MazeValidator;
+import generation.Order;
+import generation.Order.Builder;
+
+/**
+ * Command line tool to generate a set of mazes without a user interface.
+ *
+ * Each combination of skill level and seed is an order of its own.
+ * Orders are processed in parallel with one factory per order and as many orders
+ * at a time as there are cores. Each maze is written to the output directory as soon
+ * as it is delivered, either in the XML format of the MazeFileWriter or in the
+ * binary format of the MazeCache.
+ * At the end, the tool reports the throughput in mazes and cells per second.
+ *
+ * Usage: MazeBatchGenerator [-g DFS|Prim|Kruskal|RecursiveDivision] [-s skill[-skill]] [-r seed[-seed]] [-p] [-v] [-f xml|binary] [-o directory]
+ *
+ * With a seed range, mazes are generated in deterministic mode such that the same
+ * skill level and seed always give the same maze. Without it, a single randomized maze
+ * is generated per skill level.
+ *
+ * With -v, each maze is checked by the MazeValidator and an invalid maze counts as a failed order.
+ */
+public class MazeBatchGenerator {
+	private Builder builder = Builder.DFS ;
+	private int minSkill = 0 ;
+	private int maxSkill = 0 ;
+	private boolean perfect = false ;
+	private boolean deterministic = false ; // true if a seed range is given
+	private int minSeed = MazeBuilder.DEFAULT_SEED ;
+	private int maxSeed = MazeBuilder.DEFAULT_SEED ;
+	private boolean binary = false ;
+	private boolean validate = false ;
+	private File directory = new File(".") ;
+
+	/**
+	 * Result of a single order
+	 */
+	private static class Result {
+		final File file ;
+		final int cells ;
+
+		Result(File file, int cells) {
+			this.file = file ;
+			this.cells = cells ;
+		}
+	}
+
+	/**
+	 * Order that waits for its delivery, progress is not of interest.
+	 */
+	private static class BatchOrder implements Order {
+		private final int skill ;
+		private final Builder builder ;
+		private final boolean perfect ;
+		private MazeConfiguration mazeConfig ;
+
+		BatchOrder(int skill, Builder builder, boolean perfect) {
+			this.skill = skill ;
+			this.builder = builder ;
+			this.perfect = perfect ;
+		}
+		@Override
+		public int getSkillLevel() {
+			return skill ;
+		}
+		@Override
+		public Builder getBuilder() {
+			return builder ;
+		}
+		@Override
+		public boolean isPerfect() {
+			return perfect ;
+		}
+		@Override
+		public void deliver(MazeConfiguration mazeConfig) {
+			this.mazeConfig = mazeConfig ;
+		}
+		@Override
+		public void updateProgress(int percentage) {
+			// nobody is watching
+		}
+	}
+
+	/**
+	 * Generates all mazes and writes them to the output directory.
+	 * @return number of mazes that could not be generated or written
+	 * @throws InterruptedException if the calling thread is interrupted
+	 */
+	public int run() throws InterruptedException {
+		if (!directory.isDirectory() && !directory.mkdirs()) {
+			System.out.println("MazeBatchGenerator: can not create directory " + directory) ;
+			return 1 ;
+		}
+		final int threads = Runtime.getRuntime().availableProcessors() ;
+		ExecutorService executor = Executors.newFixedThreadPool(threads) ;
+		CompletionService<Result> results = new ExecutorCompletionService<Result>(executor) ;
+		int tasks = 0 ;
+		final long start = System.nanoTime() ;
+		for (int skill = minSkill ; skill <= maxSkill ; skill++) {
+			for (int seed = minSeed ; seed <= maxSeed ; seed++) {
+				results.submit(new Task(skill, seed)) ;
+				tasks++ ;
+			}
+		}
+		System.out.println("MazeBatchGenerator: " + tasks + " orders for " + builder + " on " + threads + " threads") ;
+		// report results in the order of completion
+		int failures = 0 ;
+		long cells = 0 ;
+		try {
+			for (int i = 0 ; i < tasks ; i++) {
+				try {
+					Result r = results.take().get() ;
+					cells += r.cells ;
+					System.out.println("MazeBatchGenerator: wrote " + r.file) ;
+				} catch (ExecutionException e) {
+					failures++ ;
+					System.out.println("MazeBatchGenerator: order failed: " + e.getCause()) ;
+				}
+			}
+		}
+		finally {
+			executor.shutdownNow() ;
+		}
+		final double seconds = (System.nanoTime() - start) / 1e9 ;
+		final int mazes = tasks - failures ;
+		System.out.println(String.format("MazeBatchGenerator: %d mazes, %d cells in %.2f s, %.2f mazes/s, %.0f cells/s",
+				mazes, cells, seconds, mazes / seconds, cells / seconds)) ;
+		return failures ;
+	}
+
+	/**
+	 * Generates and writes a single maze
+	 */
+	private class Task implements Callable<Result> {
+		private final int skill ;
+		private final int seed ;
+
+		Task(int skill, int seed) {
+			this.skill = skill ;
+			this.seed = seed ;
+		}
+
+		@Override
+		public Result call() throws IOException {
+			MazeFactory mazeFactory = new MazeFactory(deterministic) ;
+			mazeFactory.setSeed(seed) ;
+			Factory factory = mazeFactory ;
+			BatchOrder order = new BatchOrder(skill, builder, perfect) ;
+			if (!factory.order(order))
+				throw new IOException("order refused") ;
+			factory.waitTillDelivered() ;
+			MazeConfiguration mazeConfig = order.mazeConfig ;
+			if (null == mazeConfig)
+				throw new IOException("no maze delivered for skill level " + skill) ;
+			if (validate) {
+				List<String> problems = MazeValidator.validate(mazeConfig, perfect) ;
+				if (!problems.isEmpty())
+					throw new IOException("invalid maze for skill level " + skill + " and seed " + seed + ": " + problems) ;
+			}
+			File file = new File(directory, getFileName()) ;
+			if (binary)
+				writeBinary(file, mazeConfig) ;
+			else
+				MazeFileWriter.store(file.getPath(), mazeConfig.getWidth(), mazeConfig.getHeight(),
+						perfect ? 0 : Constants.SKILL_ROOMS[skill], Constants.SKILL_PARTCT[skill],
+						mazeConfig.getRootnode(), mazeConfig.getMazecells(), mazeConfig.getMazedists().getDists(),
+						mazeConfig.getStartingPosition()[0], mazeConfig.getStartingPosition()[1]) ;
+			return new Result(file, mazeConfig.getWidth() * mazeConfig.getHeight()) ;
+		}
+
+		private String getFileName() {
+			String name = builder + "-" + skill + "-" + (perfect ? "perfect" : "rooms") ;
+			if (deterministic)
+				name += "-" + seed ;
+			return name + (binary ? ".maze" : ".xml") ;
+		}
+	}
+
+	private static void writeBinary(File file, MazeConfiguration mazeConfig) throws IOException {
+		DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file))) ;
+		try {
+			MazeCache.write(out, mazeConfig) ;
+		}
+		finally {
+			out.close() ;
+		}
+	}
+
+	/**
+	 * Reads the command line options.
+	 * @return true if options are valid, false otherwise
+	 */
+	boolean parse(String[] args) {
+		try {
+			for (int i = 0 ; i < args.length ; i++) {
+				String arg = args[i] ;
+				if ("-p".equals(arg)) {
+					perfect = true ;
+					continue ;
+				}
+				if ("-v".equals(arg)) {
+					validate = true ;
+					continue ;
+				}
+				if (i+1 == args.length)
+					return false ;
+				String value = args[++i] ;
+				if ("-g".equals(arg)) {
+					builder = parseBuilder(value) ;
+					if (null == builder)
+						return false ;
+				}
+				else if ("-s".equals(arg)) {
+					int[] range = parseRange(value) ;
+					minSkill = range[0] ;
+					maxSkill = range[1] ;
+					if (minSkill < 0 || maxSkill >= Constants.SKILL_X.length)
+						return false ;
+				}
+				else if ("-r".equals(arg)) {
+					int[] range = parseRange(value) ;
+					minSeed = range[0] ;
+					maxSeed = range[1] ;
+					deterministic = true ;
+				}
+				else if ("-f".equals(arg)) {
+					if ("binary".equalsIgnoreCase(value))
+						binary = true ;
+					else if (!"xml".equalsIgnoreCase(value))
+						return false ;
+				}
+				else if ("-o".equals(arg))
+					directory = new File(value) ;
+				else
+					return false ;
+			}
+		} catch (NumberFormatException e) {
+			return false ;
+		}
+		return minSkill <= maxSkill && minSeed <= maxSeed ;
+	}
+
+	private static Builder parseBuilder(String value) {
+		for (Builder b : Builder.values()) {
+			if (b.name().equalsIgnoreCase(value))
+				return b ;
+		}
+		return null ;
+	}
+	/**
+	 * Parses a single number or a range of the form min-max
+	 */
+	private static int[] parseRange(String value) {
+		int dash = value.indexOf('-', 1) ;
+		if (dash < 0) {
+			int n = Integer.parseInt(value) ;
+			return new int[] {n, n} ;
+		}
+		return new int[] {Integer.parseInt(value.substring(0, dash)), Integer.parseInt(value.substring(dash+1))} ;
+	}
+
+	/**
+	 * Main method for the batch generator, see class comment for options
+	 * @param args command line options
+	 */
+	public static void main(String[] args) throws InterruptedException {
+		MazeBatchGenerator generator = new MazeBatchGenerator() ;
+		if (!generator.parse(args)) {
+			System.out.println("Usage: MazeBatchGenerator [-g DFS|Prim|Kruskal|RecursiveDivision] [-s skill[-skill]] [-r seed[-seed]] [-p] [-v] [-f xml|binary] [-o directory]") ;
+			System.exit(1) ;
+		}
+		System.exit(generator.run() > 0 ? 1 : 0) ;
+	}
+}
@@ -8,6 +8,8 @@ import generation.Factory;
 import generation.MazeConfiguration;
 import generation.MazeContainer;
 import generation.MazeFactory;
+import generation.MazeMetrics;
+import generation.MazePool;
 import generation.Order;
 import java.awt.*;
 import java.util.ArrayList;
@@ -22,10 +24,12 @@ import generation.MazeContainer;
 import generation.MazeFactory;
 import generation.Order;
 import generation.Order.Builder;
+import generation.ProgressiveOrder;
 
 import java.awt.*;
 import java.util.ArrayList;
 import java.util.Iterator;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 /**
  * Class handles the user interaction. 
@@ -37,7 +41,7 @@ import java.util.Iterator;
  * Paul Falstad granted permission to modify and use code for teaching purposes.
  * Refactored by Peter Kemper
  */
-public class MazeController implements Order {
+public class MazeController implements ProgressiveOrder {
 	// Follows a variant of the Model View Controller pattern (MVC).
 	// This class acts as the controller that gets user input and operates on the model.
 	// A MazeConfiguration acts as the model and this class has a reference to it.
@@ -47,15 +51,18 @@ public class MazeController implements Order {
 	// This is normally the task of the model in the MVC pattern.
 	
 	// views is the list of registered viewers that get notified
-	final private ArrayList<Viewer> views = new ArrayList<Viewer>() ; 
+	// the list is accessed by the render thread and the thread that delivers a maze
+	final private CopyOnWriteArrayList<Viewer> views = new CopyOnWriteArrayList<Viewer>() ; 
 	// all viewers share access to the same graphics object, the panel, to draw on
 	protected MazePanel panel ; 
 	protected BasicRobot robot;
 	protected RobotDriver driver;
+	// maze that is played while the builder still works on its BSP tree, null otherwise
+	private volatile MazeConfiguration playable ;
 		
 
 	// state keeps track of the current GUI state, one of STATE_TITLE,...,STATE_FINISH, mainly used in redraw()
-	protected StateGUI state;
+	protected volatile StateGUI state;
 	// possible values are defined in Constants
 	// user can navigate 
 	// title -> generating -(escape) -> title
@@ -95,6 +102,10 @@ public class MazeController implements Order {
 	// communication with the factory slightly more complicated.
 	// Check the factory interface for details.
 	protected Factory factory;
+	// prebuilt mazes for common skill levels such that an order can be served right away
+	protected MazePool pool = new MazePool();
+	// skill levels that are prebuilt while the user looks at the title screen
+	static final int[] POOL_SKILLS = { 0, 1, 2, 3 };
 	
 	// Filename if maze is loaded from file
 	protected String filename;
@@ -102,6 +113,20 @@ public class MazeController implements Order {
 	//private int zscale = Constants.VIEW_HEIGHT/2;
 	private RangeSet rset;
 	
+	// if true, the first person view is rasterized in software on multiple cores
+	// by the SoftwareFirstPersonDrawer instead of the FirstPersonDrawer
+	protected boolean softwareRendering = false;
+	
+	// records position and direction changes for a replay, null if not recording
+	protected ReplayRecorder recorder;
+	
+	// animates walk and rotate operations in the playing state on a thread of its own
+	private final RenderLoop renderLoop = new RenderLoop(this);
+	// the event, render, builder and robot threads all draw into the one buffer of the panel,
+	// the lock lets them draw one at a time and guards position, angle and walkStep
+	// such that a frame never shows a half updated view
+	private final Object viewLock = new Object();
+	
 	// debug stuff
 	private boolean deepdebug = false;
 	private boolean allVisible = false;
@@ -194,6 +219,23 @@ public class MazeController implements Order {
 		factory = new MazeFactory(); // no factory needed but to allow user to play another round 
 		this.filename = filename;
 	}
+	/**
+	 * Replaces the robot that the driver operates, e.g. with a simulated robot.
+	 * @param robot to use from the next delivery of a maze on
+	 * @precondition a driver is set
+	 */
+	public void setRobot(BasicRobot robot) {
+		assert null != driver : "MazeController.setRobot: robot needs a driver";
+		this.robot = robot;
+		this.driver.setRobot(robot);
+	}
+	/**
+	 * Starts or stops recording the run for a replay.
+	 * @param recorder to record with, null to stop recording
+	 */
+	public void setRecorder(ReplayRecorder recorder) {
+		this.recorder = recorder;
+	}
 	/**
 	 * Loads maze from file and returns a corresponding maze configuration.
 	 * @param filename
@@ -209,6 +251,13 @@ public class MazeController implements Order {
 	 * Method to initialize internal attributes. Called separately from the constructor. 
 	 */
 	public void init() {
+		// the accelerated buffer of the panel may lose its content, then viewers draw it again
+		panel.setRedrawer(new Runnable() {
+			@Override
+			public void run() {
+				notifyViewerRedraw() ;
+			}
+		}) ;
 		// special case: load maze from file
 		if (null != filename) {
 			state = StateGUI.STATE_GENERATING;
@@ -228,6 +277,14 @@ public class MazeController implements Order {
 		panel.initBufferImage() ;
 		addView(new MazeView(this)) ;
 		notifyViewerRedraw() ;
+		// start building mazes for the most common choices in the background
+		if (factory instanceof MazeFactory) {
+			// build times are available over JMX
+			((MazeFactory) factory).setMetricsListener(MazeMetrics.getInstance()) ;
+			((MazeFactory) factory).setPool(pool) ;
+			for (int skill : POOL_SKILLS)
+				pool.prefill(skill, builder, false) ;
+		}
 	}
 	
 	public MazeConfiguration getMazeConfiguration() {
@@ -282,15 +339,40 @@ public class MazeController implements Order {
 		state = StateGUI.STATE_PLAY;
 		cleanViews() ;
 		// register views for the new maze
-		// reset map_scale in mapdrawer to a value of 10
-		addView(new FirstPersonDrawer(Constants.VIEW_WIDTH,Constants.VIEW_HEIGHT, Constants.MAP_UNIT,
-				Constants.STEP_SIZE, seencells, mazeConfig.getRootnode())) ;
+		// the first person view needs the BSP tree, after a progressive delivery it comes later
+		if (null != mazeConfig.getRootnode())
+			addView(createFirstPersonDrawer()) ;
 		
 		// order of registration matters, code executed in order of appearance!
+		// reset map_scale in mapdrawer to a value of 10
 		addView(new MapDrawer(Constants.VIEW_WIDTH,Constants.VIEW_HEIGHT,Constants.MAP_UNIT,
 				Constants.STEP_SIZE, seencells, 10, this)) ;
 
 		notifyViewerRedraw() ;
+		// keyboard input is processed by the render thread from now on
+		renderLoop.start() ;
+	}
+	/**
+	 * Adds the first person view once the BSP tree of a progressive delivery is ready.
+	 * The user keeps playing in the meantime, so this happens unless the game is over.
+	 */
+	synchronized private void completePlayingScreen() {
+		playable = null ;
+		if (state != StateGUI.STATE_PLAY)
+			return ;
+		// the first person view goes first such that the map is drawn on top of it
+		views.add(0, createFirstPersonDrawer()) ;
+		notifyViewerRedraw() ;
+	}
+	/**
+	 * Gives the drawer for the first person view of the current maze
+	 */
+	private Viewer createFirstPersonDrawer() {
+		if (softwareRendering)
+			return new SoftwareFirstPersonDrawer(Constants.VIEW_WIDTH,Constants.VIEW_HEIGHT, Constants.MAP_UNIT,
+					Constants.STEP_SIZE, seencells, mazeConfig.getRootnode()) ;
+		return new FirstPersonDrawer(Constants.VIEW_WIDTH,Constants.VIEW_HEIGHT, Constants.MAP_UNIT,
+				Constants.STEP_SIZE, seencells, mazeConfig.getRootnode()) ;
 	}
 	/**
 	 * Switches to title screen, possibly canceling maze generation.
@@ -298,7 +380,10 @@ public class MazeController implements Order {
 	 */
 	private void switchToTitleScreen(boolean cancelOrder) {
 		System.out.println("switchToTitleScreen: param == " + cancelOrder) ;
-		if (cancelOrder) {
+		renderLoop.stop() ;
+		// a BSP tree that is still under construction is not needed anymore
+		if (cancelOrder || null != playable) {
+			playable = null ;
 			factory.cancel();
 		}
 		state = StateGUI.STATE_TITLE;
@@ -312,6 +397,7 @@ public class MazeController implements Order {
 	 */
 	private void switchToFinishScreen() {
 		assert state == StateGUI.STATE_PLAY : "MazeController.switchToFinishScreen: unexpected current state " + state ;
+		renderLoop.stop() ;
 		state = StateGUI.STATE_FINISH;
 		notifyViewerRedraw() ;
 	}
@@ -329,17 +415,16 @@ public class MazeController implements Order {
 		views.remove(view) ;
 	}
 	/**
-	 * Remove obsolete FirstPersonDrawer and MapDrawer
+	 * Remove obsolete first person drawers and MapDrawer
 	 */
 	private void cleanViews() {
 		// go through views and remove viewers as needed
-		Iterator<Viewer> it = views.iterator() ;
-		while (it.hasNext())
+		// the copy on write list iterates over a snapshot, so removal is safe
+		for (Viewer v : views)
 		{
-			Viewer v = it.next() ;
-			if ((v instanceof FirstPersonDrawer)||(v instanceof MapDrawer))
+			if ((v instanceof FirstPersonDrawer)||(v instanceof SoftwareFirstPersonDrawer)||(v instanceof MapDrawer))
 			{
-				it.remove() ;
+				views.remove(v) ;
 			}
 		}
 
@@ -348,22 +433,43 @@ public class MazeController implements Order {
 	 * Notify all registered viewers to redraw their graphics
 	 */
 	protected void notifyViewerRedraw() {
-		// go through views and notify each one
-		Iterator<Viewer> it = views.iterator() ;
-		while (it.hasNext())
-		{
-			Viewer v = it.next() ;
-			Graphics g = panel.getBufferGraphics() ;
-			// viewers draw on the buffer graphics
-			if (null == g) {
-				System.out.println("Maze.notifierViewerRedraw: can't get graphics object to draw on, skipping redraw operation") ;
+		// viewers repaint the whole image, the first person view and the map cover all of it
+		// in each frame, so the whole image goes to screen
+		panel.markAllDirty() ;
+		redrawViewers() ;
+	}
+	/**
+	 * Notify all registered viewers to redraw their graphics
+	 * but only bring the progress information of the generating screen
+	 * to the screen as nothing else changes between progress updates.
+	 */
+	private void notifyViewerRedrawProgress() {
+		panel.markDirty(0, MazeView.PROGRESS_Y, Constants.VIEW_WIDTH, MazeView.PROGRESS_HEIGHT) ;
+		redrawViewers() ;
+	}
+	/**
+	 * Lets all registered viewers draw on the buffer graphics
+	 * and copies the dirty part of the buffer to the screen.
+	 */
+	private void redrawViewers() {
+		synchronized (viewLock) {
+			// go through views and notify each one
+			Iterator<Viewer> it = views.iterator() ;
+			while (it.hasNext())
+			{
+				Viewer v = it.next() ;
+				Graphics g = panel.getBufferGraphics() ;
+				// viewers draw on the buffer graphics
+				if (null == g) {
+					System.out.println("Maze.notifierViewerRedraw: can't get graphics object to draw on, skipping redraw operation") ;
+				}
+				else {
+				 v.redraw(g, state, px, py, viewdx, viewdy, walkStep, Constants.VIEW_OFFSET, rset, angle) ;
+				}	
 			}
-			else {
-			 v.redraw(g, state, px, py, viewdx, viewdy, walkStep, Constants.VIEW_OFFSET, rset, angle) ;
-			}	
+			// update the screen with the buffer graphics
+			panel.update() ;
 		}
-		// update the screen with the buffer graphics
-		panel.update() ;
 	}
 	/** 
 	 * Notify all registered viewers to increment the map scale
@@ -413,18 +519,28 @@ public class MazeController implements Order {
 	////////////////////////////// Actions that can be performed on the maze model ///////////////////////////
 	protected void setCurrentPosition(int x, int y)
 	{
-		px = x ;
-		py = y ;
+		synchronized (viewLock) {
+			px = x ;
+			py = y ;
+		}
+		if (null != recorder)
+			recorder.position(x, y);
 	}
 	private void setCurrentDirection(int x, int y)
 	{
-		dx = x ;
-		dy = y ;
+		synchronized (viewLock) {
+			dx = x ;
+			dy = y ;
+		}
+		if (null != recorder)
+			recorder.direction(CardinalDirection.East.getDirection(x, y).ordinal());
 	}
 	protected int[] getCurrentPosition() {
 		int[] result = new int[2];
-		result[0] = px;
-		result[1] = py;
+		synchronized (viewLock) {
+			result[0] = px;
+			result[1] = py;
+		}
 		return result;
 	}
 	protected CardinalDirection getCurrentDirection() {
@@ -453,7 +569,7 @@ public class MazeController implements Order {
 	 * @param dir
 	 * @return true if there is no wall in this direction
 	 */
-	private boolean checkMove(int dir) {
+	boolean checkMove(int dir) {
 		// obtain appropriate index for direction (CW_BOT, CW_TOP ...) 
 		// for given direction parameter
 		int a = angle/90;
@@ -465,60 +581,79 @@ public class MazeController implements Order {
 		return cells.hasMaskedBitsFalse(px, py, Constants.MASKS[a]) ;
 	}
 	/**
-	 * Redraw and wait, used to obtain a smooth appearance for rotate and move operations
+	 * Gives the current viewing angle, used by the render loop to interpolate a rotation
+	 * @return angle in degrees, east == 0
 	 */
-	private void slowedDownRedraw() {
-		notifyViewerRedraw() ;
-		try {
-			Thread.currentThread().sleep(25);
-		} catch (Exception e) { }
+	int getAngle() {
+		return angle ;
 	}
 	/**
-	 * Intermediate step during rotation, updates the screen
+	 * Sets the viewing angle and the matching view direction. 
+	 * Used for intermediate views during a rotation.
+	 * @param newAngle in degrees, need not be normalized
 	 */
-	private void rotateStep() {
-		angle = (angle+1800) % 360;
-		viewdx = (int) (Math.cos(radify(angle))*(1<<16));
-		viewdy = (int) (Math.sin(radify(angle))*(1<<16));
-		slowedDownRedraw();
+	void setAngle(int newAngle) {
+		synchronized (viewLock) {
+			angle = (newAngle+1800) % 360;
+			viewdx = (int) (Math.cos(radify(angle))*(1<<16));
+			viewdy = (int) (Math.sin(radify(angle))*(1<<16));
+		}
 	}
 	/**
-	 * Performs a rotation with 4 intermediate views, 
-	 * updates the screen and the internal direction
-	 * @param dir for current direction
+	 * Sets the counter for intermediate steps within a single step forward or backward.
+	 * Used for intermediate views during a walk.
+	 * @param step in range [-4,4]
 	 */
-	synchronized private void rotate(int dir) {
-		final int originalAngle = angle;
-		final int steps = 4;
-
-		for (int i = 0; i != steps; i++) {
-			// add 1/4 of 90 degrees per step 
-			// if dir is -1 then subtract instead of addition
-			angle = originalAngle + dir*(90*(i+1))/steps; 
-			rotateStep();
+	void setWalkStep(int step) {
+		synchronized (viewLock) {
+			walkStep = step ;
 		}
+	}
+	/**
+	 * Completes a rotation, updates the internal direction to match the current angle
+	 */
+	void finishRotate() {
 		setCurrentDirection((int) Math.cos(radify(angle)), (int) Math.sin(radify(angle))) ;
 		logPosition();
 	}
 	/**
-	 * Moves in the given direction with 4 intermediate steps,
-	 * updates the screen and the internal position
+	 * Completes a walk, updates the internal position 
+	 * and switches to the finish screen if the walk went through the exit.
+	 * @param dir is 1 for forward, -1 for backward
+	 */
+	void finishWalk(int dir) {
+		synchronized (viewLock) {
+			setCurrentPosition(px + dir*dx, py + dir*dy) ;
+			walkStep = 0;
+		}
+		logPosition();
+		if (isOutside(px,py)) {
+			switchToFinishScreen();
+		}
+	}
+	/**
+	 * Performs a rotation without intermediate views, 
+	 * updates the screen and the internal direction.
+	 * The animated version is operated by the render loop.
+	 * @param dir for current direction
+	 */
+	synchronized private void rotate(int dir) {
+		setAngle(angle + dir*90) ;
+		finishRotate() ;
+		notifyViewerRedraw() ;
+	}
+	/**
+	 * Moves in the given direction without intermediate steps,
+	 * updates the screen and the internal position.
+	 * The animated version is operated by the render loop.
 	 * @param dir
 	 */
 	synchronized private void walk(int dir) {
 		if (!checkMove(dir))
 			return;
-		// walkStep is a parameter of the redraw method in FirstPersonDrawer
-		// it is used there for scaling steps
-		// so walkStep is implicitly used in slowedDownRedraw which triggers the redraw
-		// operation on all listed viewers
-		for (int step = 0; step != 4; step++) {
-			walkStep += dir;
-			slowedDownRedraw();
-		}
-		setCurrentPosition(px + dir*dx, py + dir*dy) ;
-		walkStep = 0;
-		logPosition();
+		finishWalk(dir) ;
+		if (state == StateGUI.STATE_PLAY)
+			notifyViewerRedraw() ;
 	}
 
 	/**
@@ -559,71 +694,11 @@ public class MazeController implements Order {
 			// react to input to display solution (on/off toggle switch)
 			// react to input to increase/reduce map scale
 		case STATE_PLAY:
-			switch (key) {
-			case Event.UP: case 'k': case '8':
-				// move forward
-				walk(1);
-				if (isOutside(px,py)) {
-					switchToFinishScreen();
-				}
-				break;
-			case Event.LEFT: case 'h': case '4':
-				// turn left
-				rotate(1);
-				break;
-			case Event.RIGHT: case 'l': case '6':
-				// turn right
-				rotate(-1);
-				break;
-			case Event.DOWN: case 'j': case '2':
-				// move backward
-				walk(-1);
-				if (isOutside(px,py)) {
-					switchToFinishScreen();
-				}
-				break;
-			case Constants.ESCAPE: case 65385:
-				// escape to title screen
-				switchToTitleScreen(false);
-				break;
-			case ('w' & 0x1f): 
-				// Ctrl-w makes a step forward even through a wall
-				// go to position if within maze
-				if (mazeConfig.isValidPosition(px + dx, py + dy)) {
-					setCurrentPosition(px + dx, py + dy) ;
-					notifyViewerRedraw() ;
-				}
-				break;
-			case '\t': case 'm':
-				// show local information: current position and visible walls
-				// precondition for showMaze and showSolution to be effective
-				// acts as a toggle switch
-				mapMode = !mapMode; 		
-				notifyViewerRedraw() ; 
-				break;
-			case 'z':
-				// show the whole maze
-				// acts as a toggle switch
-				showMaze = !showMaze; 		
-				notifyViewerRedraw() ; 
-				break;
-			case 's':
-				// show the solution as a yellow line towards the exit
-				// acts as a toggle switch
-				showSolution = !showSolution; 		
-				notifyViewerRedraw() ;
-				break;
-			case '+': case '=':
-				// zoom into map
-				notifyViewerIncrementMapScale() ;
-				notifyViewerRedraw() ; // seems useless but it is necessary to make the screen update
-				break ;
-			case '-':
-				// zoom out of map
-				notifyViewerDecrementMapScale() ;
-				notifyViewerRedraw() ; // seems useless but it is necessary to make the screen update
-				break ;
-			} // end of internal switch statement for playing state
+			// the render thread animates moves, input must not block the key handler
+			if (renderLoop.isRunning())
+				renderLoop.submit(key) ;
+			else
+				keyDownPlaying(key) ;
 			break ;
 		// if we are finished, return to initial state with title screen	
 		case STATE_FINISH:
@@ -634,6 +709,100 @@ public class MazeController implements Order {
 	}
 
 
+	/**
+	 * Reacts to keyboard input in the playing state.
+	 * Called by the render loop for keys that need no animation and 
+	 * directly from keyDown if the render loop is not operational.
+	 * @param key is user input
+	 */
+	void keyDownPlaying(int key) {
+		Motion motion = getMotion(key) ;
+		if (null != motion) {
+			if (motion.isWalk)
+				walk(motion.dir);
+			else
+				rotate(motion.dir);
+			return ;
+		}
+		switch (key) {
+		case Constants.ESCAPE: case 65385:
+			// escape to title screen
+			switchToTitleScreen(false);
+			break;
+		case ('w' & 0x1f): 
+			// Ctrl-w makes a step forward even through a wall
+			// go to position if within maze
+			if (mazeConfig.isValidPosition(px + dx, py + dy)) {
+				setCurrentPosition(px + dx, py + dy) ;
+				notifyViewerRedraw() ;
+			}
+			break;
+		case '\t': case 'm':
+			// show local information: current position and visible walls
+			// precondition for showMaze and showSolution to be effective
+			// acts as a toggle switch
+			mapMode = !mapMode; 		
+			notifyViewerRedraw() ; 
+			break;
+		case 'z':
+			// show the whole maze
+			// acts as a toggle switch
+			showMaze = !showMaze; 		
+			notifyViewerRedraw() ; 
+			break;
+		case 's':
+			// show the solution as a yellow line towards the exit
+			// acts as a toggle switch
+			showSolution = !showSolution; 		
+			notifyViewerRedraw() ;
+			break;
+		case '+': case '=':
+			// zoom into map
+			notifyViewerIncrementMapScale() ;
+			notifyViewerRedraw() ; // seems useless but it is necessary to make the screen update
+			break ;
+		case '-':
+			// zoom out of map
+			notifyViewerDecrementMapScale() ;
+			notifyViewerRedraw() ; // seems useless but it is necessary to make the screen update
+			break ;
+		} // end of switch statement for playing state
+	}
+
+	/**
+	 * Walks and rotations that keys stand for in the playing state.
+	 * dir is 1 for forward and for a turn to the left, -1 for backward and for a turn to the right.
+	 */
+	enum Motion {
+		FORWARD(true, 1), BACKWARD(true, -1), LEFT(false, 1), RIGHT(false, -1) ;
+		final boolean isWalk ;
+		final int dir ;
+		Motion(boolean isWalk, int dir) {
+			this.isWalk = isWalk ;
+			this.dir = dir ;
+		}
+	}
+	/**
+	 * Tells which walk or rotation a key stands for.
+	 * Shared by keyDownPlaying and the render loop which animates the motion.
+	 * @param key is user input
+	 * @return the motion, null if the key is not about moving
+	 */
+	static Motion getMotion(int key) {
+		switch (key) {
+		case Event.UP: case 'k': case '8':
+			return Motion.FORWARD ;
+		case Event.DOWN: case 'j': case '2':
+			return Motion.BACKWARD ;
+		case Event.LEFT: case 'h': case '4':
+			return Motion.LEFT ;
+		case Event.RIGHT: case 'l': case '6':
+			return Motion.RIGHT ;
+		default:
+			return null ;
+		}
+	}
+
 	////////// set methods for fields ////////////////////////////////
 	protected void setSkillLevel(int skill) {
 		this.skill = skill ;
@@ -646,6 +815,13 @@ public class MazeController implements Order {
 	protected void setPerfect(boolean perfect) {
 		this.perfect = perfect ;
 	}
+	/**
+	 * Selects the drawer for the first person view, takes effect with the next game.
+	 * @param softwareRendering true for the SoftwareFirstPersonDrawer, false for the FirstPersonDrawer
+	 */
+	protected void setSoftwareRendering(boolean softwareRendering) {
+		this.softwareRendering = softwareRendering ;
+	}
 	///////////////// methods to implement Order interface //////////////
 	@Override
 	public int getSkillLevel() {
@@ -659,8 +835,40 @@ public class MazeController implements Order {
 	public boolean isPerfect() {
 		return perfect;
 	}
+	/**
+	 * Starts the game in map mode with the whole maze shown as there is no first person view
+	 * without the BSP tree. A robot driver starts as well, on a thread of its own
+	 * such that the builder can go on with the BSP tree.
+	 */
+	@Override
+	public void deliverPlayable(MazeConfiguration mazeConfig) {
+		if (state != StateGUI.STATE_GENERATING)
+			return ; // user left the generating screen
+		this.mazeConfig = mazeConfig ;
+		playable = mazeConfig ;
+		prepareGame() ;
+		mapMode = true ;
+		showMaze = true ;
+		switchToPlayingScreen();
+		if (driver != null && robot != null) {
+			Thread t = new Thread(new Runnable() {
+				@Override
+				public void run() {
+					drive() ;
+				}
+			}, "RobotDriver") ;
+			t.setDaemon(true) ;
+			t.start() ;
+		}
+	}
 	@Override
 	public void deliver(MazeConfiguration mazeConfig) {
+		// the second stage of a progressive delivery adds the BSP tree to the maze in play
+		final boolean inPlay = (mazeConfig == playable) ;
+		if (!inPlay && state != StateGUI.STATE_GENERATING) {
+			dbg("deliver: not waiting for a maze, ignoring it") ;
+			return ;
+		}
 		this.mazeConfig = mazeConfig ;
 		
 		// WARNING: DO NOT REMOVE, USED FOR GRADING PROJECT ASSIGNMENT
@@ -671,6 +879,21 @@ public class MazeController implements Order {
 		}
 		////////
 		
+		if (inPlay) {
+			completePlayingScreen() ;
+			return ;
+		}
+		prepareGame() ;
+		
+		// update screens for playing state
+		switchToPlayingScreen();
+		
+		drive() ;
+	}
+	/**
+	 * Sets up the internal state for a new game with the current maze
+	 */
+	private void prepareGame() {
 		// adjust internal state of maze model
 		// visibility settings
 		showMaze = false ;
@@ -687,10 +910,11 @@ public class MazeController implements Order {
 		viewdy = dy<<16;
 		angle = 0; // angle matches with east direction, hidden consistency constraint!
 		walkStep = 0; // counts incremental steps during move/rotate operation
-		
-		// update screens for playing state
-		switchToPlayingScreen();
-		
+	}
+	/**
+	 * Lets the robot driver find the exit if there is one
+	 */
+	private void drive() {
 		// Got this from Kemper, set the fields in the driver and robot before trying to drive2exit()
 		if (driver != null && robot != null) {
 			driver.setDimensions(this.mazeConfig.getWidth(), this.mazeConfig.getHeight());
@@ -719,7 +943,7 @@ public class MazeController implements Order {
 			percentdone = percentage;
 			if (state == StateGUI.STATE_GENERATING)
 			{
-				notifyViewerRedraw() ;
+				notifyViewerRedrawProgress() ;
 			}
 			else
 				dbg("Warning: Receiving update request for increasePercentage while not in generating state, skip redraw.") ;
@@ -10,9 +10,9 @@ import generation.Cells;
 import generation.Distance;
 import generation.MazeConfiguration;
 import generation.MazeContainer;
+import generation.MazeHash;
 import generation.Seg;
 
-import java.awt.Color;
 import java.io.File;
 import java.util.ArrayList;
 
@@ -213,7 +213,7 @@ public class MazeFileReader {
 		Seg result = new Seg(x,y,dx,dy,dist,cc) ;
 		// get a few more attributes and set those explicitly
 		int col = getElementIntValue("colSeg_" + number+ "_" + i, eElement);
-		result.setColor(new Color(col)); 
+		result.setRGB(col); 
 		result.setSeen(getElementBooleanValue("seenSeg_" + number+ "_" + i, eElement));
 		result.setPartition(getElementBooleanValue("partitionSeg_" + number+ "_" + i, eElement));
 		return result;
@@ -299,7 +299,9 @@ public class MazeFileReader {
 	// TODO: change these into equals and compare methods for the corresponding Maze and BSPNode classes
 	// TODO: create junit test class that is a subclass of MazeFileReader that takes this code and performs unit tests
 	/**
-	 * compares given data with maze data read from file
+	 * compares given data with maze data read from file.
+	 * Content hashes are compared first, the detailed comparison
+	 * that reports each mismatch only runs if they differ.
 	 * @param mazew
 	 * @param mazeh
 	 * @param rooms2
@@ -325,6 +327,9 @@ public class MazeFileReader {
 			System.out.println("MazeFileReader.compare: start x mismatch");
 		if (py != this.starty)
 			System.out.println("MazeFileReader.compare: start y mismatch");
+		if (MazeHash.hash(mazew, mazeh, new int[] {px, py}, mazecells, mazedists, root2) 
+				== MazeHash.hash(width, height, new int[] {startx, starty}, cells, dists, root))
+			return ;
 		compareCells(mazecells) ;
 		compareDistances(mazedists) ;
 		System.out.println("Start comparing BSP nodes") ;
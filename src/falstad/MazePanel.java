@@ -1,13 +1,27 @@
 package falstad;
 
 import java.awt.Graphics;
+import java.awt.GraphicsConfiguration;
 import java.awt.Image;
 import java.awt.Panel;
+import java.awt.Rectangle;
+import java.awt.image.VolatileImage;
 
 /**
  * Add functionality for double buffering to an AWT Panel class.
  * Used for drawing a maze.
- * 
+ *
+ * The buffer is a VolatileImage if the platform supports it such that
+ * drawing and presentation can be hardware accelerated.
+ * A plain image is used as a fallback.
+ * The panel keeps track of a dirty region, i.e. the part of the buffer
+ * that changed since the last presentation, and only copies that part to the screen.
+ * During play the viewers draw the whole view for each frame, so the dirty region
+ * is the whole image, only progress updates on the generating screen present less.
+ *
+ * An accelerated buffer can lose its content at any time, e.g. if the display mode changes.
+ * The panel then asks its redrawer to let the viewers draw the buffer again.
+ *
  * @author pk
  *
  */
@@ -17,6 +31,11 @@ public class MazePanel extends Panel  {
 	 * for details
 	 */
 	private Image bufferImage ;
+	private VolatileImage volatileImage ; // same object as bufferImage if acceleration is available, null otherwise
+	// region of the buffer image that has changed and is not on screen yet, empty if nothing to do
+	private final Rectangle dirty = new Rectangle() ;
+	// draws the content of the buffer image again after it was lost, null if nobody can
+	private Runnable redrawer ;
 	/**
 	 * Constructor. Object is not focusable.
 	 */
@@ -24,46 +43,106 @@ public class MazePanel extends Panel  {
 		super() ;
 		this.setFocusable(false) ;
 	}
-	
+
 	@Override
 	public void update(Graphics g) {
 		paint(g) ;
 	}
+	/**
+	 * Copies the dirty region of the buffer image to the screen.
+	 * Nothing happens if no region has been marked as dirty.
+	 */
 	public void update() {
-		paint(getGraphics()) ;
+		final Rectangle r ;
+		synchronized (dirty) {
+			if (dirty.isEmpty())
+				return ;
+			r = new Rectangle(dirty) ;
+			dirty.setSize(0, 0) ;
+		}
+		Graphics g = getGraphics() ;
+		if (null == g || null == bufferImage) {
+			paint(g) ; // paint is able to report the problem
+			return ;
+		}
+		g.drawImage(bufferImage, r.x, r.y, r.x+r.width, r.y+r.height, r.x, r.y, r.x+r.width, r.y+r.height, null) ;
+		g.dispose() ;
 	}
-	
+
 
 	/**
 	 * Draws the buffer image to the given graphics object.
 	 * This method is called when this panel should redraw itself.
+	 * An accelerated buffer that lost its content is drawn again by the redrawer first
+	 * and presented again till its content makes it to the screen in one piece.
 	 */
 	@Override
 	public void paint(Graphics g) {
 		if (null == g) {
 			System.out.println("MazePanel.paint: no graphics object, skipping drawImage operation") ;
+			return ;
 		}
-		else {
-			g.drawImage(bufferImage,0,0,null) ;	
+		if (null == volatileImage) {
+			g.drawImage(bufferImage,0,0,null) ;
+			return ;
 		}
+		do {
+			if (validateVolatileImage() && null != redrawer)
+				redrawer.run() ;
+			g.drawImage(volatileImage,0,0,null) ;
+		} while (volatileImage.contentsLost()) ;
 	}
 
-	
+	/**
+	 * Sets the operation that draws the buffer image again if its content was lost.
+	 * @param redrawer lets all viewers draw on the buffer
+	 */
+	public void setRedrawer(Runnable redrawer) {
+		this.redrawer = redrawer ;
+	}
+
+
 	public void initBufferImage() {
-		bufferImage = createImage(Constants.VIEW_WIDTH, Constants.VIEW_HEIGHT);
+		// try an accelerated buffer first, it may be lost at any time and needs validation before drawing
+		volatileImage = createVolatileImage(Constants.VIEW_WIDTH, Constants.VIEW_HEIGHT);
+		bufferImage = (null != volatileImage) ? volatileImage : createImage(Constants.VIEW_WIDTH, Constants.VIEW_HEIGHT);
 		if (null == bufferImage)
 		{
 			System.out.println("Error: creation of buffered image failed, presumedly container not displayable");
 		}
+		markAllDirty() ;
 	}
-	
+
 	/**
-	 * Obtains a graphics object that can be used for drawing. 
-	 * Multiple calls to the method will return the same graphics object 
-	 * such that drawing operations can be performed in a piecemeal manner 
+	 * Marks the given rectangle of the buffer image as changed such that
+	 * the next call to update copies it to the screen.
+	 * @param x coordinate of upper left corner
+	 * @param y coordinate of upper left corner
+	 * @param width of the region
+	 * @param height of the region
+	 */
+	public void markDirty(int x, int y, int width, int height) {
+		synchronized (dirty) {
+			if (dirty.isEmpty())
+				dirty.setBounds(x, y, width, height) ;
+			else
+				dirty.add(new Rectangle(x, y, width, height)) ;
+		}
+	}
+	/**
+	 * Marks the whole buffer image as changed.
+	 */
+	public void markAllDirty() {
+		markDirty(0, 0, Constants.VIEW_WIDTH, Constants.VIEW_HEIGHT) ;
+	}
+
+	/**
+	 * Obtains a graphics object that can be used for drawing.
+	 * Multiple calls to the method will return the same graphics object
+	 * such that drawing operations can be performed in a piecemeal manner
 	 * and accumulate. To make the drawing visible on screen, one
-	 * needs to trigger a call of the paint method, which happens 
-	 * when calling the update method. 
+	 * needs to trigger a call of the paint method, which happens
+	 * when calling the update method.
 	 * @return graphics object to draw on
 	 */
 	public Graphics getBufferGraphics() {
@@ -71,7 +150,34 @@ public class MazePanel extends Panel  {
 			initBufferImage() ;
 		if (null == bufferImage)
 			return null ;
+		if (null != volatileImage)
+			validateVolatileImage() ;
 		return bufferImage.getGraphics() ;
 	}
+	/**
+	 * Makes sure the accelerated buffer is usable.
+	 * If its content was lost, the whole buffer needs to be presented again
+	 * after viewers have redrawn it.
+	 * @return true if the content of the buffer was lost, false if it is intact
+	 */
+	private boolean validateVolatileImage() {
+		GraphicsConfiguration gc = getGraphicsConfiguration() ;
+		if (null == gc)
+			return false ;
+		// paint validates on the event thread, drawing threads in getBufferGraphics
+		synchronized (dirty) {
+			switch (volatileImage.validate(gc)) {
+			case VolatileImage.IMAGE_INCOMPATIBLE:
+				// e.g. window moved to a different screen, need a new image
+				initBufferImage() ;
+				return true ;
+			case VolatileImage.IMAGE_RESTORED:
+				markAllDirty() ;
+				return true ;
+			default:
+				return false ;
+			}
+		}
+	}
 
 }
@@ -38,7 +38,11 @@ public class MazeView extends DefaultViewer {
 			redrawGenerating(gc);
 			break;
 		case STATE_PLAY:
-			// skip this one
+			// the first person view covers the screen, till its BSP tree arrives the map is shown on black
+			if (null == controller.getMazeConfiguration().getRootnode()) {
+				gc.setColor(Color.black);
+				gc.fillRect(0, 0, Constants.VIEW_WIDTH, Constants.VIEW_HEIGHT);
+			}
 			break;
 		case STATE_FINISH:
 			redrawFinish(gc);
@@ -145,6 +149,13 @@ public class MazeView extends DefaultViewer {
 		g.drawString(str, (Constants.VIEW_WIDTH-fm.stringWidth(str))/2, ypos);
 	}
 
+	/**
+	 * Part of the generating screen that changes with the progress percentage.
+	 * The text is drawn with the small banner font at baseline y = 200.
+	 */
+	static final int PROGRESS_Y = 180 ;
+	static final int PROGRESS_HEIGHT = 30 ;
+
 	final Font largeBannerFont = new Font("TimesRoman", Font.BOLD, 48);
 	final Font smallBannerFont = new Font("TimesRoman", Font.BOLD, 16);
 
@@ -0,0 +1,241 @@
+package falstad;
+
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * This class operates the animation of the first person view on a thread of its own.
+ * Keyboard input during the playing state is not processed on the thread that delivers
+ * the key events any more. Instead keys are put into a lock-free input queue and the
+ * render thread takes them out one at a time. Walk and rotate operations are animated
+ * by interpolating walkStep and angle between the current and the next logical state
+ * of the MazeController with a fixed frame budget.
+ *
+ * Repeated moves are coalesced: if a user holds down a key to walk or rotate, at most
+ * MAX_PENDING copies of the same move are kept in the queue such that the animation
+ * does not lag behind the keyboard. Other keys, e.g. the toggle switches, are never dropped.
+ *
+ * Collaborators: MazeController provides the mapping of keys to moves and rotations,
+ * the operations to start and finish them and the notification of all viewers.
+ * Viewers draw under a lock of the MazeController as other threads draw as well.
+ */
+public class RenderLoop implements Runnable {
+	// frame budget, one frame every 16 milliseconds gives about 60 frames per second
+	static final long FRAME_NANOS = 16000000L ;
+	// duration of a single walk or rotate animation, matches the former 4 x 25 ms sleeps
+	static final long ANIMATION_NANOS = 100000000L ;
+	// maximum number of identical moves that are kept in the input queue
+	static final int MAX_PENDING = 2 ;
+
+	// possible animations that are in progress
+	private enum Animation { NONE, WALK, ROTATE } ;
+
+	private final MazeController controller ;
+	// input queue is filled by the key handler and drained by the render thread
+	private final ConcurrentLinkedQueue<Integer> input = new ConcurrentLinkedQueue<Integer>() ;
+	// number of queued keys for each move, indexed by the ordinal of the motion, used for coalescing
+	private final AtomicIntegerArray pending = new AtomicIntegerArray(MazeController.Motion.values().length) ;
+
+	private volatile boolean running ;
+	private volatile Thread thread ;
+
+	// state of the current animation, only accessed by the render thread
+	private Animation animation = Animation.NONE ;
+	private int animationDir ;		// +1 or -1
+	private int originalAngle ;		// angle at start of a rotation
+	private long animationStart ;	// time stamp in nanoseconds when the current animation started
+
+	/**
+	 * Constructor
+	 * @param controller is the maze controller whose viewers are animated
+	 */
+	public RenderLoop(MazeController controller) {
+		this.controller = controller ;
+	}
+
+	/**
+	 * Starts the render thread if it is not running yet.
+	 */
+	public synchronized void start() {
+		if (running)
+			return ;
+		clearInput() ;
+		animation = Animation.NONE ;
+		running = true ;
+		thread = new Thread(this, "RenderLoop") ;
+		thread.setDaemon(true) ;
+		thread.start() ;
+	}
+
+	/**
+	 * Stops the render thread. Pending input is discarded.
+	 * If called from a different thread, the method waits for the render thread to terminate.
+	 */
+	public void stop() {
+		Thread t ;
+		synchronized (this) {
+			running = false ;
+			t = thread ;
+			thread = null ;
+		}
+		clearInput() ;
+		if (null == t || t == Thread.currentThread())
+			return ;
+		LockSupport.unpark(t) ;
+		try {
+			t.join() ;
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt() ;
+		}
+	}
+
+	/**
+	 * Tells if the render thread is operational
+	 * @return true if running, false otherwise
+	 */
+	public boolean isRunning() {
+		return running ;
+	}
+
+	/**
+	 * Puts a key into the input queue. The method never blocks.
+	 * Repeated moves are coalesced such that at most MAX_PENDING copies are queued.
+	 * @param key as communicated to MazeController.keyDown
+	 */
+	public void submit(int key) {
+		if (!running)
+			return ;
+		if (enqueue(key))
+			LockSupport.unpark(thread) ;
+	}
+
+	/**
+	 * Puts a key into the input queue unless it is a move that is queued MAX_PENDING times already.
+	 * Keys that do not move, e.g. toggle switches, are always queued.
+	 * @param key as communicated to MazeController.keyDown
+	 * @return true if the key is queued, false if it is coalesced
+	 */
+	boolean enqueue(int key) {
+		final MazeController.Motion motion = MazeController.getMotion(key) ;
+		if (null != motion) {
+			if (pending.get(motion.ordinal()) >= MAX_PENDING)
+				return false ; // coalesce: user holds down a key faster than we can animate
+			pending.incrementAndGet(motion.ordinal()) ;
+		}
+		input.offer(key) ;
+		return true ;
+	}
+
+	/**
+	 * Gives the keys in the input queue in the order in which they are taken out
+	 * @return array of keys, empty if nothing is queued
+	 */
+	Integer[] getQueuedKeys() {
+		return input.toArray(new Integer[0]) ;
+	}
+
+	/**
+	 * Discards all queued keys
+	 */
+	private void clearInput() {
+		input.clear() ;
+		for (int i = 0 ; i < pending.length() ; i++)
+			pending.set(i, 0) ;
+	}
+
+	/**
+	 * Main loop of the render thread. Each iteration is one frame.
+	 */
+	@Override
+	public void run() {
+		while (running) {
+			final long frameStart = System.nanoTime() ;
+			if (Animation.NONE == animation) {
+				Integer key = input.poll() ;
+				if (null != key) {
+					final MazeController.Motion motion = MazeController.getMotion(key) ;
+					if (null != motion)
+						pending.decrementAndGet(motion.ordinal()) ;
+					startAnimation(key, frameStart) ;
+				}
+			}
+			if (Animation.NONE != animation) {
+				advanceAnimation(frameStart) ;
+			}
+			// sleep for the remainder of the frame, an idle loop waits till the next key arrives
+			if (Animation.NONE == animation && input.isEmpty())
+				LockSupport.parkNanos(this, FRAME_NANOS) ;
+			else {
+				long remaining = FRAME_NANOS - (System.nanoTime() - frameStart) ;
+				if (remaining > 0)
+					LockSupport.parkNanos(this, remaining) ;
+			}
+		}
+	}
+
+	/**
+	 * Translates a key into an animation or passes it on to the controller
+	 * if it does not require an animation.
+	 * @param key
+	 * @param now is the current time stamp
+	 */
+	private void startAnimation(int key, long now) {
+		final MazeController.Motion motion = MazeController.getMotion(key) ;
+		if (null == motion) {
+			// toggle switches and the like are performed immediately
+			controller.keyDownPlaying(key) ;
+		}
+		else if (motion.isWalk)
+			startWalk(motion.dir, now) ;
+		else
+			startRotation(motion.dir, now) ;
+	}
+
+	private void startWalk(int dir, long now) {
+		if (!controller.checkMove(dir))
+			return ; // wall ahead, nothing to animate
+		animation = Animation.WALK ;
+		animationDir = dir ;
+		animationStart = now ;
+	}
+
+	private void startRotation(int dir, long now) {
+		animation = Animation.ROTATE ;
+		animationDir = dir ;
+		originalAngle = controller.getAngle() ;
+		animationStart = now ;
+	}
+
+	/**
+	 * Interpolates walkStep or angle for the current frame,
+	 * redraws and completes the animation when its time is up.
+	 * @param now is the current time stamp
+	 */
+	private void advanceAnimation(long now) {
+		long elapsed = now - animationStart ;
+		if (elapsed > ANIMATION_NANOS)
+			elapsed = ANIMATION_NANOS ;
+		switch (animation) {
+		case WALK:
+			// walkStep ranges over 0,..,4 for a single step
+			controller.setWalkStep(animationDir * (int) ((4 * elapsed) / ANIMATION_NANOS)) ;
+			controller.notifyViewerRedraw() ;
+			if (elapsed == ANIMATION_NANOS) {
+				animation = Animation.NONE ;
+				controller.finishWalk(animationDir) ;
+			}
+			break ;
+		case ROTATE:
+			controller.setAngle(originalAngle + animationDir * (int) ((90 * elapsed) / ANIMATION_NANOS)) ;
+			controller.notifyViewerRedraw() ;
+			if (elapsed == ANIMATION_NANOS) {
+				animation = Animation.NONE ;
+				controller.finishRotate() ;
+			}
+			break ;
+		default:
+			break ;
+		}
+	}
+}
@@ -0,0 +1,136 @@
+package falstad;
+
+import java.io.BufferedInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+
+import generation.CardinalDirection;
+
+/**
+ * Replays a run that was recorded by the ReplayRecorder.
+ * The player decodes the recording and passes each event on to a listener.
+ * For a replay on screen, the listener is the controller that shows the maze of the run:
+ * the player sets its position and direction and lets all its viewers redraw.
+ *
+ * The speed of a replay is given in events per second, a speed of 0 replays as fast as possible.
+ */
+public class ReplayPlayer {
+
+	/**
+	 * Receives the events of a replay
+	 */
+	public interface Listener {
+		void position(int x, int y);
+		void direction(CardinalDirection direction);
+		void sensor(CardinalDirection direction, int distance);
+	}
+
+	private final InputStream in;
+	private final Listener listener;
+	private double speed;
+
+	/**
+	 * Constructor
+	 * @param in recording as written by a ReplayRecorder, closed at the end of play()
+	 * @param listener to receive events
+	 */
+	public ReplayPlayer(InputStream in, Listener listener) {
+		this.in = new BufferedInputStream(in);
+		this.listener = listener;
+	}
+
+	/**
+	 * Constructor for a replay on screen
+	 * @param in recording as written by a ReplayRecorder, closed at the end of play()
+	 * @param controller with the maze of the recorded run
+	 */
+	public ReplayPlayer(InputStream in, final MazeController controller) {
+		this(in, new Listener() {
+			@Override
+			public void position(int x, int y) {
+				controller.setCurrentPosition(x, y);
+				controller.notifyViewerRedraw();
+			}
+			@Override
+			public void direction(CardinalDirection direction) {
+				// the controller's angle is 0 for east and grows clockwise in steps of 90 degrees
+				controller.setAngle(90 * ((direction.ordinal() - CardinalDirection.East.ordinal()) & 3));
+				controller.finishRotate();
+				controller.notifyViewerRedraw();
+			}
+			@Override
+			public void sensor(CardinalDirection direction, int distance) {
+				// nothing on display
+			}
+		});
+	}
+
+	/**
+	 * Sets the speed of the replay
+	 * @param eventsPerSecond 0 to replay as fast as possible
+	 */
+	public void setSpeed(double eventsPerSecond) {
+		speed = eventsPerSecond;
+	}
+
+	/**
+	 * Replays all events
+	 * @return number of events
+	 * @throws IOException if the recording can not be read or is corrupt
+	 * @throws InterruptedException if the thread is interrupted between two events
+	 */
+	public long play() throws IOException, InterruptedException {
+		final long delay = (speed > 0) ? (long) (1000 / speed) : 0;
+		long events = 0;
+		int x = 0;
+		int y = 0;
+		try {
+			int tag;
+			while ((tag = in.read()) >= 0) {
+				final CardinalDirection direction = CardinalDirection.fromOrdinal(tag & ReplayRecorder.DIRECTION_MASK);
+				switch (tag & ReplayRecorder.TAG_MASK) {
+				case ReplayRecorder.POSITION:
+					x += unzigzag(readVarint());
+					y += unzigzag(readVarint());
+					listener.position(x, y);
+					break;
+				case ReplayRecorder.DIRECTION:
+					listener.direction(direction);
+					break;
+				case ReplayRecorder.SENSOR:
+					final int distance = readVarint();
+					listener.sensor(direction, (0 == distance) ? Integer.MAX_VALUE : distance - 1);
+					break;
+				default:
+					throw new IOException("ReplayPlayer: unknown event tag " + tag);
+				}
+				events++;
+				if (delay > 0)
+					Thread.sleep(delay);
+			}
+		}
+		finally {
+			in.close();
+		}
+		return events;
+	}
+
+	///////////////////////// private methods ///////////////////////////////////
+	private int readVarint() throws IOException {
+		int result = 0;
+		for (int shift = 0; shift < 35; shift += 7) {
+			final int b = in.read();
+			if (b < 0)
+				throw new EOFException("ReplayPlayer: recording ends within an event");
+			result |= (b & 0x7f) << shift;
+			if ((b & 0x80) == 0)
+				return result;
+		}
+		throw new IOException("ReplayPlayer: malformed varint");
+	}
+
+	private static int unzigzag(int v) {
+		return (v >>> 1) ^ -(v & 1);
+	}
+}
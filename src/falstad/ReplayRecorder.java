@@ -0,0 +1,181 @@
+package falstad;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * Records a run through a maze in a compact binary format such that it can be replayed with the ReplayPlayer.
+ * The controller reports changes of position and direction, the robot reports sensor readings.
+ *
+ * Each event is a tag byte followed by its arguments as variable length integers (varints).
+ * Positions are stored as the difference to the previous position, a step takes 3 bytes.
+ * Directions are stored in the tag, sensor readings need the distance as an additional varint.
+ *
+ * Events are written into a chunk of memory. A full chunk is handed over to a writer thread
+ * and recording continues in a spare chunk, so the recording thread never waits for the disk
+ * unless the writer falls behind by more than all spare chunks.
+ * Recording is meant for a single thread at a time, the controller serializes position updates.
+ *
+ * The format has no time stamps, a replay runs at a speed chosen by the player.
+ */
+public class ReplayRecorder {
+	// tags, the lower 2 bits of a direction or sensor tag hold the ordinal of the cardinal direction
+	static final int POSITION = 0x10;
+	static final int DIRECTION = 0x20;
+	static final int SENSOR = 0x30;
+	static final int TAG_MASK = 0xf0;
+	static final int DIRECTION_MASK = 0x03;
+
+	static final int CHUNK_SIZE = 1 << 16;
+	static final int CHUNKS = 4; // number of chunks, one is filled while the others are written or free
+	static final int MAX_EVENT_SIZE = 11; // tag and two varints of 5 bytes
+
+	private final OutputStream out;
+	private final BlockingQueue<byte[]> free = new ArrayBlockingQueue<byte[]>(CHUNKS);
+	private final ExecutorService writer = Executors.newSingleThreadExecutor(new ThreadFactory() {
+		@Override
+		public Thread newThread(Runnable r) {
+			Thread t = new Thread(r, "ReplayWriter");
+			t.setDaemon(true);
+			return t;
+		}
+	});
+	private Future<?> lastWrite;
+	private volatile IOException failure;
+
+	private byte[] chunk;
+	private int size;
+	private int lastX;
+	private int lastY;
+	private long events;
+	private boolean closed;
+
+	/**
+	 * Constructor
+	 * @param out stream to write the recording to, closed by close()
+	 */
+	public ReplayRecorder(OutputStream out) {
+		this.out = out;
+		for (int i = 1; i < CHUNKS; i++)
+			free.add(new byte[CHUNK_SIZE]);
+		chunk = new byte[CHUNK_SIZE];
+	}
+
+	/**
+	 * Records a change of position
+	 */
+	public void position(int x, int y) {
+		if (size > CHUNK_SIZE - MAX_EVENT_SIZE)
+			swap();
+		chunk[size++] = (byte) POSITION;
+		writeVarint(zigzag(x - lastX));
+		writeVarint(zigzag(y - lastY));
+		lastX = x;
+		lastY = y;
+		events++;
+	}
+
+	/**
+	 * Records a change of direction
+	 * @param direction ordinal of the cardinal direction
+	 */
+	public void direction(int direction) {
+		if (size > CHUNK_SIZE - MAX_EVENT_SIZE)
+			swap();
+		chunk[size++] = (byte) (DIRECTION | direction);
+		events++;
+	}
+
+	/**
+	 * Records a sensor reading
+	 * @param direction ordinal of the cardinal direction the sensor looked at
+	 * @param distance as measured, Integer.MAX_VALUE if the sensor looked through the exit
+	 */
+	public void sensor(int direction, int distance) {
+		if (size > CHUNK_SIZE - MAX_EVENT_SIZE)
+			swap();
+		chunk[size++] = (byte) (SENSOR | direction);
+		writeVarint(Integer.MAX_VALUE == distance ? 0 : distance + 1);
+		events++;
+	}
+
+	/**
+	 * @return number of events recorded so far
+	 */
+	public long getEventCount() {
+		return events;
+	}
+
+	/**
+	 * Writes all recorded events and closes the stream.
+	 * @throws IOException if writing failed at any point
+	 */
+	public void close() throws IOException {
+		if (closed)
+			return;
+		closed = true;
+		if (size > 0)
+			swap();
+		writer.shutdown();
+		try {
+			if (null != lastWrite)
+				lastWrite.get();
+		} catch (Exception e) {
+			// failure is reported below
+		}
+		out.close();
+		if (null != failure)
+			throw failure;
+	}
+
+	///////////////////////// private methods ///////////////////////////////////
+	private void writeVarint(int v) {
+		while ((v & ~0x7f) != 0) {
+			chunk[size++] = (byte) ((v & 0x7f) | 0x80);
+			v >>>= 7;
+		}
+		chunk[size++] = (byte) v;
+	}
+
+	private static int zigzag(int v) {
+		return (v << 1) ^ (v >> 31);
+	}
+
+	/**
+	 * Hands the current chunk over to the writer and continues with a free chunk
+	 */
+	private void swap() {
+		if (writer.isShutdown()) {
+			size = 0; // events after close are dropped
+			return;
+		}
+		final byte[] full = chunk;
+		final int length = size;
+		lastWrite = writer.submit(new Runnable() {
+			@Override
+			public void run() {
+				try {
+					if (null == failure)
+						out.write(full, 0, length);
+				} catch (IOException e) {
+					failure = e;
+				}
+				free.offer(full); // no room if a chunk was replaced after an interrupt
+			}
+		});
+		try {
+			chunk = free.take();
+		} catch (InterruptedException e) {
+			// keep recording in a new chunk rather than losing events
+			Thread.currentThread().interrupt();
+			chunk = new byte[CHUNK_SIZE];
+		}
+		size = 0;
+	}
+}
@@ -173,6 +173,18 @@ public interface Robot {
 	 * @throws UnsupportedOperationException if not supported by robot
 	 */
 	int distanceToObstacle(Direction direction) throws UnsupportedOperationException ;
+	/**
+	 * Tells the distances to obstacles in several directions at once.
+	 * Gives the same results and uses the same energy as a call to distanceToObstacle 
+	 * for each direction but reads the current position only once, 
+	 * so a driver that checks its surroundings in each step should prefer this method.
+	 * @param directions relative to the robot's current forward direction
+	 * @param distances is filled with the distance for each direction, distances[i] belongs to directions[i]
+	 * @precondition distances.length >= directions.length
+	 * @throws UnsupportedOperationException if there is no sensor for one of the directions, 
+	 * in which case no distance is measured and no energy is used
+	 */
+	void distanceToObstacles(Direction[] directions, int[] distances) throws UnsupportedOperationException ;
 	/**
 	 * Tells if the robot has a distance sensor for the given direction.
 	 * Since this interface is generic and may be implemented with robots 
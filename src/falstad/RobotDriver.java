@@ -7,7 +7,7 @@ import generation.Distance;
  * 
  * Collaborators: Robot
  * 
- * Implementing classes: WallFollower, Wizard
+ * Implementing classes: WallFollower, Wizard, Explorer
  * 
  * @author peterkemper
  *
@@ -0,0 +1,28 @@
+package falstad;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Flight recorder event for an operation of a robot, i.e. a sensor reading, a move or a rotation.
+ */
+@Name("maze.RobotOperation")
+@Label("Maze Robot Operation")
+@Category({ "Maze", "Robot" })
+@Description("A sensor reading, move or rotation of a robot")
+public class RobotOperationEvent extends Event {
+	@Label("Operation")
+	String operation ;
+
+	@Label("Argument")
+	String argument ;
+
+	@Label("Result")
+	int result ;
+
+	@Label("Battery Level")
+	float batteryLevel ;
+}
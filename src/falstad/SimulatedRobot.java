@@ -0,0 +1,88 @@
+package falstad;
+
+/**
+ * A basic robot whose operations take time on the clock of a simulator instead of real time.
+ * Each operation is an event that is due after the operation's duration, it takes effect
+ * including its energy consumption when the event fires. The calling driver waits till then
+ * while the simulator fires all events that are due earlier.
+ *
+ * Drivers need no delays of their own when they operate a simulated robot,
+ * a visualization sets the speed of the simulator instead.
+ *
+ * Collaborators: Simulator for the clock, MazeController as for the basic robot.
+ */
+public class SimulatedRobot extends BasicRobot {
+	// durations of operations in milliseconds of simulated time
+	public static final long MOVE_TIME = 100; // per step
+	public static final long ROTATE_TIME = 50; // per quarter turn
+	public static final long SENSE_TIME = 10; // per direction
+
+	private final Simulator simulator;
+
+	public SimulatedRobot(Simulator simulator) {
+		super();
+		this.simulator = simulator;
+	}
+
+	/**
+	 * @return the simulator that keeps the time for this robot
+	 */
+	public Simulator getSimulator() {
+		return simulator;
+	}
+
+	@Override
+	public void rotate(final Turn turn) {
+		perform((Turn.AROUND == turn ? 2 : 1) * ROTATE_TIME, new Runnable() {
+			@Override
+			public void run() {
+				SimulatedRobot.super.rotate(turn);
+			}
+		});
+	}
+
+	@Override
+	public void move(final int distance, final boolean manual) {
+		perform((manual ? 1 : distance) * MOVE_TIME, new Runnable() {
+			@Override
+			public void run() {
+				SimulatedRobot.super.move(distance, manual);
+			}
+		});
+	}
+
+	@Override
+	public int distanceToObstacle(final Direction direction) throws UnsupportedOperationException {
+		final int[] result = new int[1];
+		perform(SENSE_TIME, new Runnable() {
+			@Override
+			public void run() {
+				result[0] = SimulatedRobot.super.distanceToObstacle(direction);
+			}
+		});
+		return result[0];
+	}
+
+	@Override
+	public void distanceToObstacles(final Direction[] directions, final int[] distances) throws UnsupportedOperationException {
+		perform(directions.length * SENSE_TIME, new Runnable() {
+			@Override
+			public void run() {
+				SimulatedRobot.super.distanceToObstacles(directions, distances);
+			}
+		});
+	}
+
+	/**
+	 * Schedules an operation and waits till it took effect.
+	 * If the thread is interrupted, the robot stops.
+	 */
+	private void perform(long duration, Runnable operation) {
+		try {
+			simulator.await(simulator.schedule(duration, operation));
+		} catch (InterruptedException e) {
+			hasStopped = true;
+			Thread.currentThread().interrupt();
+		}
+	}
+}
@@ -0,0 +1,137 @@
+package falstad;
+
+import java.util.Comparator;
+import java.util.PriorityQueue;
+
+/**
+ * A discrete event simulation kernel. Events are actions that are due at a point in simulated time,
+ * they wait in a priority queue and fire in the order of their time. Events due at the same time fire
+ * in the order they were scheduled, so a simulation is deterministic.
+ *
+ * The clock jumps from one event to the next, a simulation runs as fast as the actions allow.
+ * For a visualization, a speed can be set such that the simulator waits for
+ * the simulated time between two events scaled by the speed, e.g. a speed of 1 is real time,
+ * a speed of 10 is ten times faster than real time.
+ *
+ * Time is measured in milliseconds of simulated time.
+ */
+public class Simulator {
+
+	/**
+	 * An action that is due at a given point in time
+	 */
+	public static class Event {
+		private final long time;
+		private final long sequence; // order of scheduling, breaks ties between events at the same time
+		private final Runnable action;
+		private boolean fired;
+
+		private Event(long time, long sequence, Runnable action) {
+			this.time = time;
+			this.sequence = sequence;
+			this.action = action;
+		}
+		/**
+		 * @return the point in simulated time at which the event fires
+		 */
+		public long getTime() {
+			return time;
+		}
+		/**
+		 * @return true if the event has fired, false otherwise
+		 */
+		public boolean hasFired() {
+			return fired;
+		}
+	}
+
+	private static final Comparator<Event> ORDER = new Comparator<Event>() {
+		@Override
+		public int compare(Event a, Event b) {
+			if (a.time != b.time)
+				return Long.compare(a.time, b.time);
+			return Long.compare(a.sequence, b.sequence);
+		}
+	};
+
+	private final PriorityQueue<Event> queue = new PriorityQueue<Event>(16, ORDER);
+	private long now;
+	private long sequence;
+	private long fired;
+	private double speed; // 0 means as fast as possible
+
+	/**
+	 * @return the current point in simulated time
+	 */
+	public long getTime() {
+		return now;
+	}
+
+	/**
+	 * @return the number of events that fired so far
+	 */
+	public long getEventCount() {
+		return fired;
+	}
+
+	/**
+	 * Sets how fast simulated time passes for an observer.
+	 * @param speed is the factor of simulated time over real time, 0 to run as fast as possible
+	 * @precondition speed >= 0
+	 */
+	public void setSpeed(double speed) {
+		this.speed = speed;
+	}
+
+	/**
+	 * Schedules an action
+	 * @param delay is the simulated time from now till the action is due
+	 * @param action to perform
+	 * @return the event for the action
+	 * @precondition delay >= 0
+	 */
+	public Event schedule(long delay, Runnable action) {
+		Event event = new Event(now + delay, sequence++, action);
+		queue.add(event);
+		return event;
+	}
+
+	/**
+	 * Fires the next event, advances the clock to its time.
+	 * @return true if an event fired, false if there is no event
+	 * @throws InterruptedException if the thread is interrupted while waiting for the next event
+	 */
+	public boolean step() throws InterruptedException {
+		Event event = queue.poll();
+		if (null == event)
+			return false;
+		if (speed > 0 && event.time > now)
+			Thread.sleep((long) ((event.time - now) / speed));
+		now = event.time;
+		event.fired = true;
+		fired++;
+		event.action.run();
+		return true;
+	}
+
+	/**
+	 * Fires events till the given event has fired.
+	 * @param event to wait for
+	 * @throws InterruptedException if the thread is interrupted while waiting
+	 */
+	public void await(Event event) throws InterruptedException {
+		while (!event.fired && step()) {
+			// events before the given one fire first
+		}
+	}
+
+	/**
+	 * Fires events till there are none left
+	 * @throws InterruptedException if the thread is interrupted while waiting
+	 */
+	public void run() throws InterruptedException {
+		while (step()) {
+			// all events fire
+		}
+	}
+}
@@ -22,18 +22,31 @@ public final class SingleRandom {
 	private static boolean validSeed = false;
 	/** lock to make the private constructor thread safe, one could have used the class object as well */
 	private static final Object LOCK = new Object() ;
+	/** optional: instance with a fixed seed that is used by a particular thread instead of the shared one, e.g. a builder thread for a deterministic maze */
+	private static final ThreadLocal<SingleRandom> threadInstance = new ThreadLocal<SingleRandom>() ;
 	/**
 	 * The constructor for a class that allows for a single instance must be private.
 	 */
 	private SingleRandom() {
 		generator = validSeed ? new Random(theSeed) : new Random();
 	}
+	/**
+	 * Constructor for an instance that is used by a single thread.
+	 * @param seed is the seed value for the random number generator
+	 */
+	private SingleRandom(int seed) {
+		generator = new Random(seed);
+	}
 
 	/**
 	 * Delivers an instance of a random number generator.
 	 * @return instance of random number generator
 	 */
 	public static SingleRandom getRandom() {
+		// a thread with a seed of its own does not share the generator with other threads
+		SingleRandom local = threadInstance.get() ;
+		if (null != local)
+			return local ;
 		synchronized(LOCK)
 		{
 			// check the instance being null needs synchronization to be thread safe
@@ -78,4 +91,19 @@ public final class SingleRandom {
 		theSeed = seed;
 		validSeed = true;
 	}
+	/**
+	 * Makes getRandom deliver a generator with the given seed for the current thread only.
+	 * Other threads keep using the shared instance, so a deterministic computation
+	 * can run while other threads draw random numbers.
+	 * @param seed is the seed value for the random number generator of this thread
+	 */
+	public static void setThreadSeed(final int seed) {
+		threadInstance.set(new SingleRandom(seed)) ;
+	}
+	/**
+	 * Makes the current thread use the shared instance again.
+	 */
+	public static void clearThreadSeed() {
+		threadInstance.remove() ;
+	}
 }
@@ -0,0 +1,326 @@
+package falstad;
+
+import falstad.Constants.StateGUI;
+import falstad.FirstPersonDrawer.RangePair;
+import generation.BSPBranch;
+import generation.BSPLeaf;
+import generation.BSPNode;
+import generation.Cells;
+import generation.Seg;
+
+import java.awt.Color;
+import java.awt.Graphics;
+import java.awt.Point;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+
+
+/**
+ * This class is an alternative to the FirstPersonDrawer that does not rely on Graphics2D to draw walls.
+ * It writes pixels directly into an int[] framebuffer that backs a BufferedImage and copies
+ * the image to the given graphics object once per frame.
+ *
+ * The screen is split into vertical strips of columns. Each strip is rasterized by a task of its own
+ * on the common ForkJoinPool. A strip traverses the BSP tree front to back with its own RangeSet
+ * that only covers the columns of the strip, so strips do not share any mutable state except for
+ * disjoint parts of the framebuffer. Segments that turn out to be visible are collected per strip
+ * and merged into the seencells after all strips are done, as Cells is not thread-safe.
+ *
+ * Projection and clipping are the same as in FirstPersonDrawer such that both produce the same picture
+ * in terms of segment colors and depth ordering.
+ */
+public class SoftwareFirstPersonDrawer extends DefaultViewer {
+	// strips narrower than this are not worth a task of their own
+	static final int MIN_STRIP_WIDTH = 32 ;
+	// background colors, same as FirstPersonDrawer
+	private static final int CEILING_RGB = Color.black.getRGB() ;
+	private static final int FLOOR_RGB = Color.darkGray.getRGB() ;
+
+	// constants, set in constructor
+	private final int view_width ;
+	private final int view_height ;
+	private final int map_unit ;
+	private final int step_size ;
+	private final int zscale ;
+	private final int strips ; // number of column strips rendered in parallel
+	final int viewz = 50;  // constant from MazeController.java
+
+	private final Cells seencells ; // cells whose walls are currently visible
+	private final BSPNode bsp_root ;
+
+	// framebuffer, pixels is the backing array of image
+	private final BufferedImage image ;
+	private final int[] pixels ;
+
+	// view parameters of the current frame, written before strips start and only read by strips
+	private int viewx ;
+	private int viewy ;
+	private int view_dx ;
+	private int view_dy ;
+	private int angle ;
+
+	/**
+	 * Constructor
+	 * @param width of display
+	 * @param height of display
+	 * @param map_unit
+	 * @param step_size
+	 * @param seencells
+	 * @param bsp_root
+	 */
+	public SoftwareFirstPersonDrawer(int width, int height, int map_unit, int step_size, Cells seencells, BSPNode bsp_root) {
+		view_width = width ;
+		view_height = height ;
+		this.map_unit = map_unit ;
+		this.step_size = step_size ;
+		this.seencells = seencells ;
+		this.bsp_root = bsp_root ;
+		zscale = view_height/2 ;
+		image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB) ;
+		pixels = ((DataBufferInt) image.getRaster().getDataBuffer()).getData() ;
+		strips = Math.max(1, Math.min(Runtime.getRuntime().availableProcessors(), width / MIN_STRIP_WIDTH)) ;
+	}
+
+	/**
+	 * Draws the first person view into the framebuffer and copies it to the given graphics object.
+	 * Parameters are the same as for FirstPersonDrawer.redraw.
+	 * The given range set is not used as each strip has a range set of its own.
+	 */
+	@Override
+	public void redraw(Graphics gc, StateGUI state, int px, int py, int view_dx, int view_dy, int walk_step, int view_offset, RangeSet rset, int ang) {
+		if (state != StateGUI.STATE_PLAY)
+			return ;
+		FrameRenderEvent event = new FrameRenderEvent() ;
+		event.begin() ;
+		this.view_dx = view_dx ;
+		this.view_dy = view_dy ;
+		this.angle = ang ;
+		viewx = (px*map_unit+map_unit/2) + viewd_unscale(view_dx*(step_size*walk_step-view_offset));
+		viewy = (py*map_unit+map_unit/2) + viewd_unscale(view_dy*(step_size*walk_step-view_offset));
+		// split columns into strips of about equal width
+		List<Strip> tasks = new ArrayList<Strip>(strips) ;
+		for (int i = 0 ; i < strips ; i++) {
+			tasks.add(new Strip(i*view_width/strips, (i+1)*view_width/strips - 1)) ;
+		}
+		if (1 == strips)
+			tasks.get(0).compute() ;
+		else
+			ForkJoinTask.invokeAll(tasks) ;
+		// merge visibility information of all strips
+		for (Strip s : tasks) {
+			for (Seg seg : s.drawn) {
+				if (!seg.isSeen()) {
+					seg.setSeen(true) ;
+					FirstPersonDrawer.udpateSeenCellsForSegment(seencells, seg, map_unit) ;
+				}
+			}
+		}
+		gc.drawImage(image, 0, 0, null) ;
+		event.end() ;
+		if (event.shouldCommit()) {
+			event.renderer = "Software" ;
+			for (Strip s : tasks) {
+				event.traverseNodes += s.traverse_node_ct ;
+				event.traverseLeaves += s.traverse_ssector_ct ;
+				event.drawrect += s.drawrect_ct ;
+				event.drawrectLate += s.drawrect_late_ct ;
+				event.polygons += s.drawrect_segment_ct ;
+			}
+			event.fills = tasks.size() ; // one image per strip
+			event.commit() ;
+		}
+	}
+
+	/**
+	 * Unscale given value
+	 */
+	final int viewd_unscale(int x) {
+		return x >> 16;
+	}
+
+	/**
+	 * Rasterizes the columns [xmin,xmax] of the framebuffer.
+	 */
+	private class Strip extends RecursiveAction {
+		private static final long serialVersionUID = 1L;
+
+		private final int xmin ;
+		private final int xmax ;
+		private final RangeSet rset = new RangeSet() ; // columns of this strip that are not covered yet
+		final List<Seg> drawn = new ArrayList<Seg>() ; // segments that are visible in this strip
+		// counters, same meaning as in FirstPersonDrawer
+		int traverse_node_ct ;
+		int traverse_ssector_ct ;
+		int drawrect_ct ;
+		int drawrect_late_ct ;
+		int drawrect_segment_ct ;
+
+		Strip(int xmin, int xmax) {
+			this.xmin = xmin ;
+			this.xmax = xmax ;
+		}
+
+		@Override
+		protected void compute() {
+			// draw background: black on top half, grey on bottom half
+			final int half = view_height/2 ;
+			for (int y = 0 ; y < view_height ; y++) {
+				final int rgb = (y < half) ? CEILING_RGB : FLOOR_RGB ;
+				final int row = y*view_width ;
+				for (int x = xmin ; x <= xmax ; x++)
+					pixels[row + x] = rgb ;
+			}
+			rset.set(xmin, xmax) ;
+			drawAllVisibleSectors(bsp_root) ;
+		}
+
+		/**
+		 * Recursive front to back traversal of the BSP tree, same order as in FirstPersonDrawer
+		 */
+		private void drawAllVisibleSectors(BSPNode nn) {
+			traverse_node_ct++ ;
+			if (nn.isIsleaf()) {
+				traverse_ssector_ct++ ;
+				for (Seg seg : ((BSPLeaf) nn).getSlist())
+					drawSegment(seg) ;
+				return ;
+			}
+			BSPBranch n = (BSPBranch) nn;
+			int dot = (viewx-n.getX())*n.getDy()-(viewy-n.getY())*n.getDx();
+			BSPNode lch = n.getLeftBranch();
+			BSPNode rch = n.getRightBranch();
+			if ((dot >= 0) && (boundingBoxIsVisible(rch)))
+				drawAllVisibleSectors(rch);
+			if (boundingBoxIsVisible(lch))
+				drawAllVisibleSectors(lch);
+			if ((dot < 0) && (boundingBoxIsVisible(rch)))
+				drawAllVisibleSectors(rch);
+		}
+
+		/**
+		 * Decide if the bounding box is visible in this strip, see FirstPersonDrawer
+		 */
+		private boolean boundingBoxIsVisible(BSPNode b) {
+			int ymax = b.getUpperBoundY();
+			int ymin = b.getLowerBoundY();
+			int xmin = b.getLowerBoundX();
+			int xmax = b.getUpperBoundX();
+			int p1x, p1y, p2x, p2y;
+			if (rset.isEmpty())
+				return false;
+			if (angle >= 45 && angle <= 135 && viewy > ymax)
+				return false;
+			if (angle >= 225 && angle <= 315 && viewy < ymin)
+				return false;
+			if (angle >= 135 && angle <= 225 && viewx < xmin)
+				return false;
+			if ((angle >= 315 || angle <= 45) && viewx > xmax)
+				return false;
+			xmin -= viewx;
+			ymin -= viewy;
+			xmax -= viewx;
+			ymax -= viewy;
+			p1x = xmin; p2x = xmax;
+			p1y = ymin; p2y = ymax;
+			if (ymin < 0 && ymax > 0) {
+				p1y = ymin; p2y = ymax;
+				if (xmin < 0) {
+					if (xmax > 0)
+						return true;
+					p1x = p2x = xmax;
+				} else
+					p1x = p2x = xmin;
+			} else if (xmin < 0 && xmax > 0) {
+				if (ymin < 0)
+					p1y = p2y = ymax;
+				else
+					p1y = p2y = ymin;
+			} else if ((xmin > 0 && ymin > 0) || (xmin < 0 && ymin < 0)) {
+				p1x = xmax; p2x = xmin;
+			}
+			int rp1x = -viewd_unscale(view_dy*p1x-view_dx*p1y);
+			int rp1z = -viewd_unscale(view_dx*p1x+view_dy*p1y);
+			int rp2x = -viewd_unscale(view_dy*p2x-view_dx*p2y);
+			int rp2z = -viewd_unscale(view_dx*p2x+view_dy*p2y);
+			RangePair rp = new RangePair(rp1x, rp1z, rp2x, rp2z);
+			if (!FirstPersonDrawer.clip3d(rp))
+				return false;
+			int x1 = rp.x1*zscale/rp.z1+(view_width/2);
+			int x2 = rp.x2*zscale/rp.z2+(view_width/2);
+			if (x1 > x2) {
+				int xj = x1;
+				x1 = x2;
+				x2 = xj;
+			}
+			return rset.intersect(new Point(x1, x2));
+		}
+
+		/**
+		 * Projects the segment and fills all its columns that are not covered yet in this strip.
+		 */
+		private void drawSegment(Seg seg) {
+			drawrect_ct++ ;
+			int ox1 = seg.getStartPositionX() - viewx;
+			int y1 = seg.getStartPositionY() - viewy;
+			int ox2 = seg.getEndPositionX() - viewx;
+			int y2 = seg.getEndPositionY() - viewy;
+			int z1 = 0 - viewz;
+			int z2 = 100 - viewz;
+			int y11, y12, y21, y22;
+			y11 = y21 = -z1;
+			y12 = y22 = -z2;
+			int x1 = -viewd_unscale(view_dy*ox1-view_dx*y1);
+			z1 = -viewd_unscale(view_dx*ox1+view_dy*y1);
+			int x2 = -viewd_unscale(view_dy*ox2-view_dx*y2);
+			z2 = -viewd_unscale(view_dx*ox2+view_dy*y2);
+			RangePair rp = new RangePair(x1, z1, x2, z2);
+			if (!FirstPersonDrawer.clip3d(rp))
+				return;
+			y11 = y11*zscale/rp.z1+(view_height/2);
+			y12 = y12*zscale/rp.z1+(view_height/2);
+			y21 = y21*zscale/rp.z2+(view_height/2);
+			y22 = y22*zscale/rp.z2+(view_height/2);
+			x1 = rp.x1*zscale/rp.z1+(view_width/2);
+			x2 = rp.x2*zscale/rp.z2+(view_width/2);
+			if (x1 >= x2) // reject backfaces
+				return;
+			drawrect_late_ct++ ;
+			final int xd = x2-x1;
+			final int rgb = seg.getRGB() ;
+			boolean visible = false;
+			int x1i = x1;
+			while (x1i <= x2) {
+				Point p = new Point(x1i, x2);
+				if (!rset.intersect(p))
+					break;
+				x1i = p.x;
+				int x2i = p.y;
+				// fill column by column, top and bottom edge are interpolated linearly
+				for (int x = x1i ; x <= x2i ; x++) {
+					int top = y11+(x-x1)*(y21-y11)/xd ;
+					int bottom = y12+(x-x1)*(y22-y12)/xd ;
+					fillColumn(x, top, bottom, rgb) ;
+				}
+				visible = true;
+				drawrect_segment_ct++ ;
+				rset.remove(x1i, x2i);
+				x1i = x2i+1;
+			}
+			if (visible)
+				drawn.add(seg) ;
+		}
+
+		private void fillColumn(int x, int top, int bottom, int rgb) {
+			if (top < 0)
+				top = 0 ;
+			if (bottom >= view_height)
+				bottom = view_height - 1 ;
+			for (int i = top*view_width + x ; top <= bottom ; top++, i += view_width)
+				pixels[i] = rgb ;
+		}
+	}
+}
@@ -14,6 +14,14 @@ public class WallFollower implements RobotDriver {
 	protected int pathLength;
 	protected MazeController maze;
 	protected CardinalDirection cd;
+	// directions sensed in each step and the distances measured for them
+	private static final Direction[] SENSED = { Direction.LEFT, Direction.FORWARD, Direction.RIGHT };
+	private static final int LEFT = 0;
+	private static final int FORWARD = 1;
+	private static final int RIGHT = 2;
+	private final int[] distances = new int[SENSED.length];
+	// real time between two steps such that a user can follow the robot on screen
+	protected long stepDelay = 100;
 	
 	// Simple constructor for no bounds, sets everything to null except maze
 	public WallFollower() {
@@ -55,35 +63,37 @@ public class WallFollower implements RobotDriver {
 		maze.mapMode = true;
 		
 		while (!robot.isAtGoal()) {//until the robo hits the goal this is true
-			if (robot.batteryLevel != 0) {//makes sure robo still runs
+			if (robot.batteryLevel > 0 && !robot.hasStopped()) {//makes sure robo still runs
+				// a single sensor call for all directions the decision depends on
+				robot.distanceToObstacles(SENSED, distances);
 				//moves forward without turning if there is open space, redraws maze then sleeps
-				if (robot.distanceToObstacle(Direction.LEFT) == 0 && robot.distanceToObstacle(Direction.FORWARD) > 0) {
+				if (distances[LEFT] == 0 && distances[FORWARD] > 0) {
 					robot.move(1, false);
 					robot.maze.notifyViewerRedraw();
-					Thread.sleep(100);
+					pause();
 				}
 				
 				else {
 					// turns left then moves forward, redraws then sleeps
-					if (robot.distanceToObstacle(Direction.LEFT) > 0) {
+					if (distances[LEFT] > 0) {
 						robot.rotate(Turn.LEFT);
 						robot.move(1, false);
 						robot.maze.notifyViewerRedraw();
-						Thread.sleep(100);
+						pause();
 					}
 					// turns right then moves forward, redraws then sleeps
-					else if (robot.distanceToObstacle(Direction.RIGHT) > 0) {
+					else if (distances[RIGHT] > 0) {
 						robot.rotate(Turn.RIGHT);
 						robot.move(1, false);
 						robot.maze.notifyViewerRedraw();
-						Thread.sleep(100);
+						pause();
 					}
 					// turns around then moves forward, redraws then sleeps
 					else {
 						robot.rotate(Turn.AROUND);
 						robot.move(1, false);
 						robot.maze.notifyViewerRedraw();
-						Thread.sleep(100);
+						pause();
 					}
 				}
 				//always increment pathlength
@@ -117,6 +127,20 @@ public class WallFollower implements RobotDriver {
 		return true;
 	}
 
+	/**
+	 * Sets the real time the driver waits after each step.
+	 * A simulated robot keeps its own time, so a simulation runs with a delay of 0.
+	 * @param millis delay in milliseconds, 0 for no delay
+	 */
+	public void setStepDelay(long millis) {
+		stepDelay = millis;
+	}
+
+	private void pause() throws InterruptedException {
+		if (stepDelay > 0)
+			Thread.sleep(stepDelay);
+	}
+
 	@Override
 	public float getEnergyConsumption() {
 		return 2500 - robot.batteryLevel;
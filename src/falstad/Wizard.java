@@ -0,0 +1,128 @@
+package falstad;
+
+import falstad.Robot.Turn;
+import generation.CardinalDirection;
+import generation.Cells;
+import generation.Distance;
+
+/**
+ * A robot driver that knows the way out. It reads the distance to the exit for every cell
+ * and always moves on to a neighbor that is closer to the exit, so the robot takes
+ * a shortest path and never needs its distance sensors to find the way.
+ *
+ * Cells along the path in the same direction are combined into a single move operation
+ * such that a straight corridor costs a single sensor reading.
+ * The driver does not pause between moves, so a run without a screen completes right away.
+ *
+ * Collaborators: BasicRobot for the walls of the maze, Distance for the way to the exit.
+ */
+public class Wizard implements RobotDriver {
+
+	protected BasicRobot robot;
+	protected Distance distance;
+	protected int width;
+	protected int height;
+	protected int pathLength;
+	protected float initialEnergy;
+
+	@Override
+	public void setRobot(Robot r) {
+		robot = (BasicRobot) r;
+	}
+
+	@Override
+	public void setDimensions(int width, int height) {
+		this.width = width;
+		this.height = height;
+	}
+
+	@Override
+	public void setDistance(Distance distance) {
+		this.distance = distance;
+	}
+
+	@Override
+	public boolean drive2Exit() throws Exception {
+		initialEnergy = robot.getBatteryLevel();
+		pathLength = 0;
+		final Cells cells = robot.roboCells;
+		while (!robot.isAtGoal()) {
+			int[] pos = robot.getCurrentPosition();
+			int x = pos[0];
+			int y = pos[1];
+			int dir = getDirectionToExit(cells, x, y);
+			if (dir < 0)
+				return false; // distance field is inconsistent with the maze
+			// follow the path as long as it keeps the same direction
+			int steps = 0;
+			do {
+				x += CardinalDirection.dx(dir);
+				y += CardinalDirection.dy(dir);
+				steps++;
+			} while (!cells.isExitPosition(x, y) && getDirectionToExit(cells, x, y) == dir);
+
+			Turn turn = turnTowards(robot.getCurrentDirection(), CardinalDirection.fromOrdinal(dir));
+			if (null != turn)
+				robot.rotate(turn);
+			robot.move(steps, false);
+			if (robot.hasStopped())
+				return false; // out of energy
+			pathLength += steps;
+			robot.maze.notifyViewerRedraw();
+		}
+		robot.maze.state = Constants.StateGUI.STATE_FINISH;
+		robot.maze.notifyViewerRedraw();
+		return true;
+	}
+
+	/**
+	 * Finds the neighbor that is closest to the exit and reachable without passing a wall
+	 * @return ordinal of the direction towards that neighbor, -1 if there is no neighbor closer to the exit
+	 */
+	private int getDirectionToExit(Cells cells, int x, int y) {
+		int result = -1;
+		int best = distance.getDistance(x, y);
+		for (int dir = 0; dir != 4; dir++) {
+			CardinalDirection cd = CardinalDirection.fromOrdinal(dir);
+			int nx = x + cd.dx();
+			int ny = y + cd.dy();
+			if (nx < 0 || nx >= width || ny < 0 || ny >= height || cells.hasWall(x, y, cd))
+				continue;
+			int d = distance.getDistance(nx, ny);
+			if (d < best) {
+				best = d;
+				result = dir;
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Determines how to turn to face a target direction
+	 * @param current direction the robot is facing
+	 * @param target direction the robot should face
+	 * @return turn to perform, null if the robot already faces the target direction
+	 */
+	static Turn turnTowards(CardinalDirection current, CardinalDirection target) {
+		switch ((target.ordinal() - current.ordinal()) & 3) {
+		case 1:
+			return Turn.RIGHT; // ordinals are in clockwise order
+		case 2:
+			return Turn.AROUND;
+		case 3:
+			return Turn.LEFT;
+		default:
+			return null;
+		}
+	}
+
+	@Override
+	public float getEnergyConsumption() {
+		return initialEnergy - robot.getBatteryLevel();
+	}
+
+	@Override
+	public int getPathLength() {
+		return pathLength;
+	}
+}
@@ -23,10 +23,18 @@ public class BSPBuilder {
 	private final int expectedPartiters ; 	// comes from Constants partct array, entry chosen according to skill level
 	// only usage is in updateProgressBar to estimate progress made in the BSP tree construction
 	int partiters = 0 ; // relocated from MazeBuilder attribute partiters here. 
-	private final Order order ; 		// current order
+	private final ProgressSink progress ; 	// receives progress updates, may be null
+	private final CancellationToken token ; // checked regularly to stop if the order is cancelled
+	// optional: lines that are likely to make good partitions, indexed by x or y coordinate in cells
+	private boolean[] verticalHints ;
+	private boolean[] horizontalHints ;
+	// statistics on the resulting tree
+	private int segmentCount ;	// number of segments created, including those from splits
+	private int nodeCount ;		// number of nodes created
 	/**
 	 * Constructor
-	 * @param order
+	 * @param progress receives progress updates, may be null
+	 * @param token to check for cancellation
 	 * @param dists
 	 * @param cells
 	 * @param width
@@ -34,9 +42,10 @@ public class BSPBuilder {
 	 * @param colchange
 	 * @param expectedPartiters
 	 */
-	public BSPBuilder(Order order, Distance dists, Cells cells, int width, int height, int colchange, int expectedPartiters) {
+	public BSPBuilder(ProgressSink progress, CancellationToken token, Distance dists, Cells cells, int width, int height, int colchange, int expectedPartiters) {
 		super() ;
-		this.order = order ;
+		this.progress = progress ;
+		this.token = token ;
 		this.dists = dists ;
 		this.cells = cells ;
 		this.width = width ;
@@ -47,6 +56,18 @@ public class BSPBuilder {
 		partiters = 0 ; // counter for keeping track of progress made in BSP calculation, starts at 0
 	}
 
+	/**
+	 * Sets lines that are likely to make good partitions, e.g. long walls that a builder 
+	 * created on purpose. If a segment on such a line is available, it is used 
+	 * as the partition without grading other candidates.
+	 * @param verticalHints entry x is true for the vertical line at the left side of cells with x coordinate x, 0 <= x <= width
+	 * @param horizontalHints entry y is true for the horizontal line at the top side of cells with y coordinate y, 0 <= y <= height
+	 */
+	public void setPartitionHints(boolean[] verticalHints, boolean[] horizontalHints) {
+		this.verticalHints = verticalHints ;
+		this.horizontalHints = horizontalHints ;
+	}
+
 	/**
 	 * Method generates the nodes. In every node, it has two section, left and right. It chooses the segment
 	 * which has the minimum grade value and then split this node into two nodes through this segment.
@@ -56,9 +77,12 @@ public class BSPBuilder {
 	 * @throws InterruptedException 
 	 */
 	private BSPNode genNodes(ArrayList<Seg> sl) throws InterruptedException {
+		token.checkpoint() ;
 		// if there is no segment with a partition bit set to false, there is nothing else to do and we are at a leaf node
-		if (countNonPartitions(sl) == 0)
+		if (countNonPartitions(sl) == 0) {
+			nodeCount++;
 			return new BSPLeaf(sl);
+		}
 		// from the ones that have a partition bit set to false, pick a candidate with a low grade
 		Seg pe = findPartitionCandidate(sl);
 		// work on segment pe
@@ -97,6 +121,7 @@ public class BSPBuilder {
 					//Seg sps2 = new Seg(spx, spy, sendx-spx, sendy-spy, se.dist, colchange);
 					Seg sps1 = new Seg(se.getStartPositionX(), se.getStartPositionY(), spx-se.getStartPositionX(), spy-se.getStartPositionY(), se.getDistance(), colchange);
 					Seg sps2 = new Seg(spx, spy, sendx-spx, sendy-spy, se.getDistance(), colchange);
+					segmentCount += 2;
 					if (dot1 > 0) {
 						rsl.add(sps1);
 						lsl.add(sps2);
@@ -122,6 +147,7 @@ public class BSPBuilder {
 				dbg("error xx 1 "+dot1);
 			}
 		}
+		nodeCount++;
 		if (lsl.size() == 0)
 			return new BSPLeaf(rsl);
 		if (rsl.size() == 0)
@@ -158,6 +184,17 @@ public class BSPBuilder {
 		int skip = (sl.size() / maxtries);
 		if (skip == 0)
 			skip = 1;
+		if (null != verticalHints) {
+			pe = findHintedSegment(sl);
+			if (null != pe) {
+				// account for the candidates that were not graded such that the progress bar moves on
+				int before = partiters;
+				partiters += Math.min(sl.size(), maxtries);
+				if ((before >>> 5) != (partiters >>> 5))
+					updateProgressBar(partiters);
+				return pe;
+			}
+		}
 		for (int i = 0; i < sl.size(); i += skip) {
 			Seg pk = (Seg) sl.get(i);
 			// skip segments where the partition flag was set
@@ -179,19 +216,43 @@ public class BSPBuilder {
 	}
 
 	/**
-	 * Push information on progress into maze such that UI can update progress bar
+	 * Finds the longest segment that is not partitioned yet and lies on a hinted line.
+	 * @param sl vector of segments
+	 * @return segment, null if there is none
+	 */
+	private Seg findHintedSegment(ArrayList<Seg> sl) {
+		Seg result = null ;
+		int longest = 0 ;
+		for (int i = 0; i != sl.size(); i++) {
+			Seg se = sl.get(i);
+			if (se.isPartition())
+				continue;
+			boolean hinted ;
+			if (se.getExtensionX() == 0)
+				hinted = verticalHints[se.getStartPositionX()/Constants.MAP_UNIT] ;
+			else
+				hinted = horizontalHints[se.getStartPositionY()/Constants.MAP_UNIT] ;
+			int length = Math.abs(se.getExtensionX()) + Math.abs(se.getExtensionY()) ;
+			if (hinted && length > longest) {
+				longest = length ;
+				result = se ;
+			}
+		}
+		return result ;
+	}
+
+	/**
+	 * Push information on progress into maze such that UI can update progress bar.
+	 * Doubles as a checkpoint for cancellation.
 	 * @param partiters
 	 */
 	private void updateProgressBar(int partiters) throws InterruptedException {
 		// During maze generation, the most time consuming part needs to occasionally update the current screen
-		// 
+		// the sink hands the update to another thread, so this does not slow down the computation
+		token.checkpoint() ;
 		int percentage = partiters*100/expectedPartiters ;
-		if (null != order) {
-			order.updateProgress(percentage) ;
-			if (percentage < 100) {
-				// give main thread a chance to process keyboard events
-				Thread.currentThread().sleep(10);
-			}
+		if (null != progress) {
+			progress.report(percentage) ;
 		}
 	}
 
@@ -394,15 +455,25 @@ public class BSPBuilder {
 	public BSPNode generateBSPNodes() throws InterruptedException {
 		// determine segments, i.e. walls over multiple cells in a vertical or horizontal direction
 		ArrayList<Seg> seglist = generateSegments();
+		segmentCount = seglist.size();
+		nodeCount = 0;
 
 		setPartitionBitForCertainSegments(seglist); // partition bit true means that those are not considered any further for node generation
 
-		// TODO: check why this is done. It creates a top wall on position (0,0). This may even corrupt a maze and block its exit!
-		Wall wall = new Wall(0, 0, CardinalDirection.North) ;
-		cells.addWall(wall, false);
-
 		return genNodes(seglist); // creates a data structure to quickly search for segments
 	}
+	/**
+	 * @return number of segments created by generateBSPNodes, including segments that were split
+	 */
+	public int getSegmentCount() {
+		return segmentCount;
+	}
+	/**
+	 * @return number of nodes in the tree created by generateBSPNodes
+	 */
+	public int getNodeCount() {
+		return nodeCount;
+	}
 	/**
 	 * Provides the sign of a given integer number
 	 * @param num
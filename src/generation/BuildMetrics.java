@@ -0,0 +1,128 @@
+package generation;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+
+/**
+ * Measurements for a single build of a maze.
+ * A MazeBuilder records how long each phase of the generation takes,
+ * how many bytes the builder thread allocates and the size of the resulting BSP tree.
+ * Metrics are only recorded if a BuildMetricsListener is set, otherwise
+ * the builder does not create an instance of this class at all.
+ */
+public class BuildMetrics {
+	/**
+	 * Phases of a build in the order they are performed by MazeBuilder.run
+	 */
+	public enum Phase { ROOMS, PATHWAYS, DISTANCES, BSP } ;
+
+	private final Order.Builder builder ;
+	private final int skill ;
+	private final boolean perfect ;
+	private final long[] phaseNanos = new long[Phase.values().length] ;
+	private final long start ; 			// time stamp when the build started
+	private final long startAllocated ;	// allocated bytes of builder thread when the build started, -1 if unknown
+	private long phaseStart ;			// time stamp when the current phase started
+	private long totalNanos ;
+	private long allocatedBytes = -1 ; 	// -1 if the JVM does not support allocation counting
+	private int segments ;
+	private int nodes ;
+
+	/**
+	 * Constructor, starts the measurement
+	 */
+	public BuildMetrics(Order.Builder builder, int skill, boolean perfect) {
+		this.builder = builder ;
+		this.skill = skill ;
+		this.perfect = perfect ;
+		start = System.nanoTime() ;
+		phaseStart = start ;
+		startAllocated = getThreadAllocatedBytes() ;
+	}
+
+	/**
+	 * Starts measuring a new phase
+	 */
+	void startPhase() {
+		phaseStart = System.nanoTime() ;
+	}
+	/**
+	 * Records the time since the last call of startPhase or endPhase for the given phase.
+	 * The next phase starts right away.
+	 */
+	void endPhase(Phase phase) {
+		final long now = System.nanoTime() ;
+		phaseNanos[phase.ordinal()] += now - phaseStart ;
+		phaseStart = now ;
+	}
+	/**
+	 * Completes the measurement
+	 * @param segments is the number of segments in the BSP tree including those created by splits
+	 * @param nodes is the number of nodes in the BSP tree
+	 */
+	void finish(int segments, int nodes) {
+		totalNanos = System.nanoTime() - start ;
+		this.segments = segments ;
+		this.nodes = nodes ;
+		if (startAllocated >= 0)
+			allocatedBytes = getThreadAllocatedBytes() - startAllocated ;
+	}
+
+	/**
+	 * Gives the number of bytes allocated by the current thread so far if the JVM supports it.
+	 * @return bytes, -1 if not supported
+	 */
+	static long getThreadAllocatedBytes() {
+		ThreadMXBean bean = ManagementFactory.getThreadMXBean() ;
+		if (bean instanceof com.sun.management.ThreadMXBean) {
+			com.sun.management.ThreadMXBean b = (com.sun.management.ThreadMXBean) bean ;
+			if (b.isThreadAllocatedMemorySupported() && b.isThreadAllocatedMemoryEnabled())
+				return b.getThreadAllocatedBytes(Thread.currentThread().getId()) ;
+		}
+		return -1 ;
+	}
+
+	public Order.Builder getBuilder() {
+		return builder ;
+	}
+	public int getSkillLevel() {
+		return skill ;
+	}
+	public boolean isPerfect() {
+		return perfect ;
+	}
+	public long getPhaseNanos(Phase phase) {
+		return phaseNanos[phase.ordinal()] ;
+	}
+	/**
+	 * @return duration of the whole build including breaks between phases in nanoseconds
+	 */
+	public long getTotalNanos() {
+		return totalNanos ;
+	}
+	/**
+	 * @return bytes allocated by the builder thread, -1 if unknown
+	 */
+	public long getAllocatedBytes() {
+		return allocatedBytes ;
+	}
+	public int getSegmentCount() {
+		return segments ;
+	}
+	public int getNodeCount() {
+		return nodes ;
+	}
+
+	@Override
+	public String toString() {
+		StringBuilder sb = new StringBuilder() ;
+		sb.append(builder).append(" skill ").append(skill).append(perfect ? " perfect" : "") ;
+		sb.append(": total ").append(totalNanos / 1000000).append(" ms") ;
+		for (Phase p : Phase.values())
+			sb.append(", ").append(p).append(' ').append(phaseNanos[p.ordinal()] / 1000000).append(" ms") ;
+		sb.append(", ").append(segments).append(" segments, ").append(nodes).append(" nodes") ;
+		if (allocatedBytes >= 0)
+			sb.append(", ").append(allocatedBytes / 1024).append(" KB allocated") ;
+		return sb.toString() ;
+	}
+}
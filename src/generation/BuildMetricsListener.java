@@ -0,0 +1,16 @@
+package generation;
+
+/**
+ * A listener that receives the measurements for each completed build.
+ * It is set on the MazeFactory which passes it on to its builders.
+ * The method is called on the builder thread after delivery of the maze,
+ * so implementations should be quick and thread-safe.
+ */
+public interface BuildMetricsListener {
+	/**
+	 * Called once per build after the maze has been delivered.
+	 * Cancelled builds are not reported.
+	 * @param metrics for the completed build
+	 */
+	void buildCompleted(BuildMetrics metrics) ;
+}
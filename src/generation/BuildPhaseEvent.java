@@ -0,0 +1,30 @@
+package generation;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Flight recorder event for a single phase of a maze build,
+ * see BuildMetrics.Phase for the possible phases.
+ * Events are only recorded while a recording with this event enabled is running.
+ */
+@Name("maze.BuildPhase")
+@Label("Maze Build Phase")
+@Category({ "Maze", "Generation" })
+@Description("A phase of the generation of a maze by a MazeBuilder")
+public class BuildPhaseEvent extends Event {
+	@Label("Phase")
+	String phase ;
+
+	@Label("Builder")
+	String builder ;
+
+	@Label("Skill Level")
+	int skill ;
+
+	@Label("Perfect")
+	boolean perfect ;
+}
@@ -0,0 +1,38 @@
+package generation;
+
+/**
+ * A flag that tells a builder to stop working on its current order.
+ *
+ * The MazeFactory cancels the token of a builder when the user aborts a maze generation.
+ * The builder checks the token at checkpoints in its loops, which is a plain read
+ * of a volatile field and cheap enough to do on every iteration.
+ * A checkpoint also recognizes an interrupt of the builder thread,
+ * e.g. when a pool of background builders is shut down.
+ */
+public class CancellationToken {
+	private volatile boolean cancelled ;
+
+	/**
+	 * Requests the holder of this token to stop. 
+	 * The request is recognized at the next checkpoint.
+	 */
+	public void cancel() {
+		cancelled = true ;
+	}
+
+	/**
+	 * @return true if cancel was called or the current thread has been interrupted
+	 */
+	public boolean isCancelled() {
+		return cancelled || Thread.currentThread().isInterrupted() ;
+	}
+
+	/**
+	 * Checks if the computation should stop.
+	 * @throws InterruptedException if cancel was called or the current thread has been interrupted
+	 */
+	public void checkpoint() throws InterruptedException {
+		if (isCancelled())
+			throw new InterruptedException("cancelled") ;
+	}
+}
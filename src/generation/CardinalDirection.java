@@ -11,6 +11,10 @@ import falstad.SingleRandom;
  * Several translation methods between cardinal directions and CW constants and 
  * dx,dy pairs are supported to facilitate its integration in current code base.
  * 
+ * For code that runs in inner loops, a direction can also be represented by its ordinal.
+ * The static methods dx, dy and fromOrdinal work on ordinals with table lookups 
+ * and do not allocate any objects. Rotation by 90 degree clockwise is (ordinal+1)&3.
+ * 
  * States: March 2016, coded, needs integration and testing
  * 
  * @author pk
@@ -18,24 +22,65 @@ import falstad.SingleRandom;
  */
 public enum CardinalDirection {
 	North, East, South, West ;
+	// lookup tables indexed by ordinal, order of values is clockwise
+	private static final CardinalDirection[] VALUES = values() ;
+	private static final int[] DX = { 0, 1, 0, -1 } ;
+	private static final int[] DY = { -1, 0, 1, 0 } ;
+	private static final int[] CW = { Constants.CW_TOP, Constants.CW_RIGHT, Constants.CW_BOT, Constants.CW_LEFT } ;
+
+	/**
+	 * Gives the direction for the given ordinal without allocating an array as values() does.
+	 * @param ordinal 0 <= ordinal < 4
+	 * @return direction with the given ordinal
+	 */
+	public static CardinalDirection fromOrdinal(int ordinal) {
+		return VALUES[ordinal] ;
+	}
+	/**
+	 * Gives the x component of the (dx,dy) pair for the direction with the given ordinal
+	 * @param ordinal 0 <= ordinal < 4
+	 * @return dx as in Constants.DIRS_X
+	 */
+	public static int dx(int ordinal) {
+		return DX[ordinal] ;
+	}
+	/**
+	 * Gives the y component of the (dx,dy) pair for the direction with the given ordinal
+	 * @param ordinal 0 <= ordinal < 4
+	 * @return dy as in Constants.DIRS_Y
+	 */
+	public static int dy(int ordinal) {
+		return DY[ordinal] ;
+	}
+	/**
+	 * Gives the bit encoded value (CW_ constant) for the direction with the given ordinal
+	 * @param ordinal 0 <= ordinal < 4
+	 * @return matching CW_TOP, CW_RIGHT, CW_BOT or CW_LEFT constant
+	 */
+	public static int cw(int ordinal) {
+		return CW[ordinal] ;
+	}
+	/**
+	 * Gives the x component of the (dx,dy) pair for the current direction
+	 * @return dx as in Constants.DIRS_X
+	 */
+	public int dx() {
+		return DX[ordinal()] ;
+	}
+	/**
+	 * Gives the y component of the (dx,dy) pair for the current direction
+	 * @return dy as in Constants.DIRS_Y
+	 */
+	public int dy() {
+		return DY[ordinal()] ;
+	}
 	/** 
 	 * Gives the direction that results from a 90 degree clockwise rotation
 	 * applied to the current direction. 
 	 * @return direction after 90 degree clockwise rotation
 	 */
 	public CardinalDirection rotateClockwise() {
-		switch(this) {
-		case North : 
-			return CardinalDirection.East ;
-		case East : 
-			return CardinalDirection.South ;
-		case South : 
-			return CardinalDirection.West ;
-		case West : 
-			return CardinalDirection.North ;
-		default:
-			throw new RuntimeException("Inconsistent enum type") ;
-		}
+		return VALUES[(ordinal()+1) & 3] ;
 	}
 	/** 
 	 * Gives the direction that results from a 90 degree counter clockwise rotation
@@ -43,18 +88,7 @@ public enum CardinalDirection {
 	 * @return direction after 90 degree counter clockwise rotation
 	 */
 	public CardinalDirection rotateCounterClockwise(){
-		switch(this) {
-		case North:
-			return CardinalDirection.West;
-		case East:
-			return CardinalDirection.North;
-		case West:
-			return CardinalDirection.South;
-		case South:
-			return CardinalDirection.East;
-		default:
-			throw new RuntimeException("Inconsistent enum type");
-		}
+		return VALUES[(ordinal()+3) & 3] ;
 	}
 
 	/** 
@@ -63,37 +97,15 @@ public enum CardinalDirection {
 	 * @return direction that is opposite to the current direction
 	 */
 	public CardinalDirection oppositeDirection() {
-		switch(this) {
-		case North : 
-			return CardinalDirection.South ;
-		case East : 
-			return CardinalDirection.West ;
-		case South : 
-			return CardinalDirection.North ;
-		case West : 
-			return CardinalDirection.East ;
-		default:
-			throw new RuntimeException("Inconsistent enum type") ;
-		}
+		return VALUES[(ordinal()+2) & 3] ;
 	}
 	/**
 	 * Gives a random direction. Values are picked with equal probabilities.
 	 * @return a random direction, distribution is uniform
 	 */
 	public CardinalDirection randomDirection() {
-		int i = SingleRandom.getRandom().nextIntWithinInterval(0, 3) ;
-		switch(i) {
-		case 0 : 
-			return CardinalDirection.North ;
-		case 1 : 
-			return CardinalDirection.East ;
-		case 2 : 
-			return CardinalDirection.South ;
-		case 3 : 
-			return CardinalDirection.West ;
-		default:
-			throw new RuntimeException("Random variable out of bounds: " + i) ;
-		}
+		// 0..3 maps to North, East, South, West
+		return VALUES[SingleRandom.getRandom().nextIntWithinInterval(0, 3)] ;
 	}
 	
 	/**
@@ -132,24 +144,7 @@ public enum CardinalDirection {
 	 * @return the matching integer value (CW_ constant)
 	 */ 
 	public int getCWConstantForDirection() {
-		/* compare with Constants.java for consistency
-		static final int CW_TOP = 1;  // 2^0
-		static final int CW_BOT = 2;  // 2^1
-		static final int CW_LEFT = 4; // 2^2
-		static final int CW_RIGHT = 8;// 2^3
-		 */
-		switch(this) {
-		case North : 
-			return Constants.CW_TOP ;
-		case East : 
-			return Constants.CW_RIGHT ;
-		case South : 
-			return Constants.CW_BOT ;
-		case West : 
-			return Constants.CW_LEFT ;
-		default:
-			throw new RuntimeException("Unsupported value in enum type") ;
-		}
+		return CW[ordinal()] ;
 	}
 	/**
 	 * Gives the matching direction for array position index in Constants.DIRS arrays.
@@ -204,7 +199,8 @@ public enum CardinalDirection {
 		}
 	}
 	/**
-	 * Gives the (dx,dy) pair as in Constants.DIRS arrays for the current direction
+	 * Gives the (dx,dy) pair as in Constants.DIRS arrays for the current direction.
+	 * Allocates a new array with each call, use dx() and dy() in inner loops.
 	 * @return (dx,dy) pair from DIRS_X, DIRS_Y
 	 */
 	public int[] getDirection() {
@@ -213,27 +209,6 @@ public enum CardinalDirection {
 		public static int[] DIRS_X = { 1, 0, -1, 0 };
 		public static int[] DIRS_Y = { 0, 1, 0, -1 };
 		 */
-		int[] result = new int[2] ;
-		switch(this) {
-		case North : 
-			result[0] = 0 ;
-			result[1] = -1 ;
-			break ;
-		case East : 
-			result[0] = 1 ;
-			result[1] = 0 ;
-			break ;
-		case South : 
-			result[0] = 0 ;
-			result[1] = 1 ;
-			break ;
-		case West : 
-			result[0] = -1 ;
-			result[1] = 0 ;
-			break ;
-		default:
-			throw new RuntimeException("Inconsistent enum type") ;
-		}
-		return result ;
+		return new int[] { DX[ordinal()], DY[ordinal()] } ;
 	}
 }
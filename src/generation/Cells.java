@@ -1,8 +1,5 @@
 package generation;
 
-import java.io.BufferedWriter;
-import java.io.FileWriter;
-
 import falstad.Constants;
 import falstad.SingleRandom;
 
@@ -37,6 +34,7 @@ public class Cells {
 	public int width;
 	public int height ;
 	private int[][] cells; // width x height array of cells, cells[width][height]
+	private GenerationEvents events ; // receives deleted walls while a builder works on these cells, null otherwise
 	// each cell contains an integer which encodes presence/absence of walls
 	// cells[i][j] can be read as (i,j) coordinates much like (x,y) coordinates
 	// where the first dimension x grows towards the right and 
@@ -128,14 +126,27 @@ public class Cells {
 		return true ;
 	}
 	/**
-	 * Hashcode method is not implemented as it is not needed here.
-	 * Dummy method to recognize common pitfall from overriding equals() but 
-	 * not hashcode() method.
+	 * Hashcode is consistent with equals as it covers dimensions and all cell values.
+	 * It folds the 64 bit value of a MazeHash into an int.
 	 */
 	@Override
 	public int hashCode() {
-		  assert false : "hashCode not designed";
-		  return 42; // any arbitrary constant will do
+		MazeHash h = new MazeHash() ;
+		h.add(width) ;
+		h.add(height) ;
+		addTo(h) ;
+		long value = h.getValue() ;
+		return (int)(value ^ (value >>> 32)) ;
+	}
+	/**
+	 * Adds the values of all cells to a hash, column by column.
+	 * @param h the hash to add to
+	 */
+	void addTo(MazeHash h) {
+		for (int i = 0; i < width; i++) {
+			for (int j = 0; j < height; j++)
+				h.add(cells[i][j]) ;
+		}
 	}
 	/**
 	 * Get the value of a cell at the given position (x,y).
@@ -160,9 +171,9 @@ public class Cells {
 	public boolean canGo(Wall wall) {
 		int x = wall.getX();
 		int y = wall.getY();
-		int[] d = wall.getDirection().getDirection() ;
-		int dx = d[0];
-		int dy = d[1];
+		CardinalDirection cd = wall.getDirection() ;
+		int dx = cd.dx();
+		int dy = cd.dy();
 		// borders limit rooms (but for doors) and the outside limit of the maze
 		if (hasBorder(x, y, dx, dy))
 			return false;
@@ -171,12 +182,40 @@ public class Cells {
 		return isFirstVisit(x+dx, y+dy);
 	}
 	
+	/**
+	 * Same as canGo(x, y, dir) but with the direction given as the ordinal of a CardinalDirection.
+	 * Does not allocate any objects, meant for inner loops of maze builders.
+	 * @param x coordinate of cell
+	 * @param y coordinate of cell
+	 * @param dir ordinal of the cardinal direction
+	 * @precondition 0 <= x < width, 0 <= y < height, 0 <= dir < 4
+	 * @return true if neighbor in the given direction is new and wall can be taken down, false otherwise
+	 */
+	public boolean canGo(int x, int y, int dir) {
+		if (hasMaskedBitsTrue(x, y, CardinalDirection.cw(dir) << Constants.CW_BOUND_SHIFT))
+			return false;
+		return isFirstVisit(x+CardinalDirection.dx(dir), y+CardinalDirection.dy(dir));
+	}
+	
+	/**
+	 * Tells if the wall of cell (x,y) in the given direction can be taken down, i.e. it is not a border.
+	 * Same as canBreak(wall) but does not allocate any objects.
+	 * @param x coordinate of cell
+	 * @param y coordinate of cell
+	 * @param dir ordinal of the cardinal direction
+	 * @precondition 0 <= x < width, 0 <= y < height, 0 <= dir < 4
+	 * @return true if there is no border in the given direction, false otherwise
+	 */
+	public boolean canBreak(int x, int y, int dir) {
+		return !hasMaskedBitsTrue(x, y, CardinalDirection.cw(dir) << Constants.CW_BOUND_SHIFT);
+	}
+	
 	public boolean canBreak(Wall wall) { // same as canGo method except it returns true rather than isFirstVisited
 		int x = wall.getX();
 		int y = wall.getY();
-		int[] d = wall.getDirection().getDirection() ;
-		int dx = d[0];
-		int dy = d[1];
+		CardinalDirection cd = wall.getDirection() ;
+		int dx = cd.dx();
+		int dy = cd.dy();
 		// borders limit rooms (but for doors) and the outside limit of the maze
 		if (hasBorder(x, y, dx, dy))
 			return false;
@@ -486,12 +525,12 @@ public class Cells {
 	public void addWall(Wall wall, boolean internalWall) {
 		int x = wall.getX();
 		int y = wall.getY();
-		int[] d = wall.getDirection().getDirection() ;
+		CardinalDirection cd = wall.getDirection() ;
 		// add wall on (x,y)
-		setWallToOne(x, y, d[0], d[1]);
+		setWallToOne(x, y, cd.dx(), cd.dy());
 		// add same wall but for adjacent cell
 		if (internalWall)
-			setWallToOne(x+d[0], y+d[1], -d[0], -d[1]);
+			setWallToOne(x+cd.dx(), y+cd.dy(), -cd.dx(), -cd.dy());
 	}
 
 	/**
@@ -503,9 +542,9 @@ public class Cells {
 	public void deleteWall(Wall wall) {
 		int x = wall.getX();
 		int y = wall.getY();
-		int[] d = wall.getDirection().getDirection() ;
-		int dx = d[0];
-		int dy = d[1];
+		CardinalDirection cd = wall.getDirection() ;
+		int dx = cd.dx();
+		int dy = cd.dy();
 		// delete wall on (x,y)
 		setWallToZero(x, y, dx, dy);
 		// delete same wall but for adjacent cell
@@ -514,6 +553,33 @@ public class Cells {
 		if (deepdebugWall) // for debugging: track sequence of walls that are deleted
 			logWall( x,  y,  dx,  dy);
 		/////////////////// END OF SPECIAL CODE FOR GRADING //////////////////////////////////////////////////////////////
+		if (null != events)
+			events.wall(x, y, cd.ordinal());
+	}
+	/**
+	 * Same as deleteWall(wall) but with the wall given as a position and the ordinal of a CardinalDirection.
+	 * Does not allocate any objects, meant for inner loops of maze builders.
+	 * @param x coordinate of cell
+	 * @param y coordinate of cell
+	 * @param dir ordinal of the cardinal direction
+	 */
+	public void deleteWall(int x, int y, int dir) {
+		int dx = CardinalDirection.dx(dir);
+		int dy = CardinalDirection.dy(dir);
+		setBitToZero(x, y, CardinalDirection.cw(dir));
+		setBitToZero(x+dx, y+dy, CardinalDirection.cw((dir+2) & 3));
+		// same log as for deleteWall(wall)
+		if (deepdebugWall)
+			logWall( x,  y,  dx,  dy);
+		if (null != events)
+			events.wall(x, y, dir);
+	}
+	/**
+	 * Sets the receiver of deleted walls, used by a builder with a GenerationListener.
+	 * @param events receiver, null to stop reporting
+	 */
+	void setGenerationEvents(GenerationEvents events) {
+		this.events = events ;
 	}
 
 	//////////////////// get methods (is..., has...) for various attributes ///////////////////////
@@ -631,7 +697,7 @@ public class Cells {
 	// flag to trigger that a log is constructed that lists the sequence of walls that are deleted
 	public static boolean deepdebugWall = false;
 	public static final String deepedebugWallFileName = "logDeletedWalls.txt" ;
-	StringBuffer traceWall = (deepdebugWall) ? new StringBuffer("x  y  dx  dy\n") : null ;
+	WallLog traceWall = (deepdebugWall) ? new WallLog() : null ;
 
 	/**
 	 * Append wall information to logging data. Currently used to log the sequence of walls that are deleted in the maze generation phase
@@ -643,7 +709,7 @@ public class Cells {
 	private void logWall(int x, int y, int dx, int dy) {
 		if (null != traceWall)
 		{
-			traceWall.append(x + " " + y + " " + dx + " " + dy + "\n");
+			traceWall.add(x, y, dx, dy);
 		}
 	}
 	/**
@@ -653,11 +719,16 @@ public class Cells {
 	public void saveLogFile( String filename )
 	{
 		try {  
- 			BufferedWriter out = new BufferedWriter(new FileWriter(filename));  
-	        out.write(traceWall.toString());   
-	        out.close(); 
+			traceWall.save(filename);
         } catch (Exception e) {  
             e.printStackTrace();
         }  
 	}
+	/**
+	 * Gives the log of deleted walls, e.g. to replay the generation step by step
+	 * @return log, null if deepdebugWall was false when these cells were created
+	 */
+	public WallLog getWallLog() {
+		return traceWall ;
+	}
 }
\ No newline at end of file
@@ -0,0 +1,48 @@
+package generation;
+
+import java.awt.Color;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Shared palette of colors for segments.
+ * Segments only store a packed RGB value, there are few distinct values
+ * across all segments of a maze. The palette maps each value to a single
+ * Color object that is shared by all segments and all mazes, such that
+ * Color objects are only created when a segment is drawn for the first time.
+ */
+public class ColorPalette {
+	// keys are packed rgb values with alpha set to opaque
+	private static final ConcurrentHashMap<Integer, Color> colors = new ConcurrentHashMap<Integer, Color>() ;
+
+	private ColorPalette() {
+		// no instances, static methods only
+	}
+
+	/**
+	 * Provides the color object for a given rgb value.
+	 * @param rgb packed as 0xAARRGGBB, alpha is ignored as segments are opaque
+	 * @return shared color object for the value
+	 */
+	public static Color getColor(int rgb) {
+		final Integer key = rgb | 0xff000000 ;
+		Color result = colors.get(key) ;
+		if (null == result) {
+			Color c = new Color(key) ;
+			result = colors.putIfAbsent(key, c) ;
+			if (null == result)
+				result = c ;
+		}
+		return result ;
+	}
+
+	/**
+	 * Packs color components into a single rgb value with an opaque alpha.
+	 * @param r red component, 0..255
+	 * @param g green component, 0..255
+	 * @param b blue component, 0..255
+	 * @return packed rgb value as used by Color.getRGB
+	 */
+	public static int toRGB(int r, int g, int b) {
+		return 0xff000000 | ((r & 0xff) << 16) | ((g & 0xff) << 8) | (b & 0xff) ;
+	}
+}
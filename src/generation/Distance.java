@@ -168,8 +168,9 @@ public class Distance {
 	 * @param cells provide information on walls between positions
 	 * @param ax, position, x coordinate
 	 * @param ay, position, y coordinate
+	 * @param token checked for cancellation once per column, may be null
 	 */
-	private void computeDists(Cells cells, int ax, int ay) {
+	private void computeDists(Cells cells, int ax, int ay, CancellationToken token) throws InterruptedException {
 		int x, y;
 		// initialize the distance array with a value for infinity 
 		setAllDistanceValues(INFINITY) ;
@@ -182,7 +183,9 @@ public class Distance {
 		do {
 			done = true;
 			// check all entries in the distance array
-			for (x = 0; x != width; x++)
+			for (x = 0; x != width; x++) {
+				if (null != token)
+					token.checkpoint();
 				for (y = 0; y != height; y++) 
 				{
 					int sx = x;
@@ -206,6 +209,7 @@ public class Distance {
 						// follow the nextn node on a depth-first-search path
 					}
 				}
+			}
 		} while (!done);
 	}
 	/**
@@ -255,13 +259,38 @@ public class Distance {
 	 * @return exit position somewhere on the  border
 	 */
 	public int[] computeDistances(Cells cells) {
+		try {
+			return computeDistances(cells, null) ;
+		} catch (InterruptedException e) {
+			// can not happen, without a token there are no checkpoints
+			throw new IllegalStateException(e) ;
+		}
+	}
+	/**
+	 * Compute distances for given cells object of a maze.
+	 * The computation stops if the given token is cancelled.
+	 * @param cells with maze
+	 * @param token checked for cancellation, may be null
+	 * @return exit position somewhere on the  border
+	 * @throws InterruptedException if the token is cancelled
+	 */
+	public int[] computeDistances(Cells cells, CancellationToken token) throws InterruptedException {
+		DistanceEvent event = new DistanceEvent();
+		event.begin();
 		// compute temporary distances for a starting point (x,y) = (width/2,height/2) 
 		// which is located in the center of the maze
-		computeDists(cells, width/2, height/2);
+		computeDists(cells, width/2, height/2, token);
 		// figure out which position is the furthest on the border to find an exit position
 		exitposition = getPositionWithMaxDistanceOnBorder();
 		// recompute distances for an exit point (x,y) = (remotex,remotey)
-		computeDists(cells, exitposition[0], exitposition[1]);
+		computeDists(cells, exitposition[0], exitposition[1], token);
+		event.end();
+		if (event.shouldCommit()) {
+			event.width = width;
+			event.height = height;
+			event.maxDistance = maxDistance;
+			event.commit();
+		}
 
 		return exitposition ;
 	}
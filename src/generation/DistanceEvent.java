@@ -0,0 +1,25 @@
+package generation;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Flight recorder event for a computation of all distances to the exit of a maze.
+ */
+@Name("maze.DistanceComputation")
+@Label("Maze Distance Computation")
+@Category({ "Maze", "Generation" })
+@Description("Computation of the distance matrix for a maze")
+public class DistanceEvent extends Event {
+	@Label("Width")
+	int width ;
+
+	@Label("Height")
+	int height ;
+
+	@Label("Maximum Distance")
+	int maxDistance ;
+}
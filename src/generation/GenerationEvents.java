@@ -0,0 +1,254 @@
+package generation;
+
+import java.util.Arrays;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Passes the steps of a maze generation from a builder to a GenerationListener.
+ *
+ * Each event is packed into a long: the type in the upper 4 bits followed by four
+ * 15 bit fields a, b, c and d, see the constants for the meaning of the fields per type.
+ * The builder collects events in an array, a full array goes as a batch into a bounded queue
+ * and a dispatcher thread that is shared by all builders hands the batches to the listener.
+ *
+ * The queue is a ring of slots that producer and dispatcher access without locking.
+ * Builders that work on several threads, like the recursive division, add events
+ * under the lock of this object, which only serializes producers among each other.
+ * If the listener falls behind and the queue is full, the builder does not wait but keeps
+ * collecting events in a larger array. Each further event tries to put that array into the queue,
+ * and the dispatcher takes it once it has emptied the queue. No event is dropped.
+ *
+ * A builder only creates this object if there is a listener, without a listener
+ * the cost is a null check per deleted wall.
+ */
+public class GenerationEvents {
+	// event types
+	public static final int WALL = 1 ; 	// wall deleted, a: x, b: y, c: ordinal of the CardinalDirection
+	public static final int ROOM = 2 ; 	// room placed, a, b: upper left cell, c, d: lower right cell
+	public static final int EXIT = 3 ; 	// exit placed, a: x, b: y
+	public static final int PHASE = 4 ; // phase starts, a: ordinal of the BuildMetrics.Phase
+	public static final int DONE = 5 ; 	// last event of a build, a: 1 if the maze was delivered, 0 if cancelled
+
+	static final int BATCH_SIZE = 512 ; // events per batch
+	static final int CAPACITY = 64 ; // batches in the queue, a power of 2
+	static final int MAX_VALUE = (1 << 15) - 1 ; // largest value of a field
+
+	private static final ExecutorService dispatcher = Executors.newSingleThreadExecutor(new ThreadFactory() {
+		@Override
+		public Thread newThread(Runnable r) {
+			Thread t = new Thread(r, "MazeEvents") ;
+			t.setDaemon(true) ;
+			return t ;
+		}
+	}) ;
+
+	private final GenerationListener listener ;
+	// producer side, guarded by this
+	private long[] buffer = new long[BATCH_SIZE] ;
+	private int count ; // number of events in buffer
+	private boolean closed ; // no more events if true
+	// queue, head is only written by the dispatcher, tail only by producers
+	private final AtomicReferenceArray<long[]> slots = new AtomicReferenceArray<long[]>(CAPACITY) ;
+	private final AtomicLong head = new AtomicLong() ;
+	private final AtomicLong tail = new AtomicLong() ;
+	private final AtomicBoolean scheduled = new AtomicBoolean() ;
+
+	private final Runnable dispatch = new Runnable() {
+		@Override
+		public void run() {
+			scheduled.set(false) ;
+			drain() ;
+		}
+	} ;
+
+	/**
+	 * Constructor
+	 * @param listener that receives the events, not null
+	 */
+	public GenerationEvents(GenerationListener listener) {
+		this.listener = listener ;
+	}
+
+	/**
+	 * Reports a deleted wall
+	 * @param x coordinate of cell
+	 * @param y coordinate of cell
+	 * @param dir ordinal of the CardinalDirection of the wall
+	 */
+	public void wall(int x, int y, int dir) {
+		add(pack(WALL, x, y, dir, 0)) ;
+	}
+
+	/**
+	 * Reports a room
+	 * @param x coordinate of upper left cell
+	 * @param y coordinate of upper left cell
+	 * @param xl coordinate of lower right cell
+	 * @param yl coordinate of lower right cell
+	 */
+	public void room(int x, int y, int xl, int yl) {
+		add(pack(ROOM, x, y, xl, yl)) ;
+	}
+
+	/**
+	 * Reports the exit position
+	 */
+	public void exit(int x, int y) {
+		add(pack(EXIT, x, y, 0, 0)) ;
+	}
+
+	/**
+	 * Reports the start of a phase
+	 */
+	public void phase(BuildMetrics.Phase phase) {
+		add(pack(PHASE, phase.ordinal(), 0, 0, 0)) ;
+	}
+
+	/**
+	 * Reports the end of the build and passes on all remaining events.
+	 * Later events are ignored.
+	 * @param delivered true if the maze was delivered, false if the build was cancelled
+	 */
+	public void close(boolean delivered) {
+		synchronized (this) {
+			if (closed)
+				return ;
+			append(pack(DONE, delivered ? 1 : 0, 0, 0, 0)) ;
+			closed = true ;
+			flush() ;
+		}
+		schedule() ;
+	}
+
+	///////////////////////// decoding ///////////////////////////////////
+	public static int getType(long event) {
+		return (int) (event >>> 60) ;
+	}
+	public static int getX(long event) {
+		return field(event, 3) ;
+	}
+	public static int getY(long event) {
+		return field(event, 2) ;
+	}
+	/**
+	 * @return x coordinate of the lower right cell of a room
+	 */
+	public static int getX2(long event) {
+		return field(event, 1) ;
+	}
+	/**
+	 * @return y coordinate of the lower right cell of a room
+	 */
+	public static int getY2(long event) {
+		return field(event, 0) ;
+	}
+	public static CardinalDirection getDirection(long event) {
+		return CardinalDirection.fromOrdinal(field(event, 1)) ;
+	}
+	public static BuildMetrics.Phase getPhase(long event) {
+		return BuildMetrics.Phase.values()[field(event, 3)] ;
+	}
+	public static boolean isDelivered(long event) {
+		return 1 == field(event, 3) ;
+	}
+
+	///////////////////////// private methods ///////////////////////////////////
+	private static long pack(int type, int a, int b, int c, int d) {
+		assert 0 <= a && a <= MAX_VALUE && 0 <= b && b <= MAX_VALUE
+				&& 0 <= c && c <= MAX_VALUE && 0 <= d && d <= MAX_VALUE : "GenerationEvents: value out of range" ;
+		return ((long) type << 60) | ((long) a << 45) | ((long) b << 30) | ((long) c << 15) | d ;
+	}
+
+	private static int field(long event, int i) {
+		return (int) (event >>> (15*i)) & MAX_VALUE ;
+	}
+
+	private synchronized void add(long event) {
+		if (!closed)
+			append(event) ;
+	}
+
+	/**
+	 * Adds an event to the buffer, passes the buffer on if it holds a batch.
+	 * If the queue is full, the buffer grows and every further event tries again.
+	 */
+	private void append(long event) {
+		if (count == buffer.length)
+			buffer = Arrays.copyOf(buffer, 2*count) ;
+		buffer[count++] = event ;
+		if (count >= BATCH_SIZE)
+			flush() ;
+	}
+
+	/**
+	 * Puts the buffer into the queue
+	 * @return true if the buffer is empty now, false if the queue is full
+	 */
+	private boolean flush() {
+		if (0 == count)
+			return true ;
+		final long t = tail.get() ;
+		if (t - head.get() == CAPACITY)
+			return false ;
+		slots.set((int) t & (CAPACITY-1), (count == buffer.length) ? buffer : Arrays.copyOf(buffer, count)) ;
+		tail.set(t+1) ;
+		buffer = new long[BATCH_SIZE] ;
+		count = 0 ;
+		schedule() ;
+		return true ;
+	}
+
+	private void schedule() {
+		// at most one dispatch is pending, it takes all batches that are queued by then
+		if (scheduled.compareAndSet(false, true))
+			dispatcher.execute(dispatch) ;
+	}
+
+	/**
+	 * Hands all queued batches to the listener, on the dispatcher thread.
+	 * Events that did not fit into the queue follow the queued ones, as do the remaining events after close.
+	 */
+	private void drain() {
+		while (true) {
+			long[] batch = poll() ;
+			if (null == batch) {
+				synchronized (this) {
+					// producers can not add while the lock is held, so this is the last look
+					batch = poll() ;
+					if (null == batch) {
+						if (0 == count || (!closed && count < BATCH_SIZE))
+							return ;
+						batch = Arrays.copyOf(buffer, count) ;
+						buffer = new long[BATCH_SIZE] ;
+						count = 0 ;
+					}
+				}
+			}
+			try {
+				listener.generationEvents(batch) ;
+			} catch (RuntimeException e) {
+				System.out.println("GenerationEvents: listener failed: " + e) ;
+			}
+		}
+	}
+
+	/**
+	 * Takes the oldest batch from the queue
+	 * @return batch, null if the queue is empty
+	 */
+	private long[] poll() {
+		final long h = head.get() ;
+		if (h == tail.get())
+			return null ;
+		final int i = (int) h & (CAPACITY-1) ;
+		final long[] batch = slots.get(i) ;
+		slots.set(i, null) ;
+		head.set(h+1) ;
+		return batch ;
+	}
+}
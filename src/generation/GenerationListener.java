@@ -0,0 +1,19 @@
+package generation;
+
+/**
+ * A listener that follows the generation of a maze step by step,
+ * e.g. to animate it or to stream a partial maze to a client.
+ * It is set on the MazeFactory which passes it on to its builders.
+ *
+ * Events arrive in batches on a dispatcher thread, never on the builder thread,
+ * in the order they happened. See GenerationEvents for how to decode them.
+ * A slow listener delays later batches but never the builder.
+ */
+public interface GenerationListener {
+	/**
+	 * Called with the next batch of events of the current build.
+	 * The last event of a build has type GenerationEvents.DONE.
+	 * @param events packed events, the array belongs to the listener
+	 */
+	void generationEvents(long[] events) ;
+}
@@ -0,0 +1,74 @@
+package generation;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A histogram for durations in nanoseconds with buckets of exponentially increasing size.
+ * Bucket i holds values v with 2^(i-1) <= v < 2^i, such that 64 buckets cover all
+ * positive long values with a relative error of at most a factor of 2 per value.
+ * Recording is lock-free and can be done by multiple threads at once.
+ */
+public class LatencyHistogram {
+	private final AtomicLongArray buckets = new AtomicLongArray(64) ;
+	private final AtomicLong count = new AtomicLong() ;
+	private final AtomicLong sum = new AtomicLong() ;
+	private final AtomicLong max = new AtomicLong() ;
+
+	/**
+	 * Records a single value
+	 * @param nanos is a duration, negative values count as 0
+	 */
+	public void record(long nanos) {
+		if (nanos < 0)
+			nanos = 0 ;
+		buckets.incrementAndGet(Math.min(63, 64 - Long.numberOfLeadingZeros(nanos))) ;
+		count.incrementAndGet() ;
+		sum.addAndGet(nanos) ;
+		long m = max.get() ;
+		while (nanos > m && !max.compareAndSet(m, nanos))
+			m = max.get() ;
+	}
+
+	public long getCount() {
+		return count.get() ;
+	}
+	/**
+	 * @return mean of all recorded values, 0 if there are none
+	 */
+	public double getMean() {
+		long n = count.get() ;
+		return (0 == n) ? 0 : (double) sum.get() / n ;
+	}
+	public long getMax() {
+		return max.get() ;
+	}
+	/**
+	 * Gives an upper bound for the given percentile.
+	 * @param percentile in the range [0,100]
+	 * @return upper bound of the bucket that holds the percentile, 0 if no values are recorded
+	 */
+	public long getPercentile(double percentile) {
+		long n = count.get() ;
+		if (0 == n)
+			return 0 ;
+		long rank = (long) Math.ceil(n * percentile / 100) ;
+		long seen = 0 ;
+		for (int i = 0 ; i < 64 ; i++) {
+			seen += buckets.get(i) ;
+			if (seen >= rank && seen > 0)
+				return Math.min(max.get(), (i < 63) ? (1L << i) - 1 : Long.MAX_VALUE) ;
+		}
+		return max.get() ;
+	}
+	/**
+	 * Removes all recorded values
+	 */
+	public void reset() {
+		for (int i = 0 ; i < 64 ; i++)
+			buckets.set(i, 0) ;
+		count.set(0) ;
+		sum.set(0) ;
+		max.set(0) ;
+	}
+}
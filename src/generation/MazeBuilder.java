@@ -19,6 +19,7 @@ public class MazeBuilder implements Runnable {
 	protected int width, height ; 	// width and height of maze, 
 	private int rooms; 		// requested number of rooms in maze, a room is an area with no walls larger than a single cell
 	private int expectedPartiters; 	// user given limit for partiters
+	private RoomIndex roomIndex ; // area covered by rooms, only used during room generation
 	
 	// Produced output information to create the new maze
 	// root, cells, dists, startx, starty
@@ -33,36 +34,71 @@ public class MazeBuilder implements Runnable {
 
 	// class internal local variables
 	protected SingleRandom random ; // random number stream, used to make randomized decisions, e.g for direction to go
+	private final boolean deterministic ; // if true, the same seed gives the same maze 
+	private int seed = DEFAULT_SEED ; // seed for random numbers in deterministic mode
+	// optional: receives time measurements for each build, no measurements are taken if null
+	private BuildMetricsListener metricsListener ;
+	// optional: follows the generation step by step, no events are produced if null
+	private GenerationListener generationListener ;
+	private GenerationEvents events ; // events of the current build, null if there is no listener
+	private boolean validation ; // if true, each maze is checked by the MazeValidator before delivery
+	protected BuildMetrics metrics ; // measurements for the current build, null if disabled
 	Order order; // describes what is wanted, e.g. a perfect maze or not
+	protected CancellationToken token ; // checked in loops, set by the factory if the user cancels the order
+	private ProgressSink progress ; // passes progress on to the order without slowing down the builder
 	
 	// constants
-	static final long SLEEP_INTERVAL = 100 ; //constant used for brief breaks to recognize interrupted signal, unit is millisecond
 	static final int MAX_TRIES = 250 ; // room generation: max number of tries to find a random location for a room
 	static final int MIN_ROOM_DIMENSION = 3; // room generation: min dimension
 	static final int MAX_ROOM_DIMENSION = 8; // room generation: max dimension
+	public static final int DEFAULT_SEED = 5; // deterministic mode: seed if none is given
 
 	/**
 	 * Constructor for a randomized maze generation
 	 */
 	public MazeBuilder(){
+		deterministic = false;
 		random = SingleRandom.getRandom();
 	}
 	/**
 	 * Constructor with option to make maze generation deterministic or random
 	 */
 	public MazeBuilder(boolean deterministic){
-		if (true == deterministic)
-		{
-			// Control random number generation
-			System.out.println("Assignment: functionality to make maze generation deterministic not implemented yet! Fix this! Program stops!");
-			System.exit(0) ;
-			// TODO: implement code that makes sure that if MazeBuilder.build is called for same the skill level twice, it will deliver the same results
-			SingleRandom.setSeed(5);
-			// HINT: check http://download.oracle.com/javase/6/docs/api/java/util/Random.html\
-		}
+		// in deterministic mode, the run method sets up a random number stream 
+		// with a fixed seed for the builder thread, such that
+		// the same skill level and seed deliver the same maze each time
+		this.deterministic = deterministic;
 		random = SingleRandom.getRandom();
 	}
+	/**
+	 * Sets the seed for deterministic mode, has no effect for a randomized builder.
+	 * @param seed for the random number stream
+	 */
+	public void setSeed(int seed) {
+		this.seed = seed;
+	}
 
+	/**
+	 * Sets the listener that receives metrics for each completed build.
+	 * @param listener, null to disable measurements
+	 */
+	public void setMetricsListener(BuildMetricsListener listener) {
+		this.metricsListener = listener;
+	}
+	/**
+	 * Enables a check of each maze before delivery, problems are reported on the console.
+	 * @param validation true to check mazes, false otherwise
+	 */
+	public void setValidation(boolean validation) {
+		this.validation = validation;
+	}
+	/**
+	 * Sets the listener that receives wall deletions, rooms and phases while a maze is built.
+	 * @param listener, null to disable events
+	 */
+	public void setGenerationListener(GenerationListener listener) {
+		this.generationListener = listener;
+	}
 	/**
 	 * Sets internal fields according to given order
 	 * @param order
@@ -80,45 +116,95 @@ public class MazeBuilder implements Runnable {
 		// instantiate data structures
 		cells = new Cells(width,height) ;
 		dists = new Distance(width,height) ;
+		token = new CancellationToken() ;
+		progress = new ProgressSink(order) ;
+	}
+	/**
+	 * Tells the builder to stop working on the current order.
+	 * The builder recognizes the request at its next checkpoint and
+	 * stops without delivering a maze. 
+	 */
+	public void cancel() {
+		final CancellationToken t = token ;
+		if (null != t)
+			t.cancel() ;
 	}
 	/**
 	 * Main method to run construction of a new maze in a thread of its own.
 	 * This method is called by the MazeFactory to generate a maze.
 	 */
 	public void run() {
+		// all random decisions on this thread, including those in Cells and Wall, 
+		// use the same seeded stream in deterministic mode
+		if (deterministic) {
+			SingleRandom.setThreadSeed(seed);
+			random = SingleRandom.getRandom();
+		}
 		// try-catch block to recognize if thread is interrupted
 		try {
+			if (null != metricsListener)
+				metrics = new BuildMetrics(order.getBuilder(), order.getSkillLevel(), order.isPerfect());
+			if (null != generationListener) {
+				events = new GenerationEvents(generationListener);
+				cells.setGenerationEvents(events);
+			}
 			// create an initial invalid maze where all walls and borders are up
 			cells.initialize();
 			// place rooms in maze as needed
+			BuildPhaseEvent event = startPhase(BuildMetrics.Phase.ROOMS);
 			if (rooms > 0)
 				generateRooms();
+			endPhase(BuildMetrics.Phase.ROOMS, event);
 			
-			Thread.sleep(SLEEP_INTERVAL) ; // test if thread has been interrupted, i.e. notified to stop
+			token.checkpoint() ; // stop here if cancelled
 
 			// put pathways into the maze, determine its starting and end position and calculate distances
 			generate();
 
-			Thread.sleep(SLEEP_INTERVAL) ; // test if thread has been interrupted, i.e. notified to stop
+			token.checkpoint() ;
+
+			// TODO: check why this is done. It creates a top wall on position (0,0). This may even corrupt a maze and block its exit!
+			// Used to be done by the BSPBuilder, it must happen before the cells are handed out.
+			cells.addWall(new Wall(0, 0, CardinalDirection.North), false);
+
+			// cells and distances are final, a progressive order can start with them
+			// while the BSP tree is built, the same configuration gets the tree later
+			MazeConfiguration mazeConfig = new MazeContainer();
+			mazeConfig.setHeight(height);
+			mazeConfig.setWidth(width);
+			mazeConfig.setMazecells(cells);
+			mazeConfig.setMazedists(dists);
+			mazeConfig.setStartingPosition(startx, starty);
+			if (order instanceof ProgressiveOrder)
+				((ProgressiveOrder) order).deliverPlayable(mazeConfig);
 
 			final int colchange = random.nextIntWithinInterval(0, 255); // used in the constructor for Segments  class Seg
-			final BSPBuilder b = new BSPBuilder(order, dists, cells, width, height, colchange, expectedPartiters) ;
+			final BSPBuilder b = new BSPBuilder(progress, token, dists, cells, width, height, colchange, expectedPartiters) ;
+			addPartitionHints(b);
+			event = startPhase(BuildMetrics.Phase.BSP);
 			BSPNode root = b.generateBSPNodes(); // takes a long time, updates progressbar, 
 			// it also internally checks for cancel requests
 			// and throws an interrupted exception if that happens
+			endPhase(BuildMetrics.Phase.BSP, event);
 
-			Thread.sleep(SLEEP_INTERVAL) ; // test if thread has been interrupted, i.e. notified to stop
+			token.checkpoint() ;
 
 			// communicate results back to MazeController
-			MazeConfiguration mazeConfig = new MazeContainer();
-			mazeConfig.setHeight(height);
-			mazeConfig.setWidth(width);
-			mazeConfig.setMazecells(cells);
-			mazeConfig.setMazedists(dists);
 			mazeConfig.setRootnode(root);
-			mazeConfig.setStartingPosition(startx, starty);
+			mazeConfig.getContentHash(); // computed here on the builder thread, not later by the consumer
+			if (validation) {
+				for (String problem : MazeValidator.validate(mazeConfig, order.isPerfect()))
+					System.out.println("MazeBuilder: invalid maze: " + problem);
+			}
+			cells.setGenerationEvents(null);
 			order.deliver(mazeConfig);
-			order.updateProgress(100); // Order interface promises to communicate 100% upon delivery
+			if (null != events)
+				events.close(true);
+			progress.complete(); // Order interface promises to communicate 100% upon delivery
+			if (null != metrics) {
+				metrics.finish(b.getSegmentCount(), b.getNodeCount());
+				metricsListener.buildCompleted(metrics);
+			}
 			// reset order and other fields for safe repeated operation and garbage collection
 			reset() ;
 		}
@@ -128,9 +214,56 @@ public class MazeBuilder implements Runnable {
 			// exception mechanism is basically used to exit method in a controlled way
 			// 
 			dbg("Catching signal to stop") ;
+			progress.close() ;
+			if (null != events)
+				events.close(false) ;
 			// reset order and other fields for safe repeated operation and garbage collection
 			reset();
 		}
+		finally {
+			if (deterministic)
+				SingleRandom.clearThreadSeed();
+		}
+	}
+	/**
+	 * Gives a builder the opportunity to tell the BSPBuilder about good partitions,
+	 * e.g. long walls it created on purpose. The default is to provide no hints.
+	 * @param b BSPBuilder for the current maze
+	 */
+	protected void addPartitionHints(BSPBuilder b) {
+		// no hints
+	}
+	/**
+	 * Starts measuring a phase of the build for metrics and the flight recorder
+	 * and tells the generation listener about it.
+	 * @param phase that starts
+	 * @return flight recorder event for the phase
+	 */
+	private BuildPhaseEvent startPhase(BuildMetrics.Phase phase) {
+		if (null != metrics)
+			metrics.startPhase();
+		if (null != events)
+			events.phase(phase);
+		BuildPhaseEvent event = new BuildPhaseEvent();
+		event.begin();
+		return event;
+	}
+	/**
+	 * Completes measuring a phase of the build.
+	 * @param phase that was measured
+	 * @param event as obtained from startPhase
+	 */
+	private void endPhase(BuildMetrics.Phase phase, BuildPhaseEvent event) {
+		if (null != metrics)
+			metrics.endPhase(phase);
+		event.end();
+		if (event.shouldCommit()) {
+			event.phase = phase.name();
+			event.builder = String.valueOf(order.getBuilder());
+			event.skill = order.getSkillLevel();
+			event.perfect = order.isPerfect();
+			event.commit();
+		}
 	}
 	/**
 	 * Reset all fields to initial values
@@ -144,6 +277,10 @@ public class MazeBuilder implements Runnable {
 		starty = 0 ;
 		cells = null ;
 		dists = null ;
+		metrics = null ;
+		events = null ;
+		progress = null ;
+		// keep the token such that a late cancel call remains harmless
 		// leave random number generator as is
 		order = null ;
 	}
@@ -155,18 +292,23 @@ public class MazeBuilder implements Runnable {
 	 * such that the maze can turn out to be too small to accommodate the requested number of rooms (class attribute rooms). 
 	 * In that case less rooms are produced.
 	 * @return generated number of rooms
+	 * @throws InterruptedException if the order is cancelled
 	 */
-	protected int generateRooms() {
+	protected int generateRooms() throws InterruptedException {
 		// Rooms are randomly positioned such that it may be impossible to place the all rooms if the maze is too small
 		// to prevent an infinite loop we limit the number of failed to MAX_TRIES == 250
 		int tries = 0 ;
 		int result = 0 ;
+		// the index answers overlap checks without scanning the candidate area
+		roomIndex = new RoomIndex(width, height) ;
 		while (tries < MAX_TRIES && result <= rooms) {
+			token.checkpoint() ;
 			if (placeRoom())
 				result++ ;
 			else
 				tries++ ;
 		}
+		roomIndex = null ;
 		return result ;
 	}
 	
@@ -196,13 +338,17 @@ public class MazeBuilder implements Runnable {
 		final int ry = random.nextIntWithinInterval(1, height-rh-1);
 		final int rxl = rx+rw-1;
 		final int ryl = ry+rh-1;
-		// check all cells in this area if they already belong to a room
+		// check if any cell in this area already belongs to a room
 		// if this is the case, return false for a failed attempt
-		if (cells.areaOverlapsWithRoom(rx, ry, rxl, ryl))
+		if (roomIndex.areaOverlapsWithRoom(rx, ry, rxl, ryl))
 			return false ;
+		assert !cells.areaOverlapsWithRoom(rx, ry, rxl, ryl) : "room index out of sync with cells" ;
 		// since the area is available, mark it for this room and remove all walls
 		// from this on it is clear that we can place the room on the maze
 		cells.markAreaAsRoom(rw, rh, rx, ry, rxl, ryl); 
+		roomIndex.add(rx, ry, rxl, ryl);
+		if (null != events)
+			events.room(rx, ry, rxl, ryl);
 		return true;
 	}
 
@@ -211,14 +357,19 @@ public class MazeBuilder implements Runnable {
 	/**
 	 * This method generates a maze.
 	 * It computes distances, determines a start and exit position that are as far apart as possible. 
+	 * @throws InterruptedException if the order is cancelled
 	 */
-	protected void generate() {
+	protected void generate() throws InterruptedException {
 		// generate paths in cells such that there is one strongly connected component
 		// i.e. between any two cells in the maze there is a path to get from one to the other
 		// the search algorithms starts at some random point
+		BuildPhaseEvent event = startPhase(BuildMetrics.Phase.PATHWAYS);
 		generatePathways(); 
+		endPhase(BuildMetrics.Phase.PATHWAYS, event);
 
-		final int[] remote = dists.computeDistances(cells) ;
+		event = startPhase(BuildMetrics.Phase.DISTANCES);
+		final int[] remote = dists.computeDistances(cells, token) ;
+		endPhase(BuildMetrics.Phase.DISTANCES, event);
 
 		// identify cell with the greatest distance
 		final int[] pos = dists.getStartPosition();
@@ -227,6 +378,8 @@ public class MazeBuilder implements Runnable {
 
 		// make exit position at true exit in the cells data structure
 		cells.setExitPosition(remote[0], remote[1]);
+		if (null != events)
+			events.exit(remote[0], remote[1]);
 	}
 	/**
 	 * This method generates pathways into the maze.
@@ -235,48 +388,49 @@ public class MazeBuilder implements Runnable {
 	 * and what kind of comments are needed to understand code.
 	 * A previous version is kept below and commented out which is 
 	 * even worse than this one.
+	 * @throws InterruptedException if the order is cancelled
 	 */
-	protected void generatePathways() {
+	protected void generatePathways() throws InterruptedException {
 		int x = random.nextIntWithinInterval(0, width-1);
 		int y = 0; 
 		final int firstx = x; 
 		final int firsty = y;
 		
-		CardinalDirection[][] origcds = new CardinalDirection[width][height]; 
-		CardinalDirection cd = CardinalDirection.East;
-		CardinalDirection origcd = cd;
+		// directions are ordinals of CardinalDirection, origdirs holds ordinal+1 with 0 for none
+		final byte[] origdirs = new byte[width*height]; 
+		int dir = CardinalDirection.East.ordinal();
+		int origdir = dir;
 		
 		cells.setCellAsVisited(x, y); 
-		Wall wall = new Wall(x, y, cd);
 		while (true) { 
-			wall.setWall(x, y, cd);
-			if (!cells.canGo(wall)) {
-				cd = cd.rotateClockwise();
-				if (origcd == cd) {				
+			token.checkpoint();
+			if (!cells.canGo(x, y, dir)) {
+				dir = (dir+1) & 3;
+				if (origdir == dir) {				
 					if (x == firstx && y == firsty)
 						break; 			
-					int[] dxy = origcds[x][y].getDirection();
-					x -= dxy[0];
-					y -= dxy[1];
-					if (null == origcds[x][y]) {
+					int back = origdirs[x*height+y]-1;
+					x -= CardinalDirection.dx(back);
+					y -= CardinalDirection.dy(back);
+					back = origdirs[x*height+y]-1;
+					if (back < 0) {
 						// Happens at starting position
 						assert (x == firstx && y == firsty) : "catching null elsewhere than starting position" ;
-						cd = cd.randomDirection() ;
+						dir = random.nextIntWithinInterval(0, 3) ;
 					}
 					else
-						cd = origcds[x][y] ;
-					cd = cd.rotateClockwise();
-					origcd = cd;
+						dir = back ;
+					dir = (dir+1) & 3;
+					origdir = dir;
 				}
 			} else {
-				cells.deleteWall(wall);
-				int[] dxy = cd.getDirection();
-				x += dxy[0];
-				y += dxy[1];
+				cells.deleteWall(x, y, dir);
+				x += CardinalDirection.dx(dir);
+				y += CardinalDirection.dy(dir);
 				cells.setCellAsVisited(x, y);
-				origcds[x][y] = cd;
-				cd = cd.randomDirection();
-				origcd = cd;
+				origdirs[x*height+y] = (byte) (dir+1);
+				dir = random.nextIntWithinInterval(0, 3);
+				origdir = dir;
 			}
 		}
 	}
@@ -37,7 +37,7 @@ public class MazeBuilderKruskal extends MazeBuilder implements Runnable{
 	 *Then it picks a wall out of the list of walls and if its neighbor is within bounds, it
 	 *merges the value of the neighbor to be the same is the one of currWall inn the array.
 	 */
-	protected void generatePathways() {
+	protected void generatePathways() throws InterruptedException {
 		board = new int[width][height];
 		int counter = 1; 						
 		
@@ -52,6 +52,7 @@ public class MazeBuilderKruskal extends MazeBuilder implements Runnable{
 		createListOfWalls(candidates);							  // fills array list using the method
 		
 		while(!candidates.isEmpty()){     // While the list of walls is not empty                                              
+			token.checkpoint();			  // stop if the order has been cancelled
 			
 			Wall currWall = extractWallFromCandidateSetRandomly(candidates); // grab a random wall
 			int currX = currWall.getX();                                     // grab that wall's x coordinate
@@ -36,10 +36,11 @@ public class MazeBuilderPrim extends MazeBuilder implements Runnable {
 	 * So an edge implies that its nodes are adjacent cells in the maze and that there is no wall separating these cells in the maze. 
 	 */
 	@Override
-	protected void generatePathways() {
+	protected void generatePathways() throws InterruptedException {
 		// pick initial position (x,y) at some random position on the maze
 		int x = random.nextIntWithinInterval(0, width-1);
 		int y = random.nextIntWithinInterval(0, height-1);
+		cells.setCellAsVisited(x, y); // the initial cell is part of the spanning tree, no wall may lead back to it
 		// create an initial list of all walls that could be removed
 		// those walls lead to adjacent cells that are not part of the spanning tree yet.
 		final ArrayList<Wall> candidates = new ArrayList<Wall>();
@@ -48,6 +49,7 @@ public class MazeBuilderPrim extends MazeBuilder implements Runnable {
 		Wall curWall;
 		// we need to consider each candidate wall and consider it only once
 		while(!candidates.isEmpty()){
+			token.checkpoint(); // stop if the order has been cancelled
 			// in order to have a randomized algorithm,
 			// we randomly select and extract a wall from our candidate set
 			// this also reduces the set to make sure we terminate the loop
@@ -83,12 +85,10 @@ public class MazeBuilderPrim extends MazeBuilder implements Runnable {
 	 * @param y
 	 */
 	private void updateListOfWalls(int x, int y, ArrayList<Wall> walls) {
-		Wall wall = new Wall(x, y, CardinalDirection.East) ;
-		for (CardinalDirection cd : CardinalDirection.values()) {
-			wall.setWall(x, y, cd);
-			if (cells.canGo(wall)) // 
+		for (int dir = 0; dir != 4; dir++) {
+			if (cells.canGo(x, y, dir)) // only allocate a wall for an actual candidate
 			{
-				walls.add(new Wall(x, y, cd));
+				walls.add(new Wall(x, y, CardinalDirection.fromOrdinal(dir)));
 			}
 		}
 	}
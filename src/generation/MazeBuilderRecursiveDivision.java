@@ -0,0 +1,238 @@
+package generation;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * This class has the responsibility to create a maze of given dimensions (width, height)
+ * together with a solution based on a distance matrix.
+ * The MazeBuilder implements Runnable such that it can be run a separate thread.
+ * The MazeFactory has a MazeBuilder and handles the thread management.
+ *
+ * The maze is built with recursive division. A chamber, initially the whole maze, is divided
+ * by a straight wall into two chambers with a single door in between and each chamber is divided
+ * again till it is a single cell. As all walls are up after initialization, the
+ * algorithm works backwards: it builds both chambers and then connects them by tearing down
+ * a single wall on the dividing line.
+ *
+ * Chambers are independent of each other, so large chambers are built in parallel as fork join tasks.
+ * Each task only changes cells inside its chamber and draws random numbers from a SplittableRandom
+ * that is split off its parent, so the result does not depend on scheduling and the builder
+ * is deterministic in deterministic mode.
+ *
+ * Rooms may block a dividing line completely. A final pass with a union find data structure
+ * over all cells connects any areas that are left isolated.
+ *
+ * The dividing lines of large chambers are long walls that make good partitions for
+ * the BSP tree, they are passed on to the BSPBuilder as hints.
+ */
+public class MazeBuilderRecursiveDivision extends MazeBuilder implements Runnable {
+	static final int SEQUENTIAL_THRESHOLD = 4096 ; // chambers with fewer cells are built without forking
+	static final int HINT_MIN_AREA = 256 ; // dividing lines of chambers with at least this many cells are partition hints
+	private static final int EAST = CardinalDirection.East.ordinal() ;
+	private static final int SOUTH = CardinalDirection.South.ordinal() ;
+
+	// dividing lines of large chambers, see BSPBuilder.setPartitionHints
+	private boolean[] verticalHints ;
+	private boolean[] horizontalHints ;
+
+	public MazeBuilderRecursiveDivision() {
+		super();
+		System.out.println("MazeBuilderRecursiveDivision uses recursive division to generate maze.");
+	}
+
+	public MazeBuilderRecursiveDivision(boolean det) {
+		super(det);
+		System.out.println("MazeBuilderRecursiveDivision uses recursive division to generate maze.");
+	}
+
+	/**
+	 * This method generates pathways into the maze by recursive division
+	 * followed by a repair step that connects areas separated by rooms.
+	 */
+	@Override
+	protected void generatePathways() throws InterruptedException {
+		verticalHints = new boolean[width+1] ;
+		horizontalHints = new boolean[height+1] ;
+		final SplittableRandom root = new SplittableRandom(random.nextIntWithinInterval(0, Integer.MAX_VALUE-1)) ;
+		ForkJoinPool.commonPool().invoke(new Chamber(0, 0, width, height, root)) ;
+		token.checkpoint() ; // chambers stop early if cancelled, so the maze is incomplete
+		connectComponents() ;
+	}
+
+	@Override
+	protected void addPartitionHints(BSPBuilder b) {
+		if (null != verticalHints)
+			b.setPartitionHints(verticalHints, horizontalHints) ;
+	}
+
+	/**
+	 * Builds a chamber, forks for both halves if the chamber is large.
+	 */
+	private class Chamber extends RecursiveAction {
+		private static final long serialVersionUID = 1L;
+		private final int x, y, w, h ;
+		private final SplittableRandom rnd ;
+
+		Chamber(int x, int y, int w, int h, SplittableRandom rnd) {
+			this.x = x ;
+			this.y = y ;
+			this.w = w ;
+			this.h = h ;
+			this.rnd = rnd ;
+		}
+
+		@Override
+		protected void compute() {
+			if (w*h <= SEQUENTIAL_THRESHOLD) {
+				divide(x, y, w, h, rnd) ;
+				return ;
+			}
+			if (token.isCancelled())
+				return ;
+			// split random streams before forking such that the result does not depend on scheduling
+			final SplittableRandom first = rnd.split() ;
+			final SplittableRandom second = rnd.split() ;
+			if (isVertical(w, h, rnd)) {
+				final int sx = placeVerticalDoor(x, y, w, h, rnd) ;
+				invokeAll(new Chamber(x, y, sx-x, h, first), new Chamber(sx, y, x+w-sx, h, second)) ;
+			}
+			else {
+				final int sy = placeHorizontalDoor(x, y, w, h, rnd) ;
+				invokeAll(new Chamber(x, y, w, sy-y, first), new Chamber(x, sy, w, y+h-sy, second)) ;
+			}
+		}
+	}
+
+	/**
+	 * Builds a chamber on the current thread
+	 * @param x coordinate of upper left cell
+	 * @param y coordinate of upper left cell
+	 * @param w width of chamber
+	 * @param h height of chamber
+	 * @param rnd random number stream for this chamber
+	 */
+	private void divide(int x, int y, int w, int h, SplittableRandom rnd) {
+		// loop on the second half to keep the recursion shallow
+		while (w > 1 || h > 1) {
+			if (isVertical(w, h, rnd)) {
+				final int sx = placeVerticalDoor(x, y, w, h, rnd) ;
+				divide(x, y, sx-x, h, rnd) ;
+				w = x+w-sx ;
+				x = sx ;
+			}
+			else {
+				final int sy = placeHorizontalDoor(x, y, w, h, rnd) ;
+				divide(x, y, w, sy-y, rnd) ;
+				h = y+h-sy ;
+				y = sy ;
+			}
+		}
+	}
+
+	/**
+	 * Decides on the orientation of the dividing line, the longer side is divided.
+	 * @return true for a vertical line, false for a horizontal one
+	 */
+	private static boolean isVertical(int w, int h, SplittableRandom rnd) {
+		if (w != h)
+			return w > h ;
+		return rnd.nextBoolean() ;
+	}
+
+	/**
+	 * Picks a vertical dividing line in the chamber and opens a door in it.
+	 * @return x coordinate of the first column right of the line
+	 */
+	private int placeVerticalDoor(int x, int y, int w, int h, SplittableRandom rnd) {
+		final int sx = x + 1 + rnd.nextInt(w-1) ;
+		if (w*h >= HINT_MIN_AREA)
+			verticalHints[sx] = true ;
+		// start at a random position and move on if a room border is in the way
+		final int start = rnd.nextInt(h) ;
+		for (int i = 0; i != h; i++) {
+			final int dy = y + (start+i) % h ;
+			if (!cells.hasWall(sx-1, dy, CardinalDirection.East))
+				return sx ; // inside a room, halves are connected already
+			if (cells.canBreak(sx-1, dy, EAST)) {
+				cells.deleteWall(sx-1, dy, EAST) ;
+				return sx ;
+			}
+		}
+		return sx ; // no door possible, left to connectComponents
+	}
+
+	/**
+	 * Picks a horizontal dividing line in the chamber and opens a door in it.
+	 * @return y coordinate of the first row below the line
+	 */
+	private int placeHorizontalDoor(int x, int y, int w, int h, SplittableRandom rnd) {
+		final int sy = y + 1 + rnd.nextInt(h-1) ;
+		if (w*h >= HINT_MIN_AREA)
+			horizontalHints[sy] = true ;
+		final int start = rnd.nextInt(w) ;
+		for (int i = 0; i != w; i++) {
+			final int dx = x + (start+i) % w ;
+			if (!cells.hasWall(dx, sy-1, CardinalDirection.South))
+				return sy ;
+			if (cells.canBreak(dx, sy-1, SOUTH)) {
+				cells.deleteWall(dx, sy-1, SOUTH) ;
+				return sy ;
+			}
+		}
+		return sy ;
+	}
+
+	/**
+	 * Makes sure all cells are connected. Computes connected components with a union find
+	 * data structure and tears down walls between different components where possible.
+	 * Without rooms, recursive division delivers a spanning tree and there is nothing to do.
+	 */
+	private void connectComponents() throws InterruptedException {
+		final int[] parent = new int[width*height] ;
+		for (int i = 0; i != parent.length; i++)
+			parent[i] = i ;
+		for (int x = 0; x != width; x++) {
+			for (int y = 0; y != height; y++) {
+				if (x+1 < width && !cells.hasWall(x, y, CardinalDirection.East))
+					union(parent, x*height+y, (x+1)*height+y) ;
+				if (y+1 < height && !cells.hasWall(x, y, CardinalDirection.South))
+					union(parent, x*height+y, x*height+y+1) ;
+			}
+		}
+		for (int x = 0; x != width; x++) {
+			token.checkpoint() ;
+			for (int y = 0; y != height; y++) {
+				if (x+1 < width && cells.canBreak(x, y, EAST) && union(parent, x*height+y, (x+1)*height+y))
+					cells.deleteWall(x, y, EAST) ;
+				if (y+1 < height && cells.canBreak(x, y, SOUTH) && union(parent, x*height+y, x*height+y+1))
+					cells.deleteWall(x, y, SOUTH) ;
+			}
+		}
+	}
+
+	/**
+	 * Merges the sets of a and b
+	 * @return true if a and b were in different sets, false otherwise
+	 */
+	private static boolean union(int[] parent, int a, int b) {
+		a = find(parent, a) ;
+		b = find(parent, b) ;
+		if (a == b)
+			return false ;
+		parent[a] = b ;
+		return true ;
+	}
+
+	/**
+	 * Finds the representative of the set of a with path halving
+	 */
+	private static int find(int[] parent, int a) {
+		while (parent[a] != a) {
+			parent[a] = parent[parent[a]] ;
+			a = parent[a] ;
+		}
+		return a ;
+	}
+}
@@ -0,0 +1,336 @@
+package generation;
+
+import generation.Order.Builder;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+
+/**
+ * This class stores delivered mazes on disk such that a deterministic order
+ * for a maze that has been generated before can be served without running a builder.
+ *
+ * A deterministic builder delivers the same maze for the same builder algorithm,
+ * skill level, perfect flag and seed. These values and the version of the file format
+ * make up the key of a maze, each maze is stored in a file of its own whose name is derived from the key.
+ *
+ * The file format is a compact binary format written with a DataOutputStream:
+ * a header with magic number, format version and content hash, the dimensions and starting position,
+ * cells and distances as width x height integers and the BSP tree in preorder.
+ * It holds the same information as the XML format of the MazeFileWriter but loads much faster.
+ * The content hash detects damaged files on load and lets a store skip a file that already
+ * holds the same maze.
+ *
+ * The total size of all files is limited. If a new maze exceeds the limit,
+ * least recently used files are deleted, a cache hit counts as a use.
+ */
+public class MazeCache {
+	public static final int FORMAT_VERSION = 3 ; // increment if the file format or the builders change
+	static final int MAGIC = 0x4d415a45 ; // "MAZE"
+	static final String SUFFIX = ".maze" ;
+	// tags for nodes in the BSP tree
+	private static final byte LEAF = 0 ;
+	private static final byte BRANCH = 1 ;
+
+	private final File directory ;
+	private final long maxBytes ;
+
+	/**
+	 * Constructor
+	 * @param directory to store mazes in, created if it does not exist
+	 * @param maxBytes is the limit for the total size of all stored mazes
+	 */
+	public MazeCache(File directory, long maxBytes) {
+		this.directory = directory ;
+		this.maxBytes = maxBytes ;
+		if (!directory.isDirectory() && !directory.mkdirs())
+			System.out.println("MazeCache: can not create directory " + directory + ", caching disabled") ;
+	}
+
+	/**
+	 * Loads the maze for the given key.
+	 * @return maze configuration, null if there is no such maze in the cache or it can not be read
+	 */
+	public MazeConfiguration load(Builder builder, int skill, boolean perfect, int seed) {
+		File file = getFile(builder, skill, perfect, seed) ;
+		if (!file.isFile())
+			return null ;
+		try {
+			DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file))) ;
+			try {
+				MazeConfiguration result = read(in) ;
+				file.setLastModified(System.currentTimeMillis()) ; // mark as recently used
+				return result ;
+			}
+			finally {
+				in.close() ;
+			}
+		} catch (IOException e) {
+			System.out.println("MazeCache.load: can not read " + file + ", dropping it: " + e) ;
+			file.delete() ;
+			return null ;
+		}
+	}
+
+	/**
+	 * Stores the maze for the given key and evicts old mazes as needed.
+	 * Failures are reported but otherwise ignored, the cache is an optimization only.
+	 */
+	public void store(Builder builder, int skill, boolean perfect, int seed, MazeConfiguration mazeConfig) {
+		if (!directory.isDirectory())
+			return ;
+		File file = getFile(builder, skill, perfect, seed) ;
+		if (file.isFile() && readContentHash(file) == mazeConfig.getContentHash()) {
+			file.setLastModified(System.currentTimeMillis()) ; // same maze, only mark as recently used
+			return ;
+		}
+		// write to a temporary file first such that a reader never sees a partial file,
+		// the name is unique as factories in other threads or processes may store the same maze
+		File tmp = null ;
+		try {
+			tmp = File.createTempFile(file.getName(), ".tmp", directory) ;
+			DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tmp))) ;
+			try {
+				write(out, mazeConfig) ;
+			}
+			finally {
+				out.close() ;
+			}
+			if (!tmp.renameTo(file)) {
+				file.delete() ;
+				if (!tmp.renameTo(file))
+					throw new IOException("rename failed") ;
+			}
+		} catch (IOException e) {
+			System.out.println("MazeCache.store: can not write " + file + ": " + e) ;
+			if (null != tmp)
+				tmp.delete() ;
+			return ;
+		}
+		evict() ;
+	}
+
+	/**
+	 * Wraps an order such that the delivered maze is stored in this cache as well.
+	 * A progressive order still gets the playable maze early.
+	 * @param order as given to the factory
+	 * @param seed that the builder uses
+	 * @return order to give to the builder
+	 */
+	public Order storingOrder(final Order order, final int seed) {
+		return new ProgressiveOrder() {
+			@Override
+			public int getSkillLevel() {
+				return order.getSkillLevel() ;
+			}
+			@Override
+			public Builder getBuilder() {
+				return order.getBuilder() ;
+			}
+			@Override
+			public boolean isPerfect() {
+				return order.isPerfect() ;
+			}
+			@Override
+			public void deliver(MazeConfiguration mazeConfig) {
+				order.deliver(mazeConfig) ;
+				// segments only change their seen flag while the maze is played, which is not stored
+				store(order.getBuilder(), order.getSkillLevel(), order.isPerfect(), seed, mazeConfig) ;
+			}
+			@Override
+			public void deliverPlayable(MazeConfiguration mazeConfig) {
+				if (order instanceof ProgressiveOrder)
+					((ProgressiveOrder) order).deliverPlayable(mazeConfig) ;
+			}
+			@Override
+			public void updateProgress(int percentage) {
+				order.updateProgress(percentage) ;
+			}
+		} ;
+	}
+
+	///////////////////////// private methods ///////////////////////////////////
+	/**
+	 * Reads the content hash from the header of a file.
+	 * @return content hash, 0 if the file can not be read or is in a different format
+	 */
+	private static long readContentHash(File file) {
+		try {
+			DataInputStream in = new DataInputStream(new FileInputStream(file)) ;
+			try {
+				if (in.readInt() != MAGIC || in.readInt() != FORMAT_VERSION)
+					return 0 ;
+				return in.readLong() ;
+			}
+			finally {
+				in.close() ;
+			}
+		} catch (IOException e) {
+			return 0 ;
+		}
+	}
+
+	private File getFile(Builder builder, int skill, boolean perfect, int seed) {
+		return new File(directory, builder + "-" + skill + "-" + (perfect ? "perfect" : "rooms") + "-" + seed + "-v" + FORMAT_VERSION + SUFFIX) ;
+	}
+
+	/**
+	 * Deletes least recently used files till the total size is within the limit.
+	 */
+	private synchronized void evict() {
+		File[] files = directory.listFiles() ;
+		if (null == files)
+			return ;
+		ArrayList<File> mazes = new ArrayList<File>() ;
+		long total = 0 ;
+		for (File f : files) {
+			if (f.getName().endsWith(SUFFIX)) {
+				mazes.add(f) ;
+				total += f.length() ;
+			}
+		}
+		if (total <= maxBytes)
+			return ;
+		File[] sorted = mazes.toArray(new File[mazes.size()]) ;
+		Arrays.sort(sorted, new Comparator<File>() {
+			@Override
+			public int compare(File a, File b) {
+				return Long.compare(a.lastModified(), b.lastModified()) ;
+			}
+		}) ;
+		for (int i = 0 ; i < sorted.length && total > maxBytes ; i++) {
+			long size = sorted[i].length() ;
+			if (sorted[i].delete())
+				total -= size ;
+		}
+	}
+
+	/**
+	 * Writes a maze in the binary format of the cache to the given stream.
+	 * @param out stream to write to, not closed by this method
+	 * @param mazeConfig maze to write
+	 * @throws IOException if writing fails
+	 */
+	public static void write(DataOutputStream out, MazeConfiguration mazeConfig) throws IOException {
+		final int width = mazeConfig.getWidth() ;
+		final int height = mazeConfig.getHeight() ;
+		out.writeInt(MAGIC) ;
+		out.writeInt(FORMAT_VERSION) ;
+		out.writeLong(mazeConfig.getContentHash()) ;
+		out.writeInt(width) ;
+		out.writeInt(height) ;
+		int[] start = mazeConfig.getStartingPosition() ;
+		out.writeInt(start[0]) ;
+		out.writeInt(start[1]) ;
+		Cells cells = mazeConfig.getMazecells() ;
+		for (int x = 0 ; x < width ; x++)
+			for (int y = 0 ; y < height ; y++)
+				out.writeInt(cells.getValueOfCell(x, y)) ;
+		int[][] dists = mazeConfig.getMazedists().getDists() ;
+		for (int x = 0 ; x < width ; x++)
+			for (int y = 0 ; y < height ; y++)
+				out.writeInt(dists[x][y]) ;
+		writeNode(out, mazeConfig.getRootnode()) ;
+	}
+
+	private static void writeNode(DataOutputStream out, BSPNode node) throws IOException {
+		if (node.isIsleaf()) {
+			out.writeByte(LEAF) ;
+			ArrayList<Seg> slist = ((BSPLeaf) node).getSlist() ;
+			out.writeInt(slist.size()) ;
+			for (Seg seg : slist) {
+				out.writeInt(seg.getStartPositionX()) ;
+				out.writeInt(seg.getStartPositionY()) ;
+				out.writeInt(seg.getExtensionX()) ;
+				out.writeInt(seg.getExtensionY()) ;
+				out.writeInt(seg.getDistance()) ;
+				out.writeInt(seg.getRGB()) ;
+				out.writeBoolean(seg.isPartition()) ;
+			}
+			return ;
+		}
+		BSPBranch branch = (BSPBranch) node ;
+		out.writeByte(BRANCH) ;
+		out.writeInt(branch.getX()) ;
+		out.writeInt(branch.getY()) ;
+		out.writeInt(branch.getDx()) ;
+		out.writeInt(branch.getDy()) ;
+		writeNode(out, branch.getLeftBranch()) ;
+		writeNode(out, branch.getRightBranch()) ;
+	}
+
+	/**
+	 * Reads a maze in the binary format of the cache from the given stream.
+	 * @param in stream to read from, not closed by this method
+	 * @return maze configuration
+	 * @throws IOException if reading fails, the stream does not hold a maze in the current format
+	 * or its content does not match the stored hash
+	 */
+	public static MazeConfiguration read(DataInputStream in) throws IOException {
+		if (in.readInt() != MAGIC)
+			throw new IOException("not a maze file") ;
+		if (in.readInt() != FORMAT_VERSION)
+			throw new IOException("unknown format version") ;
+		final long hash = in.readLong() ;
+		final int width = in.readInt() ;
+		final int height = in.readInt() ;
+		final int startx = in.readInt() ;
+		final int starty = in.readInt() ;
+		int[][] values = new int[width][height] ;
+		for (int x = 0 ; x < width ; x++)
+			for (int y = 0 ; y < height ; y++)
+				values[x][y] = in.readInt() ;
+		Cells cells = new Cells(values) ;
+		int[][] dists = new int[width][height] ;
+		for (int x = 0 ; x < width ; x++)
+			for (int y = 0 ; y < height ; y++)
+				dists[x][y] = in.readInt() ;
+		MazeConfiguration mazeConfig = new MazeContainer() ;
+		mazeConfig.setWidth(width) ;
+		mazeConfig.setHeight(height) ;
+		mazeConfig.setMazecells(cells) ;
+		mazeConfig.setMazedists(new Distance(dists)) ;
+		mazeConfig.setRootnode(readNode(in)) ;
+		mazeConfig.setStartingPosition(startx, starty) ;
+		if (mazeConfig.getContentHash() != hash)
+			throw new IOException("content does not match hash") ;
+		return mazeConfig ;
+	}
+
+	private static BSPNode readNode(DataInputStream in) throws IOException {
+		byte tag = in.readByte() ;
+		if (LEAF == tag) {
+			int n = in.readInt() ;
+			ArrayList<Seg> slist = new ArrayList<Seg>(n) ;
+			for (int i = 0 ; i < n ; i++) {
+				int x = in.readInt() ;
+				int y = in.readInt() ;
+				int dx = in.readInt() ;
+				int dy = in.readInt() ;
+				int dist = in.readInt() ;
+				Seg seg = new Seg(x, y, dx, dy, dist, 0) ; // color is set explicitly below
+				seg.setRGB(in.readInt()) ;
+				seg.setPartition(in.readBoolean()) ;
+				slist.add(seg) ;
+			}
+			return new BSPLeaf(slist) ;
+		}
+		if (BRANCH != tag)
+			throw new IOException("corrupt BSP tree") ;
+		int x = in.readInt() ;
+		int y = in.readInt() ;
+		int dx = in.readInt() ;
+		int dy = in.readInt() ;
+		BSPNode left = readNode(in) ;
+		BSPNode right = readNode(in) ;
+		return new BSPBranch(x, y, dx, dy, left, right) ;
+	}
+}
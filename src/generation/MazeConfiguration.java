@@ -137,4 +137,14 @@ public interface MazeConfiguration {
 	 * @return true if (x,y) is valid and a bitwise AND with bitmask is not zero
 	 */
 	public boolean hasMaskedBitsTrue(int x, int y, int bitmask) ;
+
+	/**
+	 * Gives a 64 bit hash over dimensions, starting position, cells, distances and the BSP tree,
+	 * see MazeHash. Mazes with the same content have the same hash, so comparing hashes
+	 * is a quick test for equal content.
+	 * The value is computed once, changes through direct access to cells or distances
+	 * after the first call are not reflected.
+	 * @return hash of the maze content
+	 */
+	public long getContentHash() ;
 }
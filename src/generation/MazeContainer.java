@@ -17,11 +17,15 @@ public class MazeContainer implements MazeConfiguration {
 	private int height; // height of maze
 	private Cells mazecells ; // maze as a matrix of cells which keep track of the location of walls
 	private Distance mazedists ; // a matrix with distance values for each cell towards the exit
-	private BSPNode rootnode ; // a binary tree type search data structure to quickly locate a subset of segments
+	// a binary tree type search data structure to quickly locate a subset of segments
+	// volatile as it is set after a progressive delivery while the maze is in use on other threads
+	private volatile BSPNode rootnode ;
 	// a segment is a continuous sequence of walls in vertical or horizontal direction
 	// a subset of segments need to be quickly identified for drawing
 	// the BSP tree partitions the set of all segments and provides a binary search tree for the partitions
 	private int[] start ;
+	private long contentHash ; // cached value of MazeHash.hash(this)
+	private volatile boolean hashed ; // true if contentHash is valid
 	/**
 	 * 
 	 */
@@ -31,12 +35,14 @@ public class MazeContainer implements MazeConfiguration {
 
 	public void setWidth(int width) {
 		this.width = width;
+		hashed = false ;
 	}
 	public int getWidth() {
 		return width;
 	}
 	public void setHeight(int height) {
 		this.height = height;
+		hashed = false ;
 	}
 	public int getHeight() {
 		return height;
@@ -56,6 +62,7 @@ public class MazeContainer implements MazeConfiguration {
 	 */
 	public void setMazecells(Cells mazecells) {
 		this.mazecells = mazecells;
+		hashed = false ;
 	}
 
 	/**
@@ -73,6 +80,7 @@ public class MazeContainer implements MazeConfiguration {
 	 */
 	public void setMazedists(Distance mazedists) {
 		this.mazedists = mazedists;
+		hashed = false ;
 	}
 
 	/**
@@ -90,6 +98,7 @@ public class MazeContainer implements MazeConfiguration {
 	 */
 	public void setRootnode(BSPNode rootnode) {
 		this.rootnode = rootnode;
+		hashed = false ;
 	}
 	/**
 	 * Tells if given (x,y) position is valid, i.e. within legal range of values
@@ -196,6 +205,7 @@ public class MazeContainer implements MazeConfiguration {
 		assert (null != start && start.length == 2) : "MazeContainer.start illegal parameter value";
 		assert this.isValidPosition(start[0], start[1]) : "Invalid starting position";
 		this.start = start;
+		hashed = false ;
 	}
 	/** 
 	 * Sets the starting position
@@ -208,5 +218,20 @@ public class MazeContainer implements MazeConfiguration {
 			start = new int[2] ;
 		start[0] = x ;
 		start[1] = y ;
+		hashed = false ;
+	}
+
+	/**
+	 * Gives the content hash, computed on the first call.
+	 * The MazeBuilder calls it before delivery such that the hash is ready
+	 * when the maze is stored or compared.
+	 * @return hash of the maze content
+	 */
+	public long getContentHash() {
+		if (!hashed) {
+			contentHash = MazeHash.hash(this) ;
+			hashed = true ;
+		}
+		return contentHash ;
 	}
 }
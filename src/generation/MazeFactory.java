@@ -13,6 +13,16 @@ import generation.Factory;
 public class MazeFactory implements Factory {
 	// generation can be deterministic, i.e. same maze is generated each time for a given size
 	private boolean deterministic;
+	// seed for deterministic generation, different seeds give different mazes for the same size
+	private int seed = MazeBuilder.DEFAULT_SEED;
+	// optional: mazes from deterministic orders are stored on disk and loaded on the next identical order
+	private MazeCache cache;
+	// optional: receives time measurements for each build
+	private BuildMetricsListener metricsListener;
+	// optional: follows each build step by step
+	private GenerationListener generationListener;
+	// optional: each built maze is checked by the MazeValidator before delivery
+	private boolean validation;
 	// factory keeps track of the current order, takes at most one order at a time
 	private Order currentOrder;
 	// factory has a MazeBuilder to do the work
@@ -21,6 +31,8 @@ public class MazeFactory implements Factory {
 	private MazeBuilder builder;
 	// 
 	private Thread buildThread; // computations are performed in own separated thread with this.run()
+	// optional: pool of prebuilt mazes that can serve an order without waiting for a builder
+	private MazePool pool;
 	
 	//////////////////////// Constructor ////////////////////////////////////////
 	/**
@@ -47,37 +59,52 @@ public class MazeFactory implements Factory {
 		}
 		// idle, so accept order
 		currentOrder = order;
+		// a prebuilt maze from the pool saves us the generation, 
+		// a deterministic order asks for a particular maze, so the pool does not apply
+		if (null != pool && !deterministic) {
+			MazeConfiguration mazeConfig = pool.take(order);
+			if (null != mazeConfig) {
+				deliverOrder(mazeConfig);
+				return true;
+			}
+		}
+		// a deterministic maze that has been generated before can be loaded from disk
+		if (null != cache && deterministic) {
+			MazeConfiguration mazeConfig = cache.load(order.getBuilder(), order.getSkillLevel(), order.isPerfect(), seed);
+			if (null != mazeConfig) {
+				deliverOrder(mazeConfig);
+				return true;
+			}
+		}
 		// set builder according to order
-		switch (order.getBuilder()) {
-		case DFS :
-			builder = deterministic? new MazeBuilder(true) : new MazeBuilder();
-			buildOrder();
-			break;
-		case Prim:
-			builder = deterministic? new MazeBuilderPrim(true) : new MazeBuilderPrim();
-			buildOrder();
-			break;
-		case Kruskal:
-			builder = deterministic? new MazeBuilderKruskal(true) : new MazeBuilderKruskal();
-			buildOrder();
-			break;
-		default:
+		builder = createBuilder(order.getBuilder(), deterministic);
+		if (null == builder) {
 			System.out.println("MazeFactory.order: missing implementation for requested algorithm: " + order.getBuilder());
 			return false;
 		}
+		builder.setSeed(seed);
+		builder.setMetricsListener(metricsListener);
+		builder.setValidation(validation);
+		builder.setGenerationListener(generationListener);
+		// on delivery, the maze also goes into the cache
+		if (null != cache && deterministic)
+			currentOrder = cache.storingOrder(order, seed);
+		buildOrder();
 		return true ;
 	}
 	@Override
 	public void cancel() {
 		System.out.println("MazeFactory.cancel: called");
+		if (null != builder)
+			builder.cancel() ; // builder stops at its next checkpoint
 		if (null != buildThread) {
-			buildThread.interrupt() ;
+			buildThread.interrupt() ; // in case the thread is blocked, e.g. on delivery
 			buildThread = null; // allow for next order to get through
 		}
 		else {
 			System.out.println("MazeFactory.cancel: no thread to cancel");
 		}
-		// clean up happens in interrupt handling in run method
+		// clean up happens in cancellation handling in run method
 		builder = null;
 		currentOrder = null;
 	}
@@ -96,6 +123,83 @@ public class MazeFactory implements Factory {
 		builder = null;
 		currentOrder = null;
 	}
+	/**
+	 * Sets a pool of prebuilt mazes that is asked first for each randomized order.
+	 * The pool builds its mazes with the validation and metrics listener of this factory.
+	 * @param pool is the maze pool, null to always generate a new maze
+	 */
+	public void setPool(MazePool pool) {
+		this.pool = pool;
+		if (null != pool) {
+			pool.setValidation(validation);
+			pool.setMetricsListener(metricsListener);
+		}
+	}
+	/**
+	 * Sets the seed for deterministic orders. Randomized orders are not affected.
+	 * @param seed for the random number generation of the builder
+	 */
+	public void setSeed(int seed) {
+		this.seed = seed;
+	}
+	/**
+	 * Sets a cache on disk for mazes of deterministic orders.
+	 * @param cache is the maze cache, null to always generate a new maze
+	 */
+	public void setCache(MazeCache cache) {
+		this.cache = cache;
+	}
+	/**
+	 * Sets a listener that receives metrics for each build of this factory and of its pool.
+	 * Builds of the pool are reported when they complete in the background.
+	 * Mazes loaded from the cache are not built and not reported.
+	 * @param listener, null to disable measurements
+	 */
+	public void setMetricsListener(BuildMetricsListener listener) {
+		this.metricsListener = listener;
+		if (null != pool)
+			pool.setMetricsListener(listener);
+	}
+	/**
+	 * Enables a check of each built maze before delivery, problems are reported on the console.
+	 * Mazes of the pool are checked when the pool builds them.
+	 * Mazes loaded from the cache are not checked again, loading only verifies their content hash.
+	 * @param validation true to check mazes, false otherwise
+	 */
+	public void setValidation(boolean validation) {
+		this.validation = validation;
+		if (null != pool)
+			pool.setValidation(validation);
+	}
+	/**
+	 * Sets the listener that follows each build step by step.
+	 * Mazes served from the pool or the cache are not built for the order, so there are no events for them.
+	 * The pool does not report its builds, they run in parallel and events would mix.
+	 * @param listener, null to disable events
+	 */
+	public void setGenerationListener(GenerationListener listener) {
+		this.generationListener = listener;
+	}
+	/**
+	 * Instantiates the builder for the given algorithm.
+	 * @param algorithm as requested in an order
+	 * @param deterministic
+	 * @return builder, null if the algorithm is not supported
+	 */
+	static MazeBuilder createBuilder(Order.Builder algorithm, boolean deterministic) {
+		switch (algorithm) {
+		case DFS :
+			return deterministic? new MazeBuilder(true) : new MazeBuilder();
+		case Prim:
+			return deterministic? new MazeBuilderPrim(true) : new MazeBuilderPrim();
+		case Kruskal:
+			return deterministic? new MazeBuilderKruskal(true) : new MazeBuilderKruskal();
+		case RecursiveDivision:
+			return deterministic? new MazeBuilderRecursiveDivision(true) : new MazeBuilderRecursiveDivision();
+		default:
+			return null;
+		}
+	}
 	///////////////////////// private methods ///////////////////////////////////
 	/**
 	 * Provide the builder with necessary input and start its execution
@@ -108,4 +212,21 @@ public class MazeFactory implements Factory {
 		buildThread = new Thread(builder);
 		buildThread.start();
 	}
+	/**
+	 * Delivers a prebuilt maze from the pool or the cache to the current order. 
+	 * Delivery happens on a short-lived thread of its own as the order expects 
+	 * delivery to be asynchronous to the order call, same as with a builder.
+	 */
+	private void deliverOrder(final MazeConfiguration mazeConfig) {
+		System.out.println("MazeFactory.order: delivering prebuilt maze") ;
+		final Order order = currentOrder;
+		buildThread = new Thread(new Runnable() {
+			@Override
+			public void run() {
+				order.deliver(mazeConfig);
+				order.updateProgress(100); // Order interface promises to communicate 100% upon delivery
+			}
+		});
+		buildThread.start();
+	}
 }
@@ -0,0 +1,124 @@
+package generation;
+
+import java.util.ArrayList;
+
+/**
+ * A 64 bit hash over the content of a maze: its dimensions and starting position, the cells,
+ * the distances and the BSP tree in preorder. Two mazes with the same content have the same hash,
+ * two different mazes have the same hash only with a negligible probability, so comparing hashes
+ * replaces a comparison field by field.
+ *
+ * The hash is computed in a single pass that feeds one int at a time into a 64 bit state.
+ * For segments, it covers position, extension, distance, color and partition bit
+ * but not whether the user has seen the segment, which changes while the game is played.
+ *
+ * The MazeContainer computes the hash once and keeps it.
+ */
+public class MazeHash {
+	private static final long MULTIPLIER = 0x9E3779B97F4A7C15L ;
+	private static final long MIXER = 0xBF58476D1CE4E5B9L ;
+	// tags that keep the structure of the BSP tree apart from its content
+	private static final int BRANCH = 0x42 ;
+	private static final int LEAF = 0x4c ;
+
+	private long state ;
+	private int length ;
+
+	/**
+	 * Adds a value to the hash
+	 */
+	public void add(int value) {
+		state = Long.rotateLeft(state ^ ((value & 0xffffffffL) * MULTIPLIER), 29) * MIXER ;
+		length++ ;
+	}
+
+	/**
+	 * Gives the hash of all values added so far
+	 */
+	public long getValue() {
+		// final avalanche as in SplitMix64 such that all bits depend on all input bits
+		long z = state ^ length ;
+		z = (z ^ (z >>> 30)) * MIXER ;
+		z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL ;
+		return z ^ (z >>> 31) ;
+	}
+
+	/**
+	 * Computes the hash for the content of a maze
+	 * @param mazeConfig with all fields set
+	 * @return 64 bit hash
+	 */
+	public static long hash(MazeConfiguration mazeConfig) {
+		return hash(mazeConfig.getWidth(), mazeConfig.getHeight(), mazeConfig.getStartingPosition(),
+				mazeConfig.getMazecells(), mazeConfig.getMazedists().getDists(), mazeConfig.getRootnode()) ;
+	}
+
+	/**
+	 * Computes the hash for the content of a maze given by its parts
+	 * @param width of the maze
+	 * @param height of the maze
+	 * @param start position, may be null
+	 * @param cells of the maze
+	 * @param dists distance matrix of dimension width x height
+	 * @param root of the BSP tree, may be null
+	 * @return 64 bit hash
+	 */
+	public static long hash(int width, int height, int[] start, Cells cells, int[][] dists, BSPNode root) {
+		MazeHash h = new MazeHash() ;
+		h.add(width) ;
+		h.add(height) ;
+		if (null != start) {
+			h.add(start[0]) ;
+			h.add(start[1]) ;
+		}
+		cells.addTo(h) ;
+		for (int x = 0; x != width; x++) {
+			for (int y = 0; y != height; y++)
+				h.add(dists[x][y]) ;
+		}
+		if (null != root)
+			h.addTree(root) ;
+		return h.getValue() ;
+	}
+
+	/**
+	 * Adds the nodes of a BSP tree in preorder
+	 */
+	private void addTree(BSPNode node) {
+		// iterative to keep the stack small for deep trees
+		ArrayList<BSPNode> stack = new ArrayList<BSPNode>() ;
+		stack.add(node) ;
+		while (!stack.isEmpty()) {
+			node = stack.remove(stack.size()-1) ;
+			add(node.getLowerBoundX()) ;
+			add(node.getLowerBoundY()) ;
+			add(node.getUpperBoundX()) ;
+			add(node.getUpperBoundY()) ;
+			if (node instanceof BSPLeaf) {
+				ArrayList<Seg> segments = ((BSPLeaf) node).getSlist() ;
+				add(LEAF) ;
+				add(segments.size()) ;
+				for (Seg s : segments) {
+					add(s.getStartPositionX()) ;
+					add(s.getStartPositionY()) ;
+					add(s.getExtensionX()) ;
+					add(s.getExtensionY()) ;
+					add(s.getDistance()) ;
+					add(s.getRGB()) ;
+					add(s.isPartition() ? 1 : 0) ;
+				}
+			}
+			else {
+				BSPBranch b = (BSPBranch) node ;
+				add(BRANCH) ;
+				add(b.getX()) ;
+				add(b.getY()) ;
+				add(b.getDx()) ;
+				add(b.getDy()) ;
+				// right pushed first such that the left branch comes first
+				stack.add(b.getRightBranch()) ;
+				stack.add(b.getLeftBranch()) ;
+			}
+		}
+	}
+}
@@ -0,0 +1,152 @@
+package generation;
+
+import generation.BuildMetrics.Phase;
+
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+/**
+ * Collects the metrics of all builds in latency histograms and makes them 
+ * available over JMX, e.g. for jconsole, under the name generation:type=MazeMetrics.
+ * There is a single instance that registers itself on first use.
+ */
+public class MazeMetrics implements MazeMetricsMBean, BuildMetricsListener {
+	public static final String OBJECT_NAME = "generation:type=MazeMetrics" ;
+	private static MazeMetrics instance ;
+
+	private final LatencyHistogram total = new LatencyHistogram() ;
+	private final LatencyHistogram[] phases = new LatencyHistogram[Phase.values().length] ;
+	private final AtomicLong allocatedBytes = new AtomicLong() ;
+	private final AtomicLong allocationCount = new AtomicLong() ; // builds with a known allocation count
+	private final AtomicLong segments = new AtomicLong() ;
+	private final AtomicLong nodes = new AtomicLong() ;
+	private volatile BuildMetrics last ;
+
+	MazeMetrics() {
+		for (int i = 0 ; i < phases.length ; i++)
+			phases[i] = new LatencyHistogram() ;
+	}
+
+	/**
+	 * Provides the single instance which is registered with the platform MBean server.
+	 * @return metrics collector
+	 */
+	public static synchronized MazeMetrics getInstance() {
+		if (null == instance) {
+			instance = new MazeMetrics() ;
+			try {
+				MBeanServer server = ManagementFactory.getPlatformMBeanServer() ;
+				server.registerMBean(instance, new ObjectName(OBJECT_NAME)) ;
+			} catch (JMException e) {
+				System.out.println("MazeMetrics: registration with MBean server failed: " + e) ;
+			}
+		}
+		return instance ;
+	}
+
+	@Override
+	public void buildCompleted(BuildMetrics metrics) {
+		total.record(metrics.getTotalNanos()) ;
+		for (Phase p : Phase.values())
+			phases[p.ordinal()].record(metrics.getPhaseNanos(p)) ;
+		if (metrics.getAllocatedBytes() >= 0) {
+			allocatedBytes.addAndGet(metrics.getAllocatedBytes()) ;
+			allocationCount.incrementAndGet() ;
+		}
+		segments.addAndGet(metrics.getSegmentCount()) ;
+		nodes.addAndGet(metrics.getNodeCount()) ;
+		last = metrics ;
+	}
+
+	/**
+	 * Gives the histogram for a phase
+	 */
+	public LatencyHistogram getHistogram(Phase phase) {
+		return phases[phase.ordinal()] ;
+	}
+	/**
+	 * Gives the histogram for whole builds
+	 */
+	public LatencyHistogram getTotalHistogram() {
+		return total ;
+	}
+
+	////////////////////// MBean interface /////////////////////////////////////
+	@Override
+	public long getBuildCount() {
+		return total.getCount() ;
+	}
+	@Override
+	public double getMeanBuildMillis() {
+		return toMillis(total.getMean()) ;
+	}
+	@Override
+	public double getMaxBuildMillis() {
+		return toMillis(total.getMax()) ;
+	}
+	@Override
+	public double getMeanRoomsMillis() {
+		return toMillis(getHistogram(Phase.ROOMS).getMean()) ;
+	}
+	@Override
+	public double getMeanPathwaysMillis() {
+		return toMillis(getHistogram(Phase.PATHWAYS).getMean()) ;
+	}
+	@Override
+	public double getMeanDistancesMillis() {
+		return toMillis(getHistogram(Phase.DISTANCES).getMean()) ;
+	}
+	@Override
+	public double getMeanBspMillis() {
+		return toMillis(getHistogram(Phase.BSP).getMean()) ;
+	}
+	@Override
+	public double getPercentileMillis(String phase, double percentile) {
+		if ("TOTAL".equalsIgnoreCase(phase))
+			return toMillis(total.getPercentile(percentile)) ;
+		for (Phase p : Phase.values()) {
+			if (p.name().equalsIgnoreCase(phase))
+				return toMillis(getHistogram(p).getPercentile(percentile)) ;
+		}
+		return -1 ;
+	}
+	@Override
+	public double getMeanAllocatedBytes() {
+		long n = allocationCount.get() ;
+		return (0 == n) ? -1 : (double) allocatedBytes.get() / n ;
+	}
+	@Override
+	public double getMeanSegmentCount() {
+		long n = total.getCount() ;
+		return (0 == n) ? 0 : (double) segments.get() / n ;
+	}
+	@Override
+	public double getMeanNodeCount() {
+		long n = total.getCount() ;
+		return (0 == n) ? 0 : (double) nodes.get() / n ;
+	}
+	@Override
+	public String getLastBuild() {
+		BuildMetrics m = last ;
+		return (null == m) ? "none" : m.toString() ;
+	}
+	@Override
+	public void reset() {
+		total.reset() ;
+		for (LatencyHistogram h : phases)
+			h.reset() ;
+		allocatedBytes.set(0) ;
+		allocationCount.set(0) ;
+		segments.set(0) ;
+		nodes.set(0) ;
+		last = null ;
+	}
+
+	private static double toMillis(double nanos) {
+		return nanos / 1000000.0 ;
+	}
+}
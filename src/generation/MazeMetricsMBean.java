@@ -0,0 +1,26 @@
+package generation;
+
+/**
+ * Management interface of MazeMetrics as a standard MBean.
+ * Durations are given in milliseconds, phase names are those of BuildMetrics.Phase.
+ */
+public interface MazeMetricsMBean {
+	long getBuildCount() ;
+	double getMeanBuildMillis() ;
+	double getMaxBuildMillis() ;
+	double getMeanRoomsMillis() ;
+	double getMeanPathwaysMillis() ;
+	double getMeanDistancesMillis() ;
+	double getMeanBspMillis() ;
+	/**
+	 * @param phase is a phase name or TOTAL for the whole build
+	 * @param percentile in the range [0,100]
+	 * @return upper bound for the percentile of the phase duration, -1 for an unknown phase
+	 */
+	double getPercentileMillis(String phase, double percentile) ;
+	double getMeanAllocatedBytes() ;
+	double getMeanSegmentCount() ;
+	double getMeanNodeCount() ;
+	String getLastBuild() ;
+	void reset() ;
+}
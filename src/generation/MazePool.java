@@ -0,0 +1,266 @@
+package generation;
+
+import generation.Order.Builder;
+
+import java.util.ArrayDeque;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * This class keeps a number of prebuilt mazes ready to play such that
+ * the MazeFactory can serve an order right away instead of running a builder.
+ *
+ * Mazes are kept per combination of skill level, builder algorithm and perfect flag.
+ * For each combination that has been asked for, the pool keeps up to capacity mazes.
+ * Whenever a maze is taken, the pool refills in the background with worker threads
+ * that run at minimum priority such that they use idle cores and do not compete with the game.
+ *
+ * Memory is limited by a budget that is based on an estimate of the size of a maze.
+ * If the budget is exceeded, mazes of the least recently used combination are dropped.
+ *
+ * A maze is handed out at most once as the game modifies it while it is played,
+ * e.g. segments get marked as seen.
+ *
+ * Builds of the pool are validated and measured like the builds of the MazeFactory
+ * that uses the pool, the factory passes its settings on.
+ */
+public class MazePool {
+	public static final int DEFAULT_CAPACITY = 1 ; // mazes per combination of skill, builder, perfect
+	public static final long DEFAULT_MEMORY_BUDGET = 64L * 1024 * 1024 ; // bytes
+	// rough estimate of memory for a single cell including distances and its share of the BSP tree
+	static final int ESTIMATED_BYTES_PER_CELL = 256 ;
+
+	private final int capacity ;
+	private final long memoryBudget ;
+	// iteration order is access order, so the first entry is the least recently used one
+	private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<String, Entry>(16, 0.75f, true) ;
+	private long memoryUsed ; // estimate for all mazes that are ready
+	private ExecutorService workers ; // created with the first refill
+	// settings for the builders, read by the workers
+	private volatile boolean validation ;
+	private volatile BuildMetricsListener metricsListener ;
+
+	/**
+	 * Mazes for a particular combination of skill, builder and perfect
+	 */
+	private static class Entry {
+		final int skill ;
+		final Builder builder ;
+		final boolean perfect ;
+		final ArrayDeque<MazeConfiguration> ready = new ArrayDeque<MazeConfiguration>() ;
+		int inProgress ; // number of mazes currently being built for this entry
+
+		Entry(int skill, Builder builder, boolean perfect) {
+			this.skill = skill ;
+			this.builder = builder ;
+			this.perfect = perfect ;
+		}
+	}
+
+	/**
+	 * Constructor with default capacity and memory budget
+	 */
+	public MazePool() {
+		this(DEFAULT_CAPACITY, DEFAULT_MEMORY_BUDGET) ;
+	}
+	/**
+	 * Constructor
+	 * @param capacity is the number of mazes kept per combination of skill, builder, perfect
+	 * @param memoryBudget is the upper limit for the estimated memory of all ready mazes in bytes
+	 */
+	public MazePool(int capacity, long memoryBudget) {
+		this.capacity = capacity ;
+		this.memoryBudget = memoryBudget ;
+	}
+
+	/**
+	 * Enables a check of each maze the pool builds, problems are reported on the console.
+	 * @param validation true to check mazes, false otherwise
+	 */
+	public void setValidation(boolean validation) {
+		this.validation = validation ;
+	}
+	/**
+	 * Sets a listener that receives metrics for each build of the pool.
+	 * @param listener, null to disable measurements
+	 */
+	public void setMetricsListener(BuildMetricsListener listener) {
+		this.metricsListener = listener ;
+	}
+
+	/**
+	 * Registers a combination and starts building mazes for it in the background.
+	 * @param skill level
+	 * @param builder algorithm
+	 * @param perfect
+	 */
+	public synchronized void prefill(int skill, Builder builder, boolean perfect) {
+		refill(getEntry(skill, builder, perfect)) ;
+	}
+
+	/**
+	 * Takes a prebuilt maze that matches the given order out of the pool.
+	 * The combination of the order is registered and refilled in the background
+	 * such that the next order for it can be served from the pool.
+	 * @param order describes the wanted maze
+	 * @return maze configuration, null if none is ready
+	 */
+	public synchronized MazeConfiguration take(Order order) {
+		Entry entry = getEntry(order.getSkillLevel(), order.getBuilder(), order.isPerfect()) ;
+		MazeConfiguration result = entry.ready.poll() ;
+		if (null != result)
+			memoryUsed -= estimateSize(result) ;
+		refill(entry) ;
+		return result ;
+	}
+
+	/**
+	 * Gives the number of mazes that are ready for a particular combination
+	 */
+	public synchronized int getReadyCount(int skill, Builder builder, boolean perfect) {
+		Entry entry = entries.get(getKey(skill, builder, perfect)) ;
+		return (null == entry) ? 0 : entry.ready.size() ;
+	}
+
+	/**
+	 * Stops all background work and drops all mazes.
+	 */
+	public synchronized void shutdown() {
+		if (null != workers) {
+			workers.shutdownNow() ; // interrupts builders which stop at their next check
+			workers = null ;
+		}
+		entries.clear() ;
+		memoryUsed = 0 ;
+	}
+
+	///////////////////////// private methods ///////////////////////////////////
+	private static String getKey(int skill, Builder builder, boolean perfect) {
+		return skill + "/" + builder + "/" + perfect ;
+	}
+
+	private Entry getEntry(int skill, Builder builder, boolean perfect) {
+		String key = getKey(skill, builder, perfect) ;
+		Entry entry = entries.get(key) ;
+		if (null == entry) {
+			entry = new Entry(skill, builder, perfect) ;
+			entries.put(key, entry) ;
+		}
+		return entry ;
+	}
+
+	/**
+	 * Schedules as many builds as needed to get the entry to its capacity
+	 */
+	private void refill(Entry entry) {
+		while (entry.ready.size() + entry.inProgress < capacity) {
+			entry.inProgress++ ;
+			getWorkers().execute(new Refill(entry)) ;
+		}
+	}
+
+	private ExecutorService getWorkers() {
+		if (null == workers) {
+			// leave one core for the game itself
+			int n = Math.max(1, Runtime.getRuntime().availableProcessors() - 1) ;
+			workers = Executors.newFixedThreadPool(n, new ThreadFactory() {
+				@Override
+				public Thread newThread(Runnable r) {
+					Thread t = new Thread(r, "MazePool") ;
+					t.setDaemon(true) ;
+					t.setPriority(Thread.MIN_PRIORITY) ;
+					return t ;
+				}
+			}) ;
+		}
+		return workers ;
+	}
+
+	/**
+	 * Called by a worker when a build is complete
+	 */
+	private synchronized void add(Entry entry, MazeConfiguration mazeConfig) {
+		entry.inProgress-- ;
+		if (null == mazeConfig || entries.get(getKey(entry.skill, entry.builder, entry.perfect)) != entry)
+			return ; // build was cancelled or pool was shut down
+		entry.ready.add(mazeConfig) ;
+		memoryUsed += estimateSize(mazeConfig) ;
+		evict() ;
+	}
+
+	/**
+	 * Drops mazes of the least recently used combinations till the memory budget is met.
+	 */
+	private void evict() {
+		Iterator<Entry> it = entries.values().iterator() ;
+		while (memoryUsed > memoryBudget && it.hasNext()) {
+			Entry entry = it.next() ;
+			while (memoryUsed > memoryBudget && !entry.ready.isEmpty()) {
+				MazeConfiguration dropped = entry.ready.poll() ;
+				memoryUsed -= estimateSize(dropped) ;
+				System.out.println("MazePool: memory budget exceeded, dropping maze for skill level " + entry.skill) ;
+			}
+		}
+	}
+
+	static long estimateSize(MazeConfiguration mazeConfig) {
+		return (long) mazeConfig.getWidth() * mazeConfig.getHeight() * ESTIMATED_BYTES_PER_CELL ;
+	}
+
+	/**
+	 * Builds a single maze on a worker thread and adds it to the pool.
+	 * The builder runs on the worker thread itself, the order only collects the result.
+	 */
+	private class Refill implements Runnable, Order {
+		private final Entry entry ;
+		private MazeConfiguration result ;
+
+		Refill(Entry entry) {
+			this.entry = entry ;
+		}
+
+		@Override
+		public void run() {
+			try {
+				MazeBuilder builder = MazeFactory.createBuilder(entry.builder, false) ;
+				if (null != builder) {
+					builder.setValidation(validation) ;
+					builder.setMetricsListener(metricsListener) ;
+					builder.buildOrder(this) ;
+					builder.run() ;
+				}
+			}
+			finally {
+				add(entry, result) ;
+			}
+		}
+
+		@Override
+		public int getSkillLevel() {
+			return entry.skill ;
+		}
+
+		@Override
+		public Builder getBuilder() {
+			return entry.builder ;
+		}
+
+		@Override
+		public boolean isPerfect() {
+			return entry.perfect ;
+		}
+
+		@Override
+		public void deliver(MazeConfiguration mazeConfig) {
+			result = mazeConfig ;
+		}
+
+		@Override
+		public void updateProgress(int percentage) {
+			// nobody is waiting for this maze, so there is nobody to tell
+		}
+	}
+}
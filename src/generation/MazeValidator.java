@@ -0,0 +1,234 @@
+package generation;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+/**
+ * Checks a generated maze for the properties the game relies on:
+ * walls are consistent between neighboring cells, all cells are connected,
+ * a perfect maze has no cycles, there is a single exit on the border,
+ * and the distance values lead from every cell to the exit.
+ *
+ * A check takes linear time in the number of cells. Connectivity and cycles are found
+ * with a union find data structure over all open sides, the distance values are compared
+ * to the result of a single breadth first search from the exit.
+ * Distance values need not be exact, the computation in Distance may leave
+ * a value above the true distance, but each cell must have an open neighbor with a smaller value
+ * and no value may be below the true distance.
+ *
+ * The validator is used by the MazeFactory as an optional stage after a build and
+ * by the MazeBatchGenerator to check large sets of mazes.
+ */
+public class MazeValidator {
+	static final int MAX_PROBLEMS = 10 ; // problems reported per maze, further ones are counted only
+
+	private MazeValidator() {
+		// static methods only
+	}
+
+	/**
+	 * Checks a single maze
+	 * @param mazeConfig the maze to check
+	 * @param perfect true if the maze was ordered as a perfect maze, i.e. without cycles
+	 * @return list of problems found, empty if the maze is valid
+	 */
+	public static List<String> validate(MazeConfiguration mazeConfig, boolean perfect) {
+		final List<String> problems = new ArrayList<String>() ;
+		final int width = mazeConfig.getWidth() ;
+		final int height = mazeConfig.getHeight() ;
+		final Cells cells = mazeConfig.getMazecells() ;
+		final int n = width*height ;
+		int count = 0 ; // number of problems, including those beyond MAX_PROBLEMS
+
+		// walls agree between neighbors, cells are connected, no cycles in a perfect maze
+		final int[] parent = new int[n] ;
+		for (int i = 0; i != n; i++)
+			parent[i] = i ;
+		int components = n ;
+		int cycles = 0 ;
+		for (int x = 0; x != width; x++) {
+			for (int y = 0; y != height; y++) {
+				for (int k = 0; k != 2; k++) {
+					final CardinalDirection dir = (0 == k) ? CardinalDirection.East : CardinalDirection.South ;
+					final int nx = x + dir.dx() ;
+					final int ny = y + dir.dy() ;
+					if (nx == width || ny == height)
+						continue ;
+					final boolean wall = cells.hasWall(x, y, dir) ;
+					if (wall != cells.hasWall(nx, ny, dir.oppositeDirection()))
+						count = report(problems, count, "wall " + dir + " of (" + x + "," + y + ") does not match its neighbor") ;
+					if (wall)
+						continue ;
+					if (union(parent, x*height+y, nx*height+ny))
+						components-- ;
+					else if (perfect && 0 == cycles++)
+						count = report(problems, count, "cycle closed at (" + x + "," + y + ") " + dir) ;
+				}
+			}
+		}
+		if (components > 1)
+			count = report(problems, count, components + " separate areas") ;
+		if (cycles > 1)
+			count = report(problems, count, cycles + " cycles in a perfect maze") ;
+
+		// a single opening in the border, at the exit
+		final Distance dists = mazeConfig.getMazedists() ;
+		final int[] exit = dists.getExitPosition() ;
+		final int openings = countBorderOpenings(cells, width, height) ;
+		if (!mazeConfig.isValidPosition(exit[0], exit[1]) || !cells.isExitPosition(exit[0], exit[1]))
+			count = report(problems, count, "exit at (" + exit[0] + "," + exit[1] + ") is not open") ;
+		if (openings != 1)
+			count = report(problems, count, openings + " openings in the border") ;
+
+		// distance values
+		if (mazeConfig.isValidPosition(exit[0], exit[1]))
+			count = checkDistances(problems, count, cells, dists, width, height, exit) ;
+		final int[] start = mazeConfig.getStartingPosition() ;
+		if (!mazeConfig.isValidPosition(start[0], start[1]))
+			count = report(problems, count, "start at (" + start[0] + "," + start[1] + ") is outside the maze") ;
+
+		if (count > MAX_PROBLEMS)
+			problems.add((count - MAX_PROBLEMS) + " more problems") ;
+		return problems ;
+	}
+
+	/**
+	 * Checks a set of mazes in parallel
+	 * @param mazeConfigs the mazes to check
+	 * @param perfect true if the mazes were ordered as perfect mazes
+	 * @return list of problems for each maze in the same order as the mazes
+	 * @throws InterruptedException if the calling thread is interrupted while waiting
+	 */
+	public static List<List<String>> validateAll(List<MazeConfiguration> mazeConfigs, final boolean perfect) throws InterruptedException {
+		final List<Callable<List<String>>> tasks = new ArrayList<Callable<List<String>>>(mazeConfigs.size()) ;
+		for (final MazeConfiguration mazeConfig : mazeConfigs) {
+			tasks.add(new Callable<List<String>>() {
+				@Override
+				public List<String> call() {
+					return validate(mazeConfig, perfect) ;
+				}
+			}) ;
+		}
+		final List<List<String>> results = new ArrayList<List<String>>(mazeConfigs.size()) ;
+		for (Future<List<String>> f : ForkJoinPool.commonPool().invokeAll(tasks)) {
+			try {
+				results.add(f.get()) ;
+			} catch (ExecutionException e) {
+				List<String> failure = new ArrayList<String>() ;
+				failure.add("validation failed: " + e.getCause()) ;
+				results.add(failure) ;
+			}
+		}
+		return results ;
+	}
+
+	///////////////////////// private methods ///////////////////////////////////
+	/**
+	 * Compares distance values with a breadth first search from the exit
+	 */
+	private static int checkDistances(List<String> problems, int count, Cells cells, Distance dists, int width, int height, int[] exit) {
+		final int n = width*height ;
+		final int[] bfs = new int[n] ; // 0 means not reached, true distance plus 1 otherwise, matches Distance at the exit
+		final int[] queue = new int[n] ;
+		int head = 0 ;
+		int tail = 0 ;
+		queue[tail++] = exit[0]*height+exit[1] ;
+		bfs[queue[0]] = 1 ;
+		while (head != tail) {
+			final int cell = queue[head++] ;
+			final int x = cell / height ;
+			final int y = cell - x*height ;
+			for (int dir = 0; dir != 4; dir++) {
+				final int nx = x + CardinalDirection.dx(dir) ;
+				final int ny = y + CardinalDirection.dy(dir) ;
+				if (nx < 0 || nx >= width || ny < 0 || ny >= height || cells.hasWall(x, y, CardinalDirection.fromOrdinal(dir)))
+					continue ;
+				final int next = nx*height+ny ;
+				if (0 == bfs[next]) {
+					bfs[next] = bfs[cell] + 1 ;
+					queue[tail++] = next ;
+				}
+			}
+		}
+		if (1 != dists.getDistance(exit[0], exit[1]))
+			count = report(problems, count, "distance at the exit is " + dists.getDistance(exit[0], exit[1])) ;
+		for (int x = 0; x != width; x++) {
+			for (int y = 0; y != height; y++) {
+				final int d = dists.getDistance(x, y) ;
+				final int shortest = bfs[x*height+y] ;
+				if (0 == shortest)
+					continue ; // unreachable, reported as separate areas
+				if (d < shortest) {
+					count = report(problems, count, "distance " + d + " at (" + x + "," + y + ") is below the shortest path " + shortest) ;
+					continue ;
+				}
+				if (1 == shortest)
+					continue ;
+				boolean descent = false ;
+				for (int dir = 0; dir != 4 && !descent; dir++) {
+					final int nx = x + CardinalDirection.dx(dir) ;
+					final int ny = y + CardinalDirection.dy(dir) ;
+					descent = nx >= 0 && nx < width && ny >= 0 && ny < height
+							&& !cells.hasWall(x, y, CardinalDirection.fromOrdinal(dir)) && dists.getDistance(nx, ny) < d ;
+				}
+				if (!descent)
+					count = report(problems, count, "no neighbor of (" + x + "," + y + ") is closer to the exit") ;
+			}
+		}
+		return count ;
+	}
+
+	/**
+	 * Counts the sides of border cells that lead out of the maze
+	 */
+	private static int countBorderOpenings(Cells cells, int width, int height) {
+		int result = 0 ;
+		for (int x = 0; x != width; x++) {
+			if (!cells.hasWall(x, 0, CardinalDirection.North))
+				result++ ;
+			if (!cells.hasWall(x, height-1, CardinalDirection.South))
+				result++ ;
+		}
+		for (int y = 0; y != height; y++) {
+			if (!cells.hasWall(0, y, CardinalDirection.West))
+				result++ ;
+			if (!cells.hasWall(width-1, y, CardinalDirection.East))
+				result++ ;
+		}
+		return result ;
+	}
+
+	private static int report(List<String> problems, int count, String problem) {
+		if (count < MAX_PROBLEMS)
+			problems.add(problem) ;
+		return count + 1 ;
+	}
+
+	/**
+	 * Merges the sets of a and b
+	 * @return true if a and b were in different sets, false otherwise
+	 */
+	private static boolean union(int[] parent, int a, int b) {
+		a = find(parent, a) ;
+		b = find(parent, b) ;
+		if (a == b)
+			return false ;
+		parent[a] = b ;
+		return true ;
+	}
+
+	/**
+	 * Finds the representative of the set of a with path halving
+	 */
+	private static int find(int[] parent, int a) {
+		while (parent[a] != a) {
+			parent[a] = parent[parent[a]] ;
+			a = parent[a] ;
+		}
+		return a ;
+	}
+}
@@ -26,7 +26,7 @@ public interface Order {
 	 * @author pk
 	 *
 	 */
-	enum Builder { DFS, Prim, Kruskal } ;
+	enum Builder { DFS, Prim, Kruskal, RecursiveDivision } ;
 	/**
 	 * Describes if the ordered maze should be perfect, i.e. there are 
 	 * no loops and no isolated areas, which also implies that 
@@ -0,0 +1,99 @@
+package generation;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Passes progress information from a builder to its order.
+ *
+ * A builder reports progress from its inner loops, but the order typically
+ * redraws the screen on each update, which is far too expensive to do 
+ * that often and on the builder thread. The sink therefore drops updates 
+ * that come in too fast or do not show any progress and hands the remaining ones 
+ * to a single dispatcher thread that is shared by all builders.
+ * If the dispatcher falls behind, only the most recent percentage is delivered.
+ *
+ * The final 100% is delivered synchronously with complete() such that
+ * the order sees it right after the delivery of the maze and never sees
+ * an older update afterwards.
+ */
+public class ProgressSink {
+	static final long MIN_INTERVAL = 50 ; // minimum time between two updates, unit is millisecond
+
+	private static final ExecutorService dispatcher = Executors.newSingleThreadExecutor(new ThreadFactory() {
+		@Override
+		public Thread newThread(Runnable r) {
+			Thread t = new Thread(r, "MazeProgress") ;
+			t.setDaemon(true) ;
+			return t ;
+		}
+	}) ;
+
+	private final Order order ;
+	// only accessed by the builder thread
+	private int reported = -1 ; 	// last percentage that was passed on
+	private long lastTime ; 		// time of the last update that was passed on, unit is nanosecond
+	// shared with the dispatcher thread
+	private final AtomicInteger latest = new AtomicInteger(-1) ;
+	private final AtomicBoolean scheduled = new AtomicBoolean() ;
+	private boolean closed ; // guarded by this, no more updates if true
+
+	private final Runnable dispatch = new Runnable() {
+		@Override
+		public void run() {
+			scheduled.set(false) ;
+			int percentage = latest.get() ;
+			synchronized (ProgressSink.this) {
+				if (!closed)
+					order.updateProgress(percentage) ;
+			}
+		}
+	} ;
+
+	/**
+	 * Constructor
+	 * @param order that receives the updates, may be null
+	 */
+	public ProgressSink(Order order) {
+		this.order = order ;
+		lastTime = System.nanoTime() - MIN_INTERVAL * 1000000 ;
+	}
+
+	/**
+	 * Reports the current progress. Returns immediately.
+	 * @param percentage of the work done, 0..100
+	 */
+	public void report(int percentage) {
+		if (null == order || percentage <= reported)
+			return ;
+		final long now = System.nanoTime() ;
+		if (now - lastTime < MIN_INTERVAL * 1000000)
+			return ;
+		reported = percentage ;
+		lastTime = now ;
+		latest.set(percentage) ;
+		// at most one dispatch is pending, it picks up the latest value
+		if (scheduled.compareAndSet(false, true))
+			dispatcher.execute(dispatch) ;
+	}
+
+	/**
+	 * Stops passing on updates, e.g. if the build was cancelled.
+	 * Waits for an update that is currently delivered.
+	 */
+	public synchronized void close() {
+		closed = true ;
+	}
+
+	/**
+	 * Stops passing on updates and tells the order that the work is done. 
+	 */
+	public void complete() {
+		close() ;
+		if (null != order)
+			order.updateProgress(100) ;
+	}
+}
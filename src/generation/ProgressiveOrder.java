@@ -0,0 +1,22 @@
+package generation;
+
+/**
+ * An order that takes a maze in two stages.
+ *
+ * Building the BSP tree is the slowest part of a build for large mazes, but only the
+ * first person view needs it. Cells, distances and the starting position are final before that,
+ * which is all a map view or a robot needs. A builder therefore hands the maze configuration
+ * to deliverPlayable as soon as the distances are computed and calls deliver with the same
+ * configuration once the BSP tree is in place.
+ *
+ * If the order is cancelled in between, deliver is not called.
+ */
+public interface ProgressiveOrder extends Order {
+	/**
+	 * Delivers the maze before its BSP tree is built.
+	 * Called on the builder thread, which builds the BSP tree after this method returns,
+	 * so implementations should return quickly.
+	 * @param mazeConfig the maze, getRootnode() gives null till deliver is called with the same object
+	 */
+	void deliverPlayable(MazeConfiguration mazeConfig) ;
+}
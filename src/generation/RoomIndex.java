@@ -0,0 +1,111 @@
+package generation;
+
+/**
+ * Keeps track of the area covered by rooms such that the room generation
+ * can check whether a candidate area is free without scanning all of its cells.
+ *
+ * The index is a two dimensional Fenwick tree (binary indexed tree) that supports
+ * adding a rectangle and counting covered cells in a rectangle, both in O(log(width)*log(height)).
+ * Adding a rectangle is a range update which is expressed with four trees
+ * that hold the coefficients of the prefix sum as a polynomial in x and y.
+ *
+ * The index must be kept in sync with the rooms marked in the cells object,
+ * i.e. each call to Cells.markAreaAsRoom needs a matching call to add.
+ */
+public class RoomIndex {
+	private final int width ;
+	private final int height ;
+	// trees for coefficients, indices are 1-based, flattened as i*(height+1)+j
+	private final long[] t1, tx, ty, txy ;
+
+	/**
+	 * Constructor for an empty index
+	 * @param width of the maze
+	 * @param height of the maze
+	 */
+	public RoomIndex(int width, int height) {
+		this.width = width ;
+		this.height = height ;
+		final int size = (width+1)*(height+1) ;
+		t1 = new long[size] ;
+		tx = new long[size] ;
+		ty = new long[size] ;
+		txy = new long[size] ;
+	}
+
+	/**
+	 * Marks the given area as covered by a room.
+	 * The first corner (rx,ry) is at the upper left position, the second corner (rxl,ryl) is at the lower right position.
+	 * @precondition 0 <= rx <= rxl < width, 0 <= ry <= ryl < height, area does not intersect with a room
+	 */
+	public void add(int rx, int ry, int rxl, int ryl) {
+		update(rx+1, ry+1, 1) ;
+		update(rx+1, ryl+2, -1) ;
+		update(rxl+2, ry+1, -1) ;
+		update(rxl+2, ryl+2, 1) ;
+	}
+
+	/**
+	 * Checks if there is a cell in the given area that belongs to a room.
+	 * Same as Cells.areaOverlapsWithRoom, i.e. the area is extended by one cell in each direction
+	 * such that rooms keep a distance to each other and to the border.
+	 * @param rx 1st corner, x coordinate
+	 * @param ry 1st corner, y coordinate
+	 * @param rxl 2nd corner, x coordinate
+	 * @param ryl 2nd corner, y coordinate
+	 * @return true if area contains a cell that is already in a room or if it is too close to the border, false otherwise
+	 */
+	public boolean areaOverlapsWithRoom(int rx, int ry, int rxl, int ryl) {
+		final int startX = rx-1 ;
+		final int startY = ry-1 ;
+		final int stopX = rxl+1 ;
+		final int stopY = ryl+1 ;
+		if (startX < 0 || startY < 0 || stopX >= width || stopY >= height)
+			return true ;
+		return count(startX, startY, stopX, stopY) > 0 ;
+	}
+
+	/**
+	 * Counts the cells in the given area that belong to a room.
+	 * @precondition 0 <= x1 <= x2 < width, 0 <= y1 <= y2 < height
+	 * @return number of covered cells
+	 */
+	public long count(int x1, int y1, int x2, int y2) {
+		return prefix(x2+1, y2+1) - prefix(x1, y2+1) - prefix(x2+1, y1) + prefix(x1, y1) ;
+	}
+
+	///////////////////////// private methods ///////////////////////////////////
+	/**
+	 * Adds v to all cells (x,y) with x >= i and y >= j, indices are 1-based
+	 */
+	private void update(int i, int j, long v) {
+		if (i > width || j > height)
+			return ; // outside of the maze, no effect on any prefix sum
+		for (int x = i ; x <= width ; x += x & -x) {
+			for (int y = j ; y <= height ; y += y & -y) {
+				final int k = x*(height+1)+y ;
+				t1[k] += v ;
+				tx[k] += v*i ;
+				ty[k] += v*j ;
+				txy[k] += v*i*j ;
+			}
+		}
+	}
+
+	/**
+	 * Gives the number of covered cells in rows 1..i and columns 1..j, indices are 1-based
+	 */
+	private long prefix(int i, int j) {
+		long s1 = 0, sx = 0, sy = 0, sxy = 0 ;
+		for (int x = i ; x > 0 ; x -= x & -x) {
+			for (int y = j ; y > 0 ; y -= y & -y) {
+				final int k = x*(height+1)+y ;
+				s1 += t1[k] ;
+				sx += tx[k] ;
+				sy += ty[k] ;
+				sxy += txy[k] ;
+			}
+		}
+		return s1*(i+1)*(j+1) - sx*(j+1) - sy*(i+1) + sxy ;
+	}
+}
@@ -26,7 +26,8 @@ public class Seg {
 	private int dist; 	// distance of starting position of this segment to exit position of maze
 	
 	// Fields with read/write access
-	private Color col; 	// color of segment, only set by constructor and file reader
+	private int rgb; 	// color of segment packed as rgb value, only set by constructor and file reader
+	// Color objects are shared across segments, see ColorPalette
 	private boolean partition;
 	private boolean seen; // if the segment has been seen by the user on its path through the maze
 
@@ -74,13 +75,13 @@ public class Seg {
 		// compute rgb value, depends on distance and x direction
 		int rgbValue = ((part1 + 2 + add) * 70)/8 + 80;
 		switch (part2) {
-		case 0: setColor(new Color(rgbValue, 20, 20)); break;
-		case 1: setColor(new Color(20, rgbValue, 20)); break;
-		case 2: setColor(new Color(20, 20, rgbValue)); break;
-		case 3: setColor(new Color(rgbValue, rgbValue, 20)); break;
-		case 4: setColor(new Color(20, rgbValue, rgbValue)); break;
-		case 5: setColor(new Color(rgbValue, 20, rgbValue)); break;
-		default: setColor(new Color(20, 20, 20)); break;
+		case 0: setRGB(ColorPalette.toRGB(rgbValue, 20, 20)); break;
+		case 1: setRGB(ColorPalette.toRGB(20, rgbValue, 20)); break;
+		case 2: setRGB(ColorPalette.toRGB(20, 20, rgbValue)); break;
+		case 3: setRGB(ColorPalette.toRGB(rgbValue, rgbValue, 20)); break;
+		case 4: setRGB(ColorPalette.toRGB(20, rgbValue, rgbValue)); break;
+		case 5: setRGB(ColorPalette.toRGB(rgbValue, 20, rgbValue)); break;
+		default: setRGB(ColorPalette.toRGB(20, 20, 20)); break;
 		}
 	}
 
@@ -116,7 +117,7 @@ public class Seg {
 		MazeFileWriter.appendChild(doc, mazeXML, "seenSeg_" + number+ "_" + i, isSeen()) ;
 		MazeFileWriter.appendChild(doc, mazeXML, "xSeg_" + number+ "_" + i, getStartPositionX()) ;
 		MazeFileWriter.appendChild(doc, mazeXML, "ySeg_" + number+ "_" + i, getStartPositionY()) ;
-		MazeFileWriter.appendChild(doc, mazeXML, "colSeg_" + number+ "_" + i, getColor().getRGB()) ;
+		MazeFileWriter.appendChild(doc, mazeXML, "colSeg_" + number+ "_" + i, getRGB()) ;
 	}
 
 	/**
@@ -136,7 +137,7 @@ public class Seg {
 		// compare all fields
 		if ((x != o.x) || (dx != o.dx) ||(y != o.y) || (dy != o.dy)) 
 			return false ; 
-		if ((dist != o.dist) || (partition != o.partition) ||(seen != o.seen) || (col.getRGB() != o.col.getRGB())) 
+		if ((dist != o.dist) || (partition != o.partition) ||(seen != o.seen) || (rgb != o.rgb)) 
 			return false ;
 		// all fields are equal, so both objects are equal
 		return true ;
@@ -147,8 +148,15 @@ public class Seg {
 	 * for the hashCode method as well.
 	 */
 	public int hashCode() {
-		assert false : "hashCode not designed";
-		return 42; // any arbitrary constant will do
+		int result = x ;
+		result = 31 * result + y ;
+		result = 31 * result + dx ;
+		result = 31 * result + dy ;
+		result = 31 * result + dist ;
+		result = 31 * result + rgb ;
+		result = 31 * result + (partition ? 1 : 0) ;
+		// seen is left out as it changes during the game, equal objects still have equal hash codes
+		return result ;
 	}
 	/**
 	 * @return the partition
@@ -190,25 +198,39 @@ public class Seg {
 	}
 
 	/**
-	 * @return the col
+	 * @return the color, shared with all segments of the same rgb value
 	 */
 	public Color getColor() {
-		return col;
+		return ColorPalette.getColor(rgb);
 	}
 
 	/**
-	 * @param col the color to set
+	 * @param color the color to set
 	 */
 	public void setColor(Color color) {
+		setRGB(color.getRGB());
+	}
+
+	/**
+	 * @return the color as a packed rgb value with an opaque alpha
+	 */
+	public int getRGB() {
+		return rgb;
+	}
+
+	/**
+	 * @param rgb the color to set as a packed rgb value, alpha is ignored
+	 */
+	public void setRGB(int rgb) {
 		/* for debugging: 
 		 * use random color settings such that all segments look different
 		int r = SingleRandom.getRandom().nextIntWithinInterval(20, 240) ;
 		int g = SingleRandom.getRandom().nextIntWithinInterval(20, 240) ;
 		int b = SingleRandom.getRandom().nextIntWithinInterval(20, 240) ;
-		this.col = new Color(r,g,b);
+		this.rgb = ColorPalette.toRGB(r,g,b);
 		return ;	
 		 */
-		this.col = color;
+		this.rgb = rgb | 0xff000000;
 	}
 
 	/**
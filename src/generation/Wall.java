@@ -13,7 +13,7 @@ public class Wall {
 	// Cell location (x,y) pair.
 	private int x;
 	private int y;
-	private int[] d; // direction (dx,dy) pair
+	private CardinalDirection dir; // direction of the wall, (dx,dy) pair is obtained by table lookup
 
 	/**
 	 * Constructor, values have same effect has setWall(x,y,cd).
@@ -25,7 +25,7 @@ public class Wall {
 	{
 		this.x = x;
 		this.y = y;
-		d = cd.getDirection();
+		dir = cd;
 	}
 	/**
 	 * Sets the internal fields to the given values for a (x,y)
@@ -38,7 +38,7 @@ public class Wall {
 	{
 		this.x = x;
 		this.y = y;
-		d = cd.getDirection();
+		dir = cd;
 	}
 	/**
 	 * Get the x coordinate for the current (x,y) position.
@@ -67,7 +67,7 @@ public class Wall {
 		x = random.nextIntWithinInterval(0, width-1) ;
 		y = random.nextIntWithinInterval(0, height - 1);
 		// pick a direction, 
-		d = CardinalDirection.East.randomDirection().getDirection() ;
+		dir = CardinalDirection.East.randomDirection() ;
 	}
 	/**
 	 * Computes the x coordinate of neighboring (adjacent) cell for internal walls.
@@ -76,7 +76,7 @@ public class Wall {
 	 * @return the x coordinate of adjacent cell
 	 */
 	public int getNeighborX() {
-		return x+d[0] ;
+		return x+dir.dx() ;
 	}
 	/**
 	 * Computes the y coordinate of neighboring (adjacent) cell for internal walls.
@@ -85,7 +85,7 @@ public class Wall {
 	 * @return  the y coordinate of adjacent cell
 	 */
 	public int getNeighborY() {
-		return y+d[1] ;
+		return y+dir.dy() ;
 	}
 	/**
 	 * Provides the direction for the wall with regard to the 
@@ -93,6 +93,6 @@ public class Wall {
 	 * @return the direction of this wall with regard to its cell location
 	 */
 	public CardinalDirection getDirection() {
-		return CardinalDirection.East.getDirection(d[0], d[1]) ;
+		return dir ;
 	}
 }
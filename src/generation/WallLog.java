@@ -0,0 +1,201 @@
+package generation;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * Records the sequence of walls that are deleted while a maze is generated.
+ *
+ * Each deletion is packed into a single int with the x coordinate in the upper 15 bits,
+ * the y coordinate in the next 15 bits and the ordinal of the CardinalDirection in the lowest 2 bits.
+ * Events go into int arrays of fixed size, a full array is handed to a writer thread
+ * that formats it as text into a temporary file while generation goes on.
+ * Saving the log only formats the last, partial array and copies the temporary file.
+ *
+ * The text format is the one Cells always used: a header line and one line "x y dx dy" per deleted wall.
+ *
+ * The events stay in memory at 4 bytes each, so any intermediate state of the maze
+ * can be reconstructed with replay().
+ *
+ * Adding is synchronized as the recursive division builder deletes walls on several threads.
+ */
+public class WallLog {
+	static final int CHUNK_SIZE = 1 << 14 ; // events per array
+	static final int MAX_COORDINATE = (1 << 15) - 1 ;
+	static final String HEADER = "x  y  dx  dy\n" ;
+
+	private static ExecutorService writer ; // shared by all logs, created on first use
+
+	private final ArrayList<int[]> chunks = new ArrayList<int[]>() ;
+	private int[] current ; // last chunk, partially filled
+	private int size ; // number of events
+	private int submitted ; // number of events handed to the writer thread
+	private File spill ; // temporary file with the text of all submitted events, null before the first chunk is full
+	private Future<?> pending ; // last task for the writer thread
+
+	/**
+	 * Adds a deleted wall
+	 * @param x coordinate of cell, 0 <= x <= MAX_COORDINATE
+	 * @param y coordinate of cell, 0 <= y <= MAX_COORDINATE
+	 * @param dx direction, x coordinate, -1 <= dx <= 1
+	 * @param dy direction, y coordinate, -1 <= dy <= 1
+	 */
+	public synchronized void add(int x, int y, int dx, int dy) {
+		assert 0 <= x && x <= MAX_COORDINATE && 0 <= y && y <= MAX_COORDINATE : "WallLog: coordinates out of range" ;
+		final int i = size & (CHUNK_SIZE-1) ;
+		if (0 == i) {
+			current = new int[CHUNK_SIZE] ;
+			chunks.add(current) ;
+		}
+		// East=1 and West=3 for dx, North=0 and South=2 for dy, as in CardinalDirection
+		final int dir = (0 != dx) ? 2 - dx : 1 + dy ;
+		current[i] = (x << 17) | (y << 2) | dir ;
+		size++ ;
+		if (size - submitted == CHUNK_SIZE)
+			submit() ;
+	}
+
+	/**
+	 * @return number of deleted walls
+	 */
+	public synchronized int size() {
+		return size ;
+	}
+
+	/**
+	 * Gives the x coordinate of the i-th deleted wall
+	 */
+	public int getX(int i) {
+		return get(i) >>> 17 ;
+	}
+
+	/**
+	 * Gives the y coordinate of the i-th deleted wall
+	 */
+	public int getY(int i) {
+		return (get(i) >>> 2) & MAX_COORDINATE ;
+	}
+
+	/**
+	 * Gives the direction of the i-th deleted wall
+	 */
+	public CardinalDirection getDirection(int i) {
+		return CardinalDirection.fromOrdinal(get(i) & 3) ;
+	}
+
+	/**
+	 * Deletes the walls of events from, ..., to-1 in the given cells.
+	 * To reconstruct the maze after the first n deletions, start from cells that are initialized
+	 * as the builder did it, i.e. with initialize() and, for mazes with rooms, the same rooms,
+	 * and replay events 0 to n. Room walls are not part of the log.
+	 * The given cells should not have a log of their own, it would record the replayed walls again.
+	 * @param cells to delete walls in
+	 * @param from index of first event, inclusive
+	 * @param to index of last event, exclusive
+	 */
+	public void replay(Cells cells, int from, int to) {
+		assert 0 <= from && from <= to && to <= size : "WallLog.replay: illegal range" ;
+		for (int i = from; i < to; i++) {
+			final int e = get(i) ;
+			cells.deleteWall(e >>> 17, (e >>> 2) & MAX_COORDINATE, e & 3) ;
+		}
+	}
+
+	/**
+	 * Writes the log as text into the given file. Waits for the writer thread to finish.
+	 * @param filename of file to write
+	 * @throws IOException if writing fails
+	 */
+	public void save(String filename) throws IOException {
+		final Future<?> done ;
+		synchronized (this) {
+			submit() ;
+			done = pending ;
+		}
+		try {
+			done.get() ;
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt() ;
+			throw new IOException("WallLog: interrupted while saving") ;
+		} catch (ExecutionException e) {
+			throw new IOException("WallLog: writing failed", e.getCause()) ;
+		}
+		Files.copy(spill.toPath(), new File(filename).toPath(), StandardCopyOption.REPLACE_EXISTING) ;
+	}
+
+	///////////////////////// private methods ///////////////////////////////////
+	private int get(int i) {
+		assert 0 <= i && i < size : "WallLog: index out of range" ;
+		return chunks.get(i / CHUNK_SIZE)[i & (CHUNK_SIZE-1)] ;
+	}
+
+	/**
+	 * Hands all events that are not yet written to the writer thread.
+	 * Events below size are never changed again, so the writer thread can read them without locking.
+	 */
+	private void submit() {
+		final int from = submitted ;
+		final int to = size ;
+		final boolean first = (null == spill) ;
+		if (first) {
+			try {
+				spill = File.createTempFile("walls", ".log") ;
+				spill.deleteOnExit() ;
+			} catch (IOException e) {
+				throw new IllegalStateException("WallLog: can not create temporary file", e) ;
+			}
+		}
+		submitted = to ;
+		final File file = spill ;
+		// the writer thread gets its own list as the builder thread keeps adding to chunks
+		final int offset = from / CHUNK_SIZE * CHUNK_SIZE ;
+		final int[][] parts = (from == to) ? new int[0][] :
+			chunks.subList(from / CHUNK_SIZE, (to-1) / CHUNK_SIZE + 1).toArray(new int[0][]) ;
+		pending = getWriter().submit(new Runnable() {
+			@Override
+			public void run() {
+				try {
+					BufferedWriter out = new BufferedWriter(new FileWriter(file, !first)) ;
+					try {
+						if (first)
+							out.write(HEADER) ;
+						for (int i = from; i < to; i++) {
+							final int e = parts[(i-offset) / CHUNK_SIZE][i & (CHUNK_SIZE-1)] ;
+							final CardinalDirection dir = CardinalDirection.fromOrdinal(e & 3) ;
+							out.write((e >>> 17) + " " + ((e >>> 2) & MAX_COORDINATE) + " " + dir.dx() + " " + dir.dy() + "\n") ;
+						}
+					}
+					finally {
+						out.close() ;
+					}
+				} catch (IOException e) {
+					throw new IllegalStateException(e) ;
+				}
+			}
+		}) ;
+	}
+
+	private static synchronized ExecutorService getWriter() {
+		if (null == writer) {
+			writer = Executors.newSingleThreadExecutor(new ThreadFactory() {
+				@Override
+				public Thread newThread(Runnable r) {
+					Thread t = new Thread(r, "WallLogWriter") ;
+					t.setDaemon(true) ;
+					return t ;
+				}
+			}) ;
+		}
+		return writer ;
+	}
+}
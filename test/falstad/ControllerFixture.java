@@ -0,0 +1,24 @@
+package falstad;
+
+import generation.MazeBuilder;
+import generation.MazeConfiguration;
+import generation.Order.Builder;
+import generation.StubOrderTest;
+
+/**
+ * Hands a deterministic maze to a controller as if the controller had ordered it,
+ * a fixture for tests of robot drivers, which run as soon as the maze is delivered.
+ */
+public class ControllerFixture {
+
+	/**
+	 * Builds a maze with the default seed and delivers it to the controller
+	 * @return the delivered maze
+	 */
+	static MazeConfiguration deliver(MazeController controller, Builder builder, int skill, boolean perfect) {
+		MazeConfiguration mazeConfig = StubOrderTest.build(builder, skill, perfect, MazeBuilder.DEFAULT_SEED);
+		controller.state = Constants.StateGUI.STATE_GENERATING; // as if the controller had ordered the maze
+		controller.deliver(mazeConfig);
+		return mazeConfig;
+	}
+}
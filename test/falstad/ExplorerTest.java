@@ -0,0 +1,54 @@
+package falstad;
+
+import static org.junit.Assert.*;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import generation.MazeConfiguration;
+import generation.Order.Builder;
+
+/**
+ * Tests the Explorer on a deterministic maze with rooms, the controller runs the driver
+ * as soon as the maze is delivered.
+ */
+public class ExplorerTest {
+	private Explorer explorer;
+	private MazeController controller;
+	private MazeConfiguration configuration;
+
+	@Before
+	public void setUp() throws Exception {
+		explorer = new Explorer();
+		controller = new MazeController(explorer);
+		configuration = ControllerFixture.deliver(controller, Builder.DFS, 3, false);
+	}
+
+	/**
+	 * The explorer reaches the exit without knowing the distances
+	 */
+	@Test
+	public void testReachesExit() {
+		assertEquals(Constants.StateGUI.STATE_FINISH, controller.state);
+		assertTrue(controller.robot.isAtGoal());
+	}
+
+	/**
+	 * The path can not be shorter than the shortest path to the exit
+	 */
+	@Test
+	public void testPathLength() {
+		int[] start = configuration.getStartingPosition();
+		assertTrue(explorer.getPathLength() > 0);
+		assertTrue(explorer.getPathLength() >= configuration.getMazedists().getDistance(start[0], start[1])-1);
+	}
+
+	/**
+	 * Each side of a cell is sensed at most once, a sensor reading costs 1 and a step costs 5
+	 */
+	@Test
+	public void testSensorReads() {
+		assertTrue(explorer.getSensorReads() <= 4 * configuration.getWidth() * configuration.getHeight());
+		assertTrue(explorer.getEnergyConsumption() >= 5 * explorer.getPathLength() + explorer.getSensorReads());
+	}
+}
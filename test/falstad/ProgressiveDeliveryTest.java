@@ -0,0 +1,98 @@
+package falstad;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+import generation.BSPNode;
+import generation.MazeConfiguration;
+import generation.Order.Builder;
+
+/**
+ * Tests that the controller starts a game with the playable maze
+ * and adds the first person view when the BSP tree arrives.
+ */
+public class ProgressiveDeliveryTest {
+
+	/**
+	 * Controller that keeps what it sees at the first stage of a delivery
+	 */
+	private static class Controller extends MazeController {
+		volatile BSPNode rootAtPlayable;
+		volatile Thread builderThread;
+		volatile boolean playable;
+		Controller(Builder builder, RobotDriver driver) {
+			super(builder, driver);
+		}
+		@Override
+		public void deliverPlayable(MazeConfiguration mazeConfig) {
+			rootAtPlayable = mazeConfig.getRootnode();
+			super.deliverPlayable(mazeConfig);
+			playable = true;
+			builderThread = Thread.currentThread();
+		}
+	}
+
+	/**
+	 * Driver that notes the thread it runs on
+	 */
+	private static class ThreadWizard extends Wizard {
+		volatile Thread thread;
+		@Override
+		public boolean drive2Exit() throws Exception {
+			thread = Thread.currentThread();
+			return super.drive2Exit();
+		}
+	}
+
+	private Controller order(Controller controller, int skill) throws InterruptedException {
+		controller.setSkillLevel(skill);
+		controller.setPerfect(false);
+		controller.state = Constants.StateGUI.STATE_GENERATING; // as if the user had picked a skill level
+		controller.factory.order(controller);
+		while (null == controller.builderThread)
+			Thread.sleep(10);
+		controller.builderThread.join();
+		return controller;
+	}
+
+	/**
+	 * A robot starts on the maze without BSP tree and finds the exit on a thread of its own
+	 */
+	@Test
+	public void testRobotBeforeBSP() throws InterruptedException {
+		ThreadWizard wizard = new ThreadWizard();
+		Controller controller = order(new Controller(Builder.Prim, wizard), 4);
+		assertTrue(controller.playable);
+		assertNull(controller.rootAtPlayable);
+		for (int i = 0; i < 500 && Constants.StateGUI.STATE_FINISH != controller.state; i++)
+			Thread.sleep(10);
+		assertEquals(Constants.StateGUI.STATE_FINISH, controller.state);
+		assertTrue(controller.robot.isAtGoal());
+		assertNotSame(controller.builderThread, wizard.thread);
+		assertNotNull(controller.getMazeConfiguration().getRootnode());
+	}
+
+	/**
+	 * A user who leaves before the BSP tree is done cancels its construction,
+	 * a late delivery does not bring the game back
+	 */
+	@Test
+	public void testLeaveEarly() throws InterruptedException {
+		Controller controller = new Controller(Builder.DFS, new Wizard()) {
+			@Override
+			public void deliverPlayable(MazeConfiguration mazeConfig) {
+				// no robot, the user presses escape right away
+				robot = null;
+				super.deliverPlayable(mazeConfig);
+				keyDownPlaying(Constants.ESCAPE);
+			}
+		};
+		order(controller, 6);
+		assertEquals(Constants.StateGUI.STATE_TITLE, controller.state);
+		MazeConfiguration mazeConfig = controller.getMazeConfiguration();
+		assertNull(mazeConfig.getRootnode());
+		controller.deliver(mazeConfig);
+		assertEquals(Constants.StateGUI.STATE_TITLE, controller.state);
+	}
+}
@@ -0,0 +1,80 @@
+package falstad;
+
+import static org.junit.Assert.*;
+
+import java.awt.Event;
+
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests which keys the render loop queues, keys are put in without a running
+ * render thread such that nothing is taken out again.
+ */
+public class RenderLoopTest {
+	private RenderLoop loop;
+
+	@Before
+	public void setUp() {
+		loop = new RenderLoop(new MazeController());
+	}
+
+	/**
+	 * Puts the keys into the queue of the loop
+	 */
+	private void enqueue(int... keys) {
+		for (int key : keys)
+			loop.enqueue(key);
+	}
+
+	/**
+	 * Deliberate moves in different directions are all kept, in order
+	 */
+	@Test
+	public void testDifferentMoves() {
+		enqueue(Event.DOWN, Event.UP, Event.UP, Event.LEFT);
+		assertArrayEquals(new Integer[] {Event.DOWN, Event.UP, Event.UP, Event.LEFT}, loop.getQueuedKeys());
+	}
+
+	/**
+	 * A held key is queued at most MAX_PENDING times, other moves still get in
+	 */
+	@Test
+	public void testHeldKey() {
+		for (int i = 0; i < 10; i++)
+			enqueue(Event.RIGHT);
+		assertFalse(loop.enqueue(Event.RIGHT));
+		assertTrue(loop.enqueue(Event.UP));
+		assertEquals(RenderLoop.MAX_PENDING + 1, loop.getQueuedKeys().length);
+	}
+
+	/**
+	 * Copies of the same move count even if other keys are queued in between
+	 */
+	@Test
+	public void testCountsCopiesOfMove() {
+		enqueue(Event.UP, 'm', 'k', 's', Event.UP);
+		assertArrayEquals(new Integer[] {Event.UP, (int) 'm', (int) 'k', (int) 's'}, loop.getQueuedKeys());
+	}
+
+	/**
+	 * Toggle switches are never coalesced, each press flips the state once
+	 */
+	@Test
+	public void testToggles() {
+		enqueue('m', 'm', 'm', 's', 's', 's');
+		assertArrayEquals(new Integer[] {(int) 'm', (int) 'm', (int) 'm', (int) 's', (int) 's', (int) 's'}, loop.getQueuedKeys());
+	}
+
+	/**
+	 * Stopping the loop discards queued keys and their counts
+	 */
+	@Test
+	public void testStopClears() {
+		enqueue(Event.UP, Event.UP, 'm');
+		loop.stop();
+		assertEquals(0, loop.getQueuedKeys().length);
+		assertTrue(loop.enqueue(Event.UP));
+		assertTrue(loop.enqueue(Event.UP));
+	}
+}
@@ -0,0 +1,124 @@
+package falstad;
+
+import static org.junit.Assert.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+
+import falstad.Robot.Turn;
+import generation.CardinalDirection;
+import generation.Order.Builder;
+
+/**
+ * Tests that a recording replays the same events in the same order.
+ */
+public class ReplayTest {
+
+	/**
+	 * Listener that writes events as text
+	 */
+	private static class Log implements ReplayPlayer.Listener {
+		final List<String> events = new ArrayList<String>();
+		@Override
+		public void position(int x, int y) {
+			events.add("p " + x + " " + y);
+		}
+		@Override
+		public void direction(CardinalDirection direction) {
+			events.add("d " + direction);
+		}
+		@Override
+		public void sensor(CardinalDirection direction, int distance) {
+			events.add("s " + direction + " " + distance);
+		}
+	}
+
+	/**
+	 * Events come back as recorded, including negative moves, jumps and a view through the exit
+	 */
+	@Test
+	public void testRoundTrip() throws IOException, InterruptedException {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		ReplayRecorder recorder = new ReplayRecorder(out);
+		recorder.position(3, 4);
+		recorder.direction(CardinalDirection.West.ordinal());
+		recorder.position(2, 4);
+		recorder.sensor(CardinalDirection.West.ordinal(), 0);
+		recorder.sensor(CardinalDirection.North.ordinal(), Integer.MAX_VALUE);
+		recorder.position(1000, 0);
+		recorder.close();
+		Log log = new Log();
+		long events = new ReplayPlayer(new ByteArrayInputStream(out.toByteArray()), log).play();
+		assertEquals(6, events);
+		assertEquals("[p 3 4, d West, p 2 4, s West 0, s North " + Integer.MAX_VALUE + ", p 1000 0]", log.events.toString());
+	}
+
+	/**
+	 * A recording longer than a chunk keeps all events in order
+	 */
+	@Test
+	public void testManyChunks() throws IOException, InterruptedException {
+		final int n = 10 * ReplayRecorder.CHUNK_SIZE;
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		ReplayRecorder recorder = new ReplayRecorder(out);
+		for (int i = 0; i < n; i++)
+			recorder.position(i % 100, i / 100);
+		recorder.close();
+		assertEquals(n, recorder.getEventCount());
+		final int[] count = new int[1];
+		new ReplayPlayer(new ByteArrayInputStream(out.toByteArray()), new Log() {
+			@Override
+			public void position(int x, int y) {
+				assertEquals(count[0] % 100, x);
+				assertEquals(count[0] / 100, y);
+				count[0]++;
+			}
+		}).play();
+		assertEquals(n, count[0]);
+	}
+
+	/**
+	 * A recorded robot run ends at the exit on replay
+	 */
+	@Test
+	public void testRecordedRun() throws Exception {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		ReplayRecorder recorder = new ReplayRecorder(out);
+		MazeController controller = new MazeController(new Explorer());
+		controller.setRecorder(recorder);
+		// the robot notes each direction it turns to
+		final List<String> turns = new ArrayList<String>();
+		controller.setRobot(new BasicRobot() {
+			@Override
+			public void rotate(Turn turn) {
+				CardinalDirection before = getCurrentDirection();
+				super.rotate(turn);
+				if (getCurrentDirection() != before)
+					turns.add("d " + getCurrentDirection());
+			}
+		});
+		ControllerFixture.deliver(controller, Builder.Prim, 2, true);
+		recorder.close();
+		Log log = new Log();
+		new ReplayPlayer(new ByteArrayInputStream(out.toByteArray()), log).play();
+		String last = null;
+		List<String> directions = new ArrayList<String>();
+		for (String event : log.events) {
+			if (event.startsWith("p "))
+				last = event;
+			else if (event.startsWith("d "))
+				directions.add(event);
+		}
+		int[] exit = controller.getCurrentPosition();
+		assertEquals("p " + exit[0] + " " + exit[1], last);
+		assertTrue(log.events.toString().contains("s "));
+		// the controller records the start direction, every turn of the robot follows
+		assertFalse(turns.isEmpty());
+		assertEquals(turns, directions.subList(1, directions.size()));
+	}
+}
@@ -0,0 +1,85 @@
+package falstad;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+
+import generation.Order.Builder;
+
+/**
+ * Tests the simulation kernel and a simulated robot run with the WallFollower.
+ */
+public class SimulatorTest {
+
+	/**
+	 * Events fire in the order of their time, ties in the order of scheduling
+	 */
+	@Test
+	public void testEventOrder() throws InterruptedException {
+		Simulator simulator = new Simulator();
+		final List<String> fired = new ArrayList<String>();
+		simulator.schedule(20, record(fired, "c"));
+		simulator.schedule(10, record(fired, "a"));
+		simulator.schedule(10, record(fired, "b"));
+		simulator.run();
+		assertEquals("[a, b, c]", fired.toString());
+		assertEquals(20, simulator.getTime());
+		assertEquals(3, simulator.getEventCount());
+	}
+
+	/**
+	 * Waiting for an event fires earlier events but not later ones
+	 */
+	@Test
+	public void testAwait() throws InterruptedException {
+		Simulator simulator = new Simulator();
+		final List<String> fired = new ArrayList<String>();
+		simulator.schedule(5, record(fired, "early"));
+		Simulator.Event event = simulator.schedule(10, record(fired, "event"));
+		simulator.schedule(15, record(fired, "late"));
+		simulator.await(event);
+		assertTrue(event.hasFired());
+		assertEquals("[early, event]", fired.toString());
+		assertEquals(10, simulator.getTime());
+	}
+
+	/**
+	 * A wall follower escapes a perfect maze in simulated time, the same maze takes the same time
+	 */
+	@Test
+	public void testSimulatedRun() throws Exception {
+		long first = simulateWallFollower();
+		long second = simulateWallFollower();
+		assertTrue(first > 0);
+		assertEquals(first, second);
+	}
+
+	/**
+	 * Runs a wall follower without delay on a deterministic maze
+	 * @return simulated time of the run
+	 */
+	private long simulateWallFollower() throws Exception {
+		WallFollower driver = new WallFollower();
+		driver.setStepDelay(0);
+		Simulator simulator = new Simulator();
+		SimulatedRobot robot = new SimulatedRobot(simulator);
+		MazeController controller = new MazeController(driver);
+		controller.setRobot(robot);
+		ControllerFixture.deliver(controller, Builder.Prim, 1, true);
+		assertTrue(robot.isAtGoal());
+		assertTrue(simulator.getTime() >= driver.getPathLength() * SimulatedRobot.MOVE_TIME);
+		return simulator.getTime();
+	}
+
+	private static Runnable record(final List<String> fired, final String name) {
+		return new Runnable() {
+			@Override
+			public void run() {
+				fired.add(name);
+			}
+		};
+	}
+}
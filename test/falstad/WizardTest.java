@@ -0,0 +1,69 @@
+package falstad;
+
+import static org.junit.Assert.*;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import falstad.Robot.Turn;
+import generation.CardinalDirection;
+import generation.MazeConfiguration;
+import generation.Order.Builder;
+
+/**
+ * Tests the Wizard on a deterministic maze, the controller runs the driver 
+ * as soon as the maze is delivered.
+ */
+public class WizardTest {
+	private Wizard wizard;
+	private MazeController controller;
+	private MazeConfiguration configuration;
+
+	@Before
+	public void setUp() throws Exception {
+		wizard = new Wizard();
+		controller = new MazeController(wizard);
+		configuration = ControllerFixture.deliver(controller, Builder.Prim, 3, true);
+	}
+
+	/**
+	 * The wizard reaches the exit
+	 */
+	@Test
+	public void testReachesExit() {
+		assertEquals(Constants.StateGUI.STATE_FINISH, controller.state);
+		assertTrue(controller.robot.isAtGoal());
+	}
+
+	/**
+	 * A perfect maze has a single path, the wizard takes it
+	 */
+	@Test
+	public void testPathLength() {
+		int[] start = configuration.getStartingPosition();
+		// the distance counts the exit position as 1
+		assertEquals(configuration.getMazedists().getDistance(start[0], start[1])-1, wizard.getPathLength());
+	}
+
+	/**
+	 * Energy is spent on steps, turns and a single sensor reading per move
+	 */
+	@Test
+	public void testEnergyConsumption() {
+		float steps = 5 * wizard.getPathLength();
+		assertTrue(wizard.getEnergyConsumption() >= steps);
+		assertTrue(wizard.getEnergyConsumption() <= 2 * steps);
+	}
+
+	/**
+	 * Turns match the clockwise order of directions
+	 */
+	@Test
+	public void testTurnTowards() {
+		assertNull(Wizard.turnTowards(CardinalDirection.North, CardinalDirection.North));
+		assertEquals(Turn.RIGHT, Wizard.turnTowards(CardinalDirection.North, CardinalDirection.East));
+		assertEquals(Turn.LEFT, Wizard.turnTowards(CardinalDirection.North, CardinalDirection.West));
+		assertEquals(Turn.AROUND, Wizard.turnTowards(CardinalDirection.East, CardinalDirection.West));
+		assertEquals(Turn.LEFT, Wizard.turnTowards(CardinalDirection.West, CardinalDirection.South));
+	}
+}
@@ -0,0 +1,155 @@
+package generation;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+
+import generation.Order.Builder;
+
+/**
+ * Tests that generation events arrive in order and are sufficient to rebuild the maze.
+ */
+public class GenerationEventsTest {
+
+	/**
+	 * Listener that keeps all events and counts down when the build is done
+	 */
+	private static class Collector implements GenerationListener {
+		final List<Long> events = new ArrayList<Long>();
+		final CountDownLatch done = new CountDownLatch(1);
+		@Override
+		public void generationEvents(long[] batch) {
+			for (long event : batch)
+				events.add(event);
+			if (GenerationEvents.DONE == GenerationEvents.getType(batch[batch.length-1]))
+				done.countDown();
+		}
+	}
+
+	/**
+	 * Rooms and deleted walls applied to fresh cells give the walls of the delivered maze,
+	 * phases come in the order of the build
+	 */
+	@Test
+	public void testRebuild() throws InterruptedException {
+		for (Builder builder : Builder.values()) {
+			Collector collector = new Collector();
+			MazeConfiguration mazeConfig = StubOrderTest.build(builder, 3, false, MazeBuilder.DEFAULT_SEED, collector);
+			assertTrue(collector.done.await(5, TimeUnit.SECONDS));
+			Cells cells = new Cells(mazeConfig.getWidth(), mazeConfig.getHeight());
+			cells.initialize();
+			List<BuildMetrics.Phase> phases = new ArrayList<BuildMetrics.Phase>();
+			int exits = 0;
+			for (long event : collector.events) {
+				switch (GenerationEvents.getType(event)) {
+				case GenerationEvents.WALL:
+					cells.deleteWall(GenerationEvents.getX(event), GenerationEvents.getY(event), GenerationEvents.getDirection(event).ordinal());
+					break;
+				case GenerationEvents.ROOM:
+					for (int x = GenerationEvents.getX(event); x <= GenerationEvents.getX2(event); x++) {
+						for (int y = GenerationEvents.getY(event); y <= GenerationEvents.getY2(event); y++) {
+							if (x < GenerationEvents.getX2(event))
+								cells.deleteWall(x, y, CardinalDirection.East.ordinal());
+							if (y < GenerationEvents.getY2(event))
+								cells.deleteWall(x, y, CardinalDirection.South.ordinal());
+						}
+					}
+					break;
+				case GenerationEvents.EXIT:
+					assertTrue(mazeConfig.getMazecells().isExitPosition(GenerationEvents.getX(event), GenerationEvents.getY(event)));
+					exits++;
+					break;
+				case GenerationEvents.PHASE:
+					phases.add(GenerationEvents.getPhase(event));
+					break;
+				}
+			}
+			assertEquals(builder.toString(), 1, exits);
+			assertEquals(builder.toString(), "[ROOMS, PATHWAYS, DISTANCES, BSP]", phases.toString());
+			long last = collector.events.get(collector.events.size()-1);
+			assertEquals(GenerationEvents.DONE, GenerationEvents.getType(last));
+			assertTrue(GenerationEvents.isDelivered(last));
+			StubOrderTest.assertSameWalls(builder.toString(), mazeConfig, cells);
+		}
+	}
+
+	/**
+	 * A listener that does not return does not hold up the builder, no event is lost
+	 * even if the queue fills up
+	 */
+	@Test
+	public void testBlockedListener() throws InterruptedException {
+		final CountDownLatch release = new CountDownLatch(1);
+		Collector collector = new Collector() {
+			@Override
+			public void generationEvents(long[] batch) {
+				try {
+					release.await();
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+				super.generationEvents(batch);
+			}
+		};
+		MazeConfiguration mazeConfig = StubOrderTest.build(Builder.DFS, 15, true, MazeBuilder.DEFAULT_SEED, collector);
+		// delivered while the listener is still stuck on the first batch
+		assertNotNull(mazeConfig);
+		release.countDown();
+		assertTrue(collector.done.await(10, TimeUnit.SECONDS));
+		int walls = 0;
+		for (long event : collector.events) {
+			if (GenerationEvents.WALL == GenerationEvents.getType(event))
+				walls++;
+		}
+		// a perfect maze is a spanning tree
+		assertTrue(walls > GenerationEvents.CAPACITY * GenerationEvents.BATCH_SIZE);
+		assertEquals(mazeConfig.getWidth() * mazeConfig.getHeight() - 1, walls);
+	}
+
+	/**
+	 * Events that did not fit into the full queue reach the listener once it catches up,
+	 * not only when the build closes
+	 */
+	@Test
+	public void testOverflowBeforeClose() throws InterruptedException {
+		final CountDownLatch release = new CountDownLatch(1);
+		final AtomicInteger received = new AtomicInteger();
+		Collector collector = new Collector() {
+			@Override
+			public void generationEvents(long[] batch) {
+				try {
+					release.await();
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+				super.generationEvents(batch);
+				received.addAndGet(batch.length);
+			}
+		};
+		GenerationEvents events = new GenerationEvents(collector);
+		// more than the queue holds, the rest waits in the buffer of the producer
+		final int n = (GenerationEvents.CAPACITY + 4) * GenerationEvents.BATCH_SIZE + 100;
+		for (int i = 0; i < n; i++)
+			events.wall(i % 1000, i / 1000, 0);
+		release.countDown();
+		long deadline = System.currentTimeMillis() + 10000;
+		while (received.get() < n && System.currentTimeMillis() < deadline)
+			Thread.sleep(5);
+		assertEquals(n, received.get());
+		assertEquals(1, collector.done.getCount());
+		events.close(true);
+		assertTrue(collector.done.await(10, TimeUnit.SECONDS));
+		assertEquals(n + 1, collector.events.size());
+		for (int i = 0; i < n; i++) {
+			long event = collector.events.get(i);
+			assertEquals(i % 1000, GenerationEvents.getX(event));
+			assertEquals(i / 1000, GenerationEvents.getY(event));
+		}
+	}
+}
@@ -0,0 +1,101 @@
+package generation;
+
+import static org.junit.Assert.*;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.Test;
+
+/**
+ * Tests the buckets and percentiles of the latency histogram with known values.
+ */
+public class LatencyHistogramTest {
+
+	/**
+	 * An empty histogram gives 0 for everything
+	 */
+	@Test
+	public void testEmpty() {
+		LatencyHistogram h = new LatencyHistogram();
+		assertEquals(0, h.getCount());
+		assertEquals(0.0, h.getMean(), 0.0);
+		assertEquals(0, h.getMax());
+		assertEquals(0, h.getPercentile(50));
+	}
+
+	/**
+	 * Values 1,...,100 fill buckets [1], [2,3], [4,7], ..., [32,63] and [64,100],
+	 * a percentile gives the upper end of its bucket but never more than the maximum
+	 */
+	@Test
+	public void testPercentiles() {
+		LatencyHistogram h = new LatencyHistogram();
+		for (int v = 1; v <= 100; v++)
+			h.record(v);
+		assertEquals(100, h.getCount());
+		assertEquals(50.5, h.getMean(), 1e-9);
+		assertEquals(100, h.getMax());
+		assertEquals(1, h.getPercentile(0));
+		assertEquals(1, h.getPercentile(1));
+		assertEquals(3, h.getPercentile(3));
+		assertEquals(7, h.getPercentile(4));
+		assertEquals(15, h.getPercentile(10));
+		assertEquals(63, h.getPercentile(50));
+		assertEquals(63, h.getPercentile(63));
+		assertEquals(100, h.getPercentile(64));
+		assertEquals(100, h.getPercentile(99));
+		assertEquals(100, h.getPercentile(100));
+	}
+
+	/**
+	 * Negative values count as 0, the largest values go into the last bucket
+	 */
+	@Test
+	public void testExtremes() {
+		LatencyHistogram h = new LatencyHistogram();
+		h.record(-5);
+		h.record(0);
+		assertEquals(0, h.getPercentile(100));
+		h.record(Long.MAX_VALUE);
+		assertEquals(3, h.getCount());
+		assertEquals(0, h.getPercentile(50));
+		assertEquals(Long.MAX_VALUE, h.getPercentile(100));
+		assertEquals(Long.MAX_VALUE, h.getMax());
+	}
+
+	/**
+	 * For random values, a percentile is at least the exact one and less than twice of it
+	 */
+	@Test
+	public void testBound() {
+		Random random = new Random(1);
+		LatencyHistogram h = new LatencyHistogram();
+		long[] values = new long[1000];
+		for (int i = 0; i < values.length; i++) {
+			values[i] = 1 + (random.nextLong() >>> 1) % 1000000000L;
+			h.record(values[i]);
+		}
+		Arrays.sort(values);
+		for (int p = 1; p <= 100; p++) {
+			long exact = values[(values.length * p + 99) / 100 - 1];
+			long estimate = h.getPercentile(p);
+			assertTrue("percentile " + p, exact <= estimate && estimate < 2 * exact);
+		}
+	}
+
+	/**
+	 * After a reset, the histogram is empty
+	 */
+	@Test
+	public void testReset() {
+		LatencyHistogram h = new LatencyHistogram();
+		h.record(42);
+		h.reset();
+		assertEquals(0, h.getCount());
+		assertEquals(0, h.getMax());
+		assertEquals(0, h.getPercentile(100));
+		h.record(5);
+		assertEquals(5, h.getPercentile(50)); // bucket [4,7] but capped at the new maximum
+	}
+}
@@ -0,0 +1,73 @@
+package generation;
+
+import static org.junit.Assert.*;
+import generation.Order.Builder;
+
+import org.junit.Test;
+
+/**
+ * Tests that recursive division delivers connected mazes, 
+ * a spanning tree for a perfect maze, and the same maze for the same seed
+ * even though chambers are built in parallel.
+ */
+public class MazeBuilderRecursiveDivisionTest {
+
+	/**
+	 * Orders a maze from a factory and waits for it
+	 */
+	private MazeConfiguration build(int skill, boolean perfect, boolean deterministic) {
+		MazeFactory mazeFactory = new MazeFactory(deterministic);
+		StubOrderTest stubOrder = new StubOrderTest(skill, Builder.RecursiveDivision, perfect);
+		mazeFactory.order(stubOrder);
+		mazeFactory.waitTillDelivered();
+		return stubOrder.getConfiguration();
+	}
+
+	/**
+	 * A spanning tree over n cells has n-1 edges, i.e. n-1 internal walls are torn down
+	 */
+	@Test
+	public void isPerfectMazeSpanningTree() {
+		MazeConfiguration configuration = build(12, true, false);
+		assertNotNull(configuration);
+		Cells cells = configuration.getMazecells();
+		int width = configuration.getWidth();
+		int height = configuration.getHeight();
+		int openings = 0;
+		for (int x = 0; x < width; x++) {
+			for (int y = 0; y < height; y++) {
+				if (x < width-1 && cells.hasNoWall(x, y, CardinalDirection.East))
+					openings++;
+				if (y < height-1 && cells.hasNoWall(x, y, CardinalDirection.South))
+					openings++;
+			}
+		}
+		assertEquals(width*height-1, openings);
+	}
+
+	/**
+	 * Rooms may block dividing lines, still every cell can reach the exit
+	 */
+	@Test
+	public void isMazeWithRoomsConnected() {
+		MazeConfiguration configuration = build(12, false, false);
+		assertNotNull(configuration);
+		int[][] dists = configuration.getMazedists().getDists();
+		for (int x = 0; x < configuration.getWidth(); x++) {
+			for (int y = 0; y < configuration.getHeight(); y++) {
+				assertTrue(dists[x][y] < Distance.INFINITY);
+			}
+		}
+	}
+
+	/**
+	 * Parallel construction does not affect the result in deterministic mode,
+	 * skill level 12 is large enough for chambers to be forked
+	 */
+	@Test
+	public void isDeterministicRepeatable() {
+		Cells first = build(12, false, true).getMazecells();
+		Cells second = build(12, false, true).getMazecells();
+		assertEquals(first, second);
+	}
+}
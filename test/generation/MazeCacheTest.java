@@ -0,0 +1,139 @@
+package generation;
+
+import static org.junit.Assert.*;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import generation.Order.Builder;
+
+/**
+ * Tests that the cache serves a maze that was stored before, evicts the least recently
+ * used files when it exceeds its limit and drops files that can not be read.
+ */
+public class MazeCacheTest {
+	private File directory;
+
+	@Before
+	public void setUp() throws IOException {
+		directory = File.createTempFile("mazecache", "");
+		assertTrue(directory.delete());
+	}
+
+	@After
+	public void tearDown() {
+		File[] files = directory.listFiles();
+		if (null != files) {
+			for (File f : files)
+				f.delete();
+		}
+		directory.delete();
+	}
+
+	/**
+	 * Number of bytes a maze takes on disk
+	 */
+	private static long size(MazeConfiguration mazeConfig) throws IOException {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		DataOutputStream out = new DataOutputStream(bytes);
+		MazeCache.write(out, mazeConfig);
+		out.close();
+		return bytes.size();
+	}
+
+	/**
+	 * The file of the cache that holds the maze of a seed
+	 */
+	private File getFile(final int seed) {
+		File[] files = directory.listFiles();
+		for (File f : files) {
+			if (f.getName().contains("-" + seed + "-v"))
+				return f;
+		}
+		return null;
+	}
+
+	/**
+	 * A second deterministic order gets the stored maze, the factory does not build it again
+	 */
+	@Test
+	public void testServedWithoutBuild() {
+		final AtomicInteger builds = new AtomicInteger();
+		MazeFactory factory = new MazeFactory(true);
+		factory.setCache(new MazeCache(directory, 1 << 20));
+		factory.setMetricsListener(new BuildMetricsListener() {
+			@Override
+			public void buildCompleted(BuildMetrics metrics) {
+				builds.incrementAndGet();
+			}
+		});
+		StubOrderTest first = new StubOrderTest(2, Builder.Prim, true);
+		factory.order(first);
+		factory.waitTillDelivered();
+		assertEquals(1, builds.get());
+		assertNotNull(getFile(MazeBuilder.DEFAULT_SEED));
+		StubOrderTest second = new StubOrderTest(2, Builder.Prim, true);
+		factory.order(second);
+		factory.waitTillDelivered();
+		assertEquals(1, builds.get());
+		assertEquals(100, second.percentDone);
+		assertNotSame(first.getConfiguration(), second.getConfiguration());
+		assertEquals(first.getConfiguration().getContentHash(), second.getConfiguration().getContentHash());
+		StubOrderTest.assertSameWalls("cached maze", first.getConfiguration(), second.getConfiguration().getMazecells());
+	}
+
+	/**
+	 * A maze that exceeds the limit pushes out the least recently used file and no other
+	 */
+	@Test
+	public void testEvictsOldest() throws IOException {
+		MazeConfiguration[] mazes = new MazeConfiguration[3];
+		for (int seed = 0; seed < mazes.length; seed++)
+			mazes[seed] = StubOrderTest.build(Builder.DFS, 0, false, seed);
+		// room for the two newer mazes only
+		MazeCache cache = new MazeCache(directory, size(mazes[1]) + size(mazes[2]));
+		final long now = System.currentTimeMillis();
+		cache.store(Builder.DFS, 0, false, 0, mazes[0]);
+		getFile(0).setLastModified(now - 20000);
+		cache.store(Builder.DFS, 0, false, 1, mazes[1]);
+		getFile(1).setLastModified(now - 10000);
+		cache.store(Builder.DFS, 0, false, 2, mazes[2]);
+		assertNull(getFile(0));
+		assertNotNull(getFile(1));
+		assertNotNull(getFile(2));
+		assertEquals(2, directory.listFiles().length); // no temporary files left behind
+		assertNull(cache.load(Builder.DFS, 0, false, 0));
+		assertEquals(mazes[1].getContentHash(), cache.load(Builder.DFS, 0, false, 1).getContentHash());
+	}
+
+	/**
+	 * A truncated file is not served and gets deleted
+	 */
+	@Test
+	public void testTruncatedFile() throws IOException {
+		MazeCache cache = new MazeCache(directory, 1 << 20);
+		MazeConfiguration mazeConfig = StubOrderTest.build(Builder.Kruskal, 1, true, 7);
+		cache.store(Builder.Kruskal, 1, true, 7, mazeConfig);
+		File file = getFile(7);
+		RandomAccessFile raf = new RandomAccessFile(file, "rw");
+		try {
+			raf.setLength(raf.length() / 2);
+		}
+		finally {
+			raf.close();
+		}
+		assertNull(cache.load(Builder.Kruskal, 1, true, 7));
+		assertFalse(file.exists());
+		// the next store writes the maze again
+		cache.store(Builder.Kruskal, 1, true, 7, mazeConfig);
+		assertEquals(mazeConfig.getContentHash(), cache.load(Builder.Kruskal, 1, true, 7).getContentHash());
+	}
+}
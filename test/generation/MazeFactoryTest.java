@@ -84,4 +84,28 @@ public class MazeFactoryTest {
 		assertEquals(height, yDimension);
 		
 	}
+	
+	/**
+	 * Checks that a deterministic factory delivers the same maze for the same seed
+	 * and a different maze for a different seed
+	 */
+	@Test
+	public void isDeterministicRepeatable(){
+		MazeFactory factory = new MazeFactory(true);
+		factory.setSeed(42);
+		StubOrderTest first = new StubOrderTest(3, Builder.DFS, false);
+		factory.order(first);
+		factory.waitTillDelivered();
+		StubOrderTest second = new StubOrderTest(3, Builder.DFS, false);
+		factory.order(second);
+		factory.waitTillDelivered();
+		factory.setSeed(43);
+		StubOrderTest third = new StubOrderTest(3, Builder.DFS, false);
+		factory.order(third);
+		factory.waitTillDelivered();
+		
+		Cells cells = first.getConfiguration().getMazecells();
+		assertEquals(cells, second.getConfiguration().getMazecells());	// same seed, same maze
+		assertFalse(cells.equals(third.getConfiguration().getMazecells()));	// other seed, other maze
+	}
 }
\ No newline at end of file
@@ -0,0 +1,98 @@
+package generation;
+
+import static org.junit.Assert.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+
+import org.junit.Test;
+
+import generation.Order.Builder;
+
+/**
+ * Tests that the content hash tells mazes apart and survives a round trip through the cache format.
+ */
+public class MazeHashTest {
+
+	/**
+	 * The same order gives the same hash, a different seed a different one
+	 */
+	@Test
+	public void testDeterministic() {
+		for (Builder builder : Builder.values()) {
+			long hash = StubOrderTest.build(builder, 2, false, 1).getContentHash();
+			assertEquals(builder.toString(), hash, StubOrderTest.build(builder, 2, false, 1).getContentHash());
+			assertTrue(builder.toString(), hash != StubOrderTest.build(builder, 2, false, 2).getContentHash());
+		}
+	}
+
+	/**
+	 * The algorithm does not change unnoticed, stored files depend on it
+	 */
+	@Test
+	public void testGolden() {
+		MazeHash h = new MazeHash();
+		assertEquals(0L, h.getValue());
+		for (int i = 0; i != 8; i++)
+			h.add(i);
+		assertEquals(0x5b68e162dac29fedL, h.getValue());
+	}
+
+	/**
+	 * A maze read from the cache format has the same hash and equal cells
+	 */
+	@Test
+	public void testCacheRoundTrip() throws IOException {
+		MazeConfiguration mazeConfig = StubOrderTest.build(Builder.Kruskal, 3, false, 1);
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		MazeCache.write(new DataOutputStream(bytes), mazeConfig);
+		MazeConfiguration copy = MazeCache.read(new DataInputStream(new ByteArrayInputStream(bytes.toByteArray())));
+		assertEquals(mazeConfig.getContentHash(), copy.getContentHash());
+		assertEquals(mazeConfig.getMazecells(), copy.getMazecells());
+		assertEquals(mazeConfig.getMazecells().hashCode(), copy.getMazecells().hashCode());
+	}
+
+	/**
+	 * A single wall changes the hash, the cached value is reset by a setter
+	 */
+	@Test
+	public void testChangedWall() {
+		MazeConfiguration mazeConfig = StubOrderTest.build(Builder.DFS, 1, true, 1);
+		long hash = mazeConfig.getContentHash();
+		int[][] values = new int[mazeConfig.getWidth()][mazeConfig.getHeight()];
+		for (int x = 0; x != mazeConfig.getWidth(); x++) {
+			for (int y = 0; y != mazeConfig.getHeight(); y++)
+				values[x][y] = mazeConfig.getMazecells().getValueOfCell(x, y);
+		}
+		Cells cells = new Cells(values);
+		assertEquals(mazeConfig.getMazecells(), cells);
+		int hashCode = cells.hashCode();
+		// tear down an inner wall
+		for (int x = 0; x+1 < mazeConfig.getWidth(); x++) {
+			if (cells.hasWall(x, 0, CardinalDirection.East)) {
+				cells.deleteWall(x, 0, CardinalDirection.East.ordinal());
+				break;
+			}
+		}
+		assertTrue(hashCode != cells.hashCode());
+		mazeConfig.setMazecells(cells);
+		assertTrue(hash != mazeConfig.getContentHash());
+	}
+
+	/**
+	 * Segments that differ only in being seen are not equal but have the same hash code
+	 */
+	@Test
+	public void testSegHashCode() {
+		Seg a = new Seg(0, 0, 1, 0, 3, 0);
+		Seg b = new Seg(0, 0, 1, 0, 3, 0);
+		assertEquals(a, b);
+		assertEquals(a.hashCode(), b.hashCode());
+		b.setSeen(true);
+		assertEquals(a.hashCode(), b.hashCode());
+		assertTrue(a.hashCode() != new Seg(0, 0, 0, 1, 3, 0).hashCode());
+	}
+}
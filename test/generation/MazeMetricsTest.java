@@ -0,0 +1,120 @@
+package generation;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+import generation.BuildMetrics.Phase;
+import generation.Order.Builder;
+
+/**
+ * Tests that the metrics of several builds are aggregated as the MBean reports them.
+ */
+public class MazeMetricsTest {
+
+	/**
+	 * Metrics with given values instead of measured ones
+	 */
+	private static BuildMetrics metrics(final long totalNanos, final long[] phaseNanos, final long allocated,
+			final int segments, final int nodes) {
+		return new BuildMetrics(Builder.DFS, 1, false) {
+			@Override
+			public long getTotalNanos() {
+				return totalNanos;
+			}
+			@Override
+			public long getPhaseNanos(Phase phase) {
+				return phaseNanos[phase.ordinal()];
+			}
+			@Override
+			public long getAllocatedBytes() {
+				return allocated;
+			}
+			@Override
+			public int getSegmentCount() {
+				return segments;
+			}
+			@Override
+			public int getNodeCount() {
+				return nodes;
+			}
+			@Override
+			public String toString() {
+				return "build of " + totalNanos;
+			}
+		};
+	}
+
+	/**
+	 * Two builds of 2 and 4 ms, one without a known allocation count
+	 */
+	@Test
+	public void testAggregation() {
+		MazeMetrics m = new MazeMetrics();
+		assertEquals(0, m.getBuildCount());
+		assertEquals("none", m.getLastBuild());
+		m.buildCompleted(metrics(2000000, new long[] { 0, 1000000, 500000, 500000 }, 1000, 10, 5));
+		m.buildCompleted(metrics(4000000, new long[] { 0, 3000000, 500000, 500000 }, -1, 30, 7));
+		assertEquals(2, m.getBuildCount());
+		assertEquals(3.0, m.getMeanBuildMillis(), 1e-9);
+		assertEquals(4.0, m.getMaxBuildMillis(), 1e-9);
+		assertEquals(0.0, m.getMeanRoomsMillis(), 1e-9);
+		assertEquals(2.0, m.getMeanPathwaysMillis(), 1e-9);
+		assertEquals(0.5, m.getMeanDistancesMillis(), 1e-9);
+		assertEquals(0.5, m.getMeanBspMillis(), 1e-9);
+		assertEquals(1000.0, m.getMeanAllocatedBytes(), 1e-9); // only the build that knows it
+		assertEquals(20.0, m.getMeanSegmentCount(), 1e-9);
+		assertEquals(6.0, m.getMeanNodeCount(), 1e-9);
+		assertEquals("build of 4000000", m.getLastBuild());
+		assertEquals(2, m.getHistogram(Phase.BSP).getCount());
+	}
+
+	/**
+	 * Percentiles by phase name, the total and unknown names
+	 */
+	@Test
+	public void testPercentiles() {
+		MazeMetrics m = new MazeMetrics();
+		m.buildCompleted(metrics(2000000, new long[] { 0, 1000000, 500000, 500000 }, 1000, 10, 5));
+		m.buildCompleted(metrics(4000000, new long[] { 0, 3000000, 500000, 500000 }, -1, 30, 7));
+		// 2 ms is in bucket [2^20, 2^21-1] ns
+		assertEquals(2.097151, m.getPercentileMillis("TOTAL", 50), 1e-9);
+		// 4 ms is in bucket [2^21, 2^22-1] ns, the upper end is capped at the maximum
+		assertEquals(4.0, m.getPercentileMillis("total", 100), 1e-9);
+		// 0.5 ms is in bucket [2^18, 2^19-1] ns, capped at the maximum
+		assertEquals(0.5, m.getPercentileMillis("bsp", 99), 1e-9);
+		assertEquals(0.0, m.getPercentileMillis("ROOMS", 50), 1e-9);
+		assertEquals(-1.0, m.getPercentileMillis("walls", 50), 1e-9);
+	}
+
+	/**
+	 * After a reset, nothing is known
+	 */
+	@Test
+	public void testReset() {
+		MazeMetrics m = new MazeMetrics();
+		m.buildCompleted(metrics(2000000, new long[] { 0, 1000000, 500000, 500000 }, 1000, 10, 5));
+		m.reset();
+		assertEquals(0, m.getBuildCount());
+		assertEquals(0.0, m.getMeanBuildMillis(), 1e-9);
+		assertEquals(-1.0, m.getMeanAllocatedBytes(), 1e-9);
+		assertEquals(0.0, m.getMeanSegmentCount(), 1e-9);
+		assertEquals("none", m.getLastBuild());
+	}
+
+	/**
+	 * A real build is reported with all of its phases
+	 */
+	@Test
+	public void testBuild() {
+		MazeMetrics m = new MazeMetrics();
+		MazeFactory factory = new MazeFactory(true);
+		factory.setMetricsListener(m);
+		factory.order(new StubOrderTest(2, Builder.Prim, false));
+		factory.waitTillDelivered();
+		assertEquals(1, m.getBuildCount());
+		assertTrue(m.getMeanBuildMillis() > 0);
+		assertTrue(m.getMeanBspMillis() <= m.getMeanBuildMillis());
+		assertTrue(m.getMeanNodeCount() > 0);
+	}
+}
@@ -0,0 +1,136 @@
+package generation;
+
+import static org.junit.Assert.*;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.After;
+import org.junit.Test;
+
+import falstad.Constants;
+import generation.Order.Builder;
+
+/**
+ * Tests that the pool hands out each maze once, keeps its capacity, refills in the background
+ * and drops the least recently used mazes when the memory budget is exceeded.
+ */
+public class MazePoolTest {
+
+	private MazePool pool;
+
+	@After
+	public void tearDown() {
+		if (null != pool)
+			pool.shutdown();
+	}
+
+	/**
+	 * Waits till the pool has the given number of mazes ready for a combination
+	 */
+	private void waitForReady(int skill, Builder builder, int count) throws InterruptedException {
+		long deadline = System.currentTimeMillis() + 10000;
+		while (pool.getReadyCount(skill, builder, false) < count) {
+			assertTrue("pool did not fill up in time", System.currentTimeMillis() < deadline);
+			Thread.sleep(5);
+		}
+	}
+
+	/**
+	 * Estimated size of a maze for the given skill level
+	 */
+	private long size(int skill) {
+		return (long) Constants.SKILL_X[skill] * Constants.SKILL_Y[skill] * MazePool.ESTIMATED_BYTES_PER_CELL;
+	}
+
+	/**
+	 * A maze is handed out only once, the pool refills after a take
+	 */
+	@Test
+	public void testTakeOnceAndRefill() throws InterruptedException {
+		pool = new MazePool(1, MazePool.DEFAULT_MEMORY_BUDGET);
+		StubOrderTest order = new StubOrderTest(1, Builder.DFS, false);
+		assertNull(pool.take(order)); // registers the combination
+		waitForReady(1, Builder.DFS, 1);
+		MazeConfiguration first = pool.take(order);
+		assertNotNull(first);
+		assertNotNull(first.getRootnode());
+		assertTrue(pool.getReadyCount(1, Builder.DFS, false) <= 1);
+		waitForReady(1, Builder.DFS, 1);
+		MazeConfiguration second = pool.take(order);
+		assertNotNull(second);
+		assertNotSame(first, second);
+	}
+
+	/**
+	 * The pool builds up to its capacity and not more
+	 */
+	@Test
+	public void testCapacity() throws InterruptedException {
+		pool = new MazePool(3, MazePool.DEFAULT_MEMORY_BUDGET);
+		pool.prefill(0, Builder.Prim, false);
+		waitForReady(0, Builder.Prim, 3);
+		Thread.sleep(100); // time for builds that should not be there
+		assertEquals(3, pool.getReadyCount(0, Builder.Prim, false));
+		assertNotNull(pool.take(new StubOrderTest(0, Builder.Prim, false)));
+		waitForReady(0, Builder.Prim, 3);
+		Thread.sleep(100);
+		assertEquals(3, pool.getReadyCount(0, Builder.Prim, false));
+		assertEquals(0, pool.getReadyCount(0, Builder.DFS, false));
+	}
+
+	/**
+	 * With room for a single maze, the maze of the combination that was used last stays
+	 */
+	@Test
+	public void testEviction() throws InterruptedException {
+		pool = new MazePool(1, size(0));
+		pool.prefill(0, Builder.DFS, false);
+		waitForReady(0, Builder.DFS, 1);
+		// Prim is used more recently than DFS now, its maze pushes the pool over budget
+		pool.prefill(0, Builder.Prim, false);
+		waitForReady(0, Builder.Prim, 1);
+		assertEquals(1, pool.getReadyCount(0, Builder.Prim, false));
+		assertEquals(0, pool.getReadyCount(0, Builder.DFS, false));
+	}
+
+	/**
+	 * After shutdown no maze is ready, a late build does not come back
+	 */
+	@Test
+	public void testShutdown() throws InterruptedException {
+		pool = new MazePool(2, MazePool.DEFAULT_MEMORY_BUDGET);
+		pool.prefill(0, Builder.DFS, false);
+		pool.shutdown();
+		Thread.sleep(100);
+		assertEquals(0, pool.getReadyCount(0, Builder.DFS, false));
+	}
+
+	/**
+	 * The pool builds with the settings of the factory that uses it
+	 */
+	@Test
+	public void testFactorySettings() throws InterruptedException {
+		final AtomicInteger builds = new AtomicInteger();
+		pool = new MazePool(2, MazePool.DEFAULT_MEMORY_BUDGET);
+		MazeFactory factory = new MazeFactory();
+		factory.setPool(pool);
+		factory.setMetricsListener(new BuildMetricsListener() {
+			@Override
+			public void buildCompleted(BuildMetrics metrics) {
+				builds.incrementAndGet();
+			}
+		});
+		pool.prefill(0, Builder.Kruskal, false);
+		waitForReady(0, Builder.Kruskal, 2);
+		long deadline = System.currentTimeMillis() + 5000;
+		while (builds.get() < 2 && System.currentTimeMillis() < deadline)
+			Thread.sleep(5);
+		assertEquals(2, builds.get());
+		// a randomized order is served from the pool
+		StubOrderTest order = new StubOrderTest(0, Builder.Kruskal, false);
+		factory.order(order);
+		factory.waitTillDelivered();
+		assertNotNull(order.getConfiguration());
+		assertEquals(100, order.percentDone);
+	}
+}
@@ -0,0 +1,90 @@
+package generation;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+
+import generation.Order.Builder;
+
+/**
+ * Tests that the validator accepts generated mazes and finds problems that are introduced on purpose.
+ */
+public class MazeValidatorTest {
+
+	/**
+	 * Puts up walls on all sides of a cell
+	 */
+	private void enclose(MazeConfiguration mazeConfig, int x, int y) {
+		for (CardinalDirection dir : CardinalDirection.values()) {
+			boolean internal = mazeConfig.isValidPosition(x + dir.dx(), y + dir.dy());
+			mazeConfig.getMazecells().addWall(new Wall(x, y, dir), internal);
+		}
+	}
+
+	/**
+	 * Mazes of all builders are valid, with and without rooms
+	 */
+	@Test
+	public void testGeneratedMazesAreValid() {
+		for (Builder builder : Builder.values()) {
+			assertEquals(builder.toString(), "[]", MazeValidator.validate(StubOrderTest.build(builder, 3, true, 1), true).toString());
+			assertEquals(builder.toString(), "[]", MazeValidator.validate(StubOrderTest.build(builder, 3, false, 1), false).toString());
+		}
+	}
+
+	/**
+	 * An additional opening in a perfect maze is a cycle
+	 */
+	@Test
+	public void testCycle() {
+		MazeConfiguration mazeConfig = StubOrderTest.build(Builder.DFS, 2, true, 1);
+		Cells cells = mazeConfig.getMazecells();
+		// find an inner wall and tear it down
+		for (int x = 0; x+1 < mazeConfig.getWidth(); x++) {
+			if (cells.hasWall(x, 0, CardinalDirection.East)) {
+				cells.deleteWall(x, 0, CardinalDirection.East.ordinal());
+				break;
+			}
+		}
+		List<String> problems = MazeValidator.validate(mazeConfig, true);
+		assertFalse(problems.isEmpty());
+		assertTrue(problems.get(0).startsWith("cycle"));
+		// with rooms, cycles are fine
+		assertTrue(MazeValidator.validate(mazeConfig, false).isEmpty());
+	}
+
+	/**
+	 * A cell with walls on all sides is cut off, a wall at the exit blocks it
+	 */
+	@Test
+	public void testBlocked() {
+		MazeConfiguration mazeConfig = StubOrderTest.build(Builder.Prim, 2, true, 1);
+		int[] exit = mazeConfig.getMazedists().getExitPosition();
+		enclose(mazeConfig, exit[0], exit[1]);
+		String problems = MazeValidator.validate(mazeConfig, true).toString();
+		assertTrue(problems, problems.contains("separate areas"));
+		assertTrue(problems, problems.contains("exit"));
+		assertTrue(problems, problems.contains("0 openings in the border"));
+	}
+
+	/**
+	 * Parallel validation gives results in the order of the mazes
+	 */
+	@Test
+	public void testValidateAll() throws InterruptedException {
+		List<MazeConfiguration> mazeConfigs = new ArrayList<MazeConfiguration>();
+		for (int seed = 1; seed <= 4; seed++)
+			mazeConfigs.add(StubOrderTest.build(Builder.Kruskal, 1, true, seed));
+		MazeConfiguration broken = StubOrderTest.build(Builder.Kruskal, 1, true, 5);
+		int[] exit = broken.getMazedists().getExitPosition();
+		enclose(broken, exit[0], exit[1]);
+		mazeConfigs.add(2, broken);
+		List<List<String>> results = MazeValidator.validateAll(mazeConfigs, true);
+		assertEquals(5, results.size());
+		for (int i = 0; i != 5; i++)
+			assertEquals(2 == i, !results.get(i).isEmpty());
+	}
+}
@@ -0,0 +1,116 @@
+package generation;
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+
+import org.junit.Test;
+
+import generation.Order.Builder;
+
+/**
+ * Tests that a progressive order gets a playable maze first and the same maze with its BSP tree later.
+ */
+public class ProgressiveOrderTest {
+
+	/**
+	 * Order that keeps what it sees at the first stage
+	 */
+	private static class Progressive extends StubOrderTest implements ProgressiveOrder {
+		MazeConfiguration playable;
+		Cells cellsAtPlayable;
+		BSPNode rootAtPlayable;
+		int percentAtPlayable;
+		Thread builderThread;
+		Progressive(int skill, Builder builder, boolean perfect) {
+			super(skill, builder, perfect);
+		}
+		@Override
+		public void deliverPlayable(MazeConfiguration mazeConfig) {
+			playable = mazeConfig;
+			// copy of the walls as they are now, the builder goes on with the same cells object
+			int[][] values = new int[mazeConfig.getWidth()][mazeConfig.getHeight()];
+			for (int x = 0; x != mazeConfig.getWidth(); x++) {
+				for (int y = 0; y != mazeConfig.getHeight(); y++)
+					values[x][y] = mazeConfig.getMazecells().getValueOfCell(x, y);
+			}
+			cellsAtPlayable = new Cells(values);
+			rootAtPlayable = mazeConfig.getRootnode();
+			percentAtPlayable = percentDone;
+			builderThread = Thread.currentThread();
+			// cells and distances are complete
+			assertTrue(MazeValidator.validate(mazeConfig, isPerfect()).isEmpty());
+		}
+	}
+
+	/**
+	 * Both stages deliver the same object, the BSP tree only comes with the second one,
+	 * the cells do not change in between,
+	 * the maze is the same as without progressive delivery
+	 */
+	@Test
+	public void testTwoStages() {
+		for (Builder builder : Builder.values()) {
+			MazeFactory factory = new MazeFactory(true);
+			Progressive order = new Progressive(4, builder, false);
+			factory.order(order);
+			factory.waitTillDelivered();
+			assertNotNull(builder.toString(), order.playable);
+			assertNull(builder.toString(), order.rootAtPlayable);
+			assertTrue(builder.toString(), order.percentAtPlayable < 100);
+			assertSame(builder.toString(), order.playable, order.getConfiguration());
+			assertNotNull(builder.toString(), order.getConfiguration().getRootnode());
+			// building the BSP tree does not touch the cells any more
+			assertEquals(builder.toString(), order.cellsAtPlayable, order.getConfiguration().getMazecells());
+
+			factory = new MazeFactory(true);
+			StubOrderTest plain = new StubOrderTest(4, builder, false);
+			factory.order(plain);
+			factory.waitTillDelivered();
+			assertEquals(builder.toString(), plain.getConfiguration().getContentHash(), order.getConfiguration().getContentHash());
+		}
+	}
+
+	/**
+	 * An order that is cancelled after the first stage does not get the second one
+	 */
+	@Test
+	public void testCancelAfterPlayable() throws InterruptedException {
+		final MazeFactory factory = new MazeFactory(true);
+		Progressive order = new Progressive(6, Builder.DFS, false) {
+			@Override
+			public void deliverPlayable(MazeConfiguration mazeConfig) {
+				super.deliverPlayable(mazeConfig);
+				factory.cancel();
+			}
+		};
+		factory.order(order);
+		while (null == order.builderThread)
+			Thread.sleep(10);
+		order.builderThread.join();
+		assertNotNull(order.playable);
+		assertNull(order.getConfiguration());
+		assertNull(order.playable.getRootnode());
+	}
+
+	/**
+	 * The order that stores mazes in the cache passes the first stage on
+	 */
+	@Test
+	public void testStoringOrder() throws Exception {
+		File dir = File.createTempFile("mazes", "");
+		dir.delete();
+		MazeCache cache = new MazeCache(dir, 1 << 20);
+		Progressive order = new Progressive(2, Builder.Prim, true);
+		MazeBuilder builder = new MazeBuilderPrim(true);
+		builder.buildOrder(cache.storingOrder(order, MazeBuilder.DEFAULT_SEED));
+		builder.run();
+		assertNotNull(order.playable);
+		assertSame(order.playable, order.getConfiguration());
+		assertEquals(order.getConfiguration().getContentHash(),
+				cache.load(Builder.Prim, 2, true, MazeBuilder.DEFAULT_SEED).getContentHash());
+		for (File f : dir.listFiles())
+			f.delete();
+		dir.delete();
+	}
+}
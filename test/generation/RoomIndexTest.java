@@ -0,0 +1,72 @@
+package generation;
+
+import static org.junit.Assert.*;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+/**
+ * Tests the RoomIndex against the cell by cell check of the Cells class.
+ */
+public class RoomIndexTest {
+
+	/**
+	 * An empty index has no covered cells, but areas at the border still count as overlapping.
+	 */
+	@Test
+	public void testEmpty() {
+		RoomIndex index = new RoomIndex(10, 8) ;
+		assertEquals(0, index.count(0, 0, 9, 7)) ;
+		assertFalse(index.areaOverlapsWithRoom(1, 1, 8, 6)) ;
+		assertTrue(index.areaOverlapsWithRoom(0, 1, 3, 3)) ;
+		assertTrue(index.areaOverlapsWithRoom(1, 1, 9, 3)) ;
+	}
+
+	/**
+	 * Counts reflect added rooms exactly
+	 */
+	@Test
+	public void testCount() {
+		RoomIndex index = new RoomIndex(10, 8) ;
+		index.add(2, 1, 4, 3) ; // 3x3
+		assertEquals(9, index.count(0, 0, 9, 7)) ;
+		assertEquals(1, index.count(4, 3, 6, 5)) ;
+		assertEquals(0, index.count(5, 0, 9, 7)) ;
+		index.add(6, 5, 8, 6) ; // 3x2, touching the border
+		assertEquals(15, index.count(0, 0, 9, 7)) ;
+		assertEquals(2, index.count(8, 5, 9, 7)) ;
+		assertTrue(index.areaOverlapsWithRoom(5, 4, 5, 4)) ; // neighbor of both rooms
+		assertFalse(index.areaOverlapsWithRoom(7, 2, 8, 2)) ;
+	}
+
+	/**
+	 * Randomly placed rooms give the same overlap results as the Cells class
+	 */
+	@Test
+	public void testSameAsCells() {
+		final int width = 40 ;
+		final int height = 30 ;
+		Random random = new Random(7) ;
+		Cells cells = new Cells(width, height) ;
+		cells.initialize() ;
+		RoomIndex index = new RoomIndex(width, height) ;
+		int placed = 0 ;
+		for (int i = 0 ; i < 2000 ; i++) {
+			int rw = 1 + random.nextInt(6) ;
+			int rh = 1 + random.nextInt(6) ;
+			int rx = random.nextInt(width-rw+1) ;
+			int ry = random.nextInt(height-rh+1) ;
+			int rxl = rx+rw-1 ;
+			int ryl = ry+rh-1 ;
+			boolean expected = cells.areaOverlapsWithRoom(rx, ry, rxl, ryl) ;
+			assertEquals(expected, index.areaOverlapsWithRoom(rx, ry, rxl, ryl)) ;
+			if (!expected) {
+				cells.markAreaAsRoom(rw, rh, rx, ry, rxl, ryl) ;
+				index.add(rx, ry, rxl, ryl) ;
+				placed++ ;
+			}
+		}
+		assertTrue(placed > 10) ;
+	}
+}
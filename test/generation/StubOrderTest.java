@@ -1,5 +1,7 @@
 package generation;
 
+import static org.junit.Assert.assertEquals;
+
 public class StubOrderTest implements Order{
 	private int skill;
 	private Builder builder;
@@ -40,4 +42,40 @@ public class StubOrderTest implements Order{
 	public MazeConfiguration getConfiguration(){
 		return mazeConfiguration;
 	}
+	
+	/**
+	 * Builds a deterministic maze with a new factory, a fixture for tests
+	 * @param seed of the factory
+	 * @param listener follows the build, null if none
+	 * @return the delivered maze
+	 */
+	public static MazeConfiguration build(Builder builder, int skill, boolean perfect, int seed, GenerationListener listener){
+		MazeFactory factory = new MazeFactory(true);
+		factory.setSeed(seed);
+		factory.setGenerationListener(listener);
+		StubOrderTest order = new StubOrderTest(skill, builder, perfect);
+		factory.order(order);
+		factory.waitTillDelivered();
+		return order.getConfiguration();
+	}
+	/**
+	 * Builds a deterministic maze with a new factory, a fixture for tests
+	 */
+	public static MazeConfiguration build(Builder builder, int skill, boolean perfect, int seed){
+		return build(builder, skill, perfect, seed, null);
+	}
+	/**
+	 * Asserts that the cells have the same walls inside the maze as the given maze,
+	 * walls on the border are not compared
+	 */
+	public static void assertSameWalls(String message, MazeConfiguration mazeConfig, Cells cells){
+		for (int x = 0; x != mazeConfig.getWidth(); x++) {
+			for (int y = 0; y != mazeConfig.getHeight(); y++) {
+				for (CardinalDirection dir : CardinalDirection.values()) {
+					if (mazeConfig.isValidPosition(x + dir.dx(), y + dir.dy()))
+						assertEquals(message + " at " + x + "," + y + " " + dir, mazeConfig.hasWall(x, y, dir), cells.hasWall(x, y, dir));
+				}
+			}
+		}
+	}
 }
\ No newline at end of file
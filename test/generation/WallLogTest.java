@@ -0,0 +1,86 @@
+package generation;
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+
+import org.junit.Test;
+
+import generation.Order.Builder;
+
+/**
+ * Tests that the log of deleted walls keeps the text format and replays the generation.
+ */
+public class WallLogTest {
+
+	/**
+	 * Builds a maze with the log of deleted walls switched on
+	 */
+	private MazeConfiguration build(Builder builder, int skill) {
+		boolean debug = Cells.deepdebugWall;
+		Cells.deepdebugWall = true;
+		try {
+			return StubOrderTest.build(builder, skill, true, MazeBuilder.DEFAULT_SEED);
+		}
+		finally {
+			Cells.deepdebugWall = debug;
+		}
+	}
+
+	/**
+	 * The file has one line per deleted wall as before, also across several chunks
+	 */
+	@Test
+	public void testTextFormat() throws IOException {
+		WallLog log = new WallLog();
+		StringBuilder expected = new StringBuilder("x  y  dx  dy\n");
+		for (int i = 0; i < 3 * WallLog.CHUNK_SIZE + 5; i++) {
+			CardinalDirection dir = CardinalDirection.fromOrdinal(i & 3);
+			int x = i % 1000;
+			int y = i / 1000;
+			log.add(x, y, dir.dx(), dir.dy());
+			expected.append(x + " " + y + " " + dir.dx() + " " + dir.dy() + "\n");
+		}
+		File file = File.createTempFile("walls", ".txt");
+		file.deleteOnExit();
+		log.save(file.getPath());
+		assertEquals(expected.toString(), new String(Files.readAllBytes(file.toPath())));
+		assertEquals(3 * WallLog.CHUNK_SIZE + 5, log.size());
+		assertEquals(CardinalDirection.South, log.getDirection(2));
+		assertEquals(WallLog.CHUNK_SIZE % 1000, log.getX(WallLog.CHUNK_SIZE));
+	}
+
+	/**
+	 * Replaying all deleted walls on fresh cells gives the walls of the delivered maze,
+	 * a partial replay leaves more walls standing
+	 */
+	@Test
+	public void testReplay() {
+		for (Builder builder : Builder.values()) {
+			MazeConfiguration mazeConfig = build(builder, 2);
+			WallLog log = mazeConfig.getMazecells().getWallLog();
+			assertNotNull(log);
+			Cells cells = new Cells(mazeConfig.getWidth(), mazeConfig.getHeight());
+			cells.initialize();
+			log.replay(cells, 0, log.size() / 2);
+			assertTrue(builder.toString(), countWalls(cells, mazeConfig) > countWalls(mazeConfig.getMazecells(), mazeConfig));
+			log.replay(cells, log.size() / 2, log.size());
+			StubOrderTest.assertSameWalls(builder.toString(), mazeConfig, cells);
+		}
+	}
+
+	private int countWalls(Cells cells, MazeConfiguration mazeConfig) {
+		int result = 0;
+		for (int x = 0; x != mazeConfig.getWidth(); x++) {
+			for (int y = 0; y != mazeConfig.getHeight(); y++) {
+				for (CardinalDirection dir : CardinalDirection.values()) {
+					if (cells.hasWall(x, y, dir))
+						result++;
+				}
+			}
+		}
+		return result;
+	}
+}